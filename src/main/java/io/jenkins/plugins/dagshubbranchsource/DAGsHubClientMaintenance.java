@@ -0,0 +1,35 @@
+package io.jenkins.plugins.dagshubbranchsource;
+
+import hudson.Extension;
+import hudson.init.Terminator;
+import hudson.model.PeriodicWork;
+import io.jenkins.plugins.dagshubbranchsource.api.DAGsHubClientRegistry;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Evicts idle pooled DAGsHub clients periodically, and closes all of them when Jenkins shuts down.
+ */
+@Extension
+public class DAGsHubClientMaintenance extends PeriodicWork {
+
+    private static final Logger LOGGER = Logger.getLogger(DAGsHubClientMaintenance.class.getName());
+
+    @Override
+    public long getRecurrencePeriod() {
+        return MIN;
+    }
+
+    @Override
+    protected void doRun() {
+        final int evicted = DAGsHubClientRegistry.get().evictIdle();
+        if (evicted > 0) {
+            LOGGER.log(Level.FINE, "Closed {0} idle DAGsHub clients", evicted);
+        }
+    }
+
+    @Terminator
+    public static void shutdownClients() {
+        DAGsHubClientRegistry.get().shutdown();
+    }
+}
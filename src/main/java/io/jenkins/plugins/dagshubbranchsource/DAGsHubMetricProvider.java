@@ -0,0 +1,58 @@
+package io.jenkins.plugins.dagshubbranchsource;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import io.jenkins.plugins.dagshubbranchsource.api.CircuitBreaker;
+import io.jenkins.plugins.dagshubbranchsource.api.DAGsHubClientRegistry;
+import io.jenkins.plugins.dagshubbranchsource.api.DAGsHubMetrics;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import jenkins.metrics.api.MetricProvider;
+import jenkins.metrics.api.Metrics;
+
+/**
+ * Publishes the {@link io.jenkins.plugins.dagshubbranchsource.api.DAGsHubMetrics} through the Metrics
+ * plugin, if it is installed.
+ * <p>
+ * The metric set is only read once, so the metrics of circuit breakers, which come with the servers we
+ * talk to, are registered with the plugin's registry as the breakers are created.
+ */
+@Extension(optional = true)
+public class DAGsHubMetricProvider extends MetricProvider {
+
+    private boolean watching;
+
+    @NonNull
+    @Override
+    public MetricSet getMetricSet() {
+        final Map<String, Metric> metrics = new LinkedHashMap<>();
+        for (Map.Entry<String, Supplier<Number>> gauge
+            : DAGsHubClientRegistry.get().getMetrics().getGauges().entrySet()) {
+            final Supplier<Number> value = gauge.getValue();
+            metrics.put(gauge.getKey(), (Gauge<Number>) value::get);
+        }
+        synchronized (this) {
+            if (!watching) {
+                watching = true;
+                DAGsHubClientRegistry.get().watchCircuitBreakers(DAGsHubMetricProvider::register);
+            }
+        }
+        return () -> Collections.unmodifiableMap(metrics);
+    }
+
+    private static void register(CircuitBreaker breaker) {
+        final MetricRegistry registry = Metrics.metricRegistry();
+        for (Map.Entry<String, Supplier<Number>> gauge : DAGsHubMetrics.getGauges(breaker).entrySet()) {
+            final Supplier<Number> value = gauge.getValue();
+            if (!registry.getNames().contains(gauge.getKey())) {
+                registry.register(gauge.getKey(), (Gauge<Number>) value::get);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package io.jenkins.plugins.dagshubbranchsource;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.jenkins.plugins.dagshubbranchsource.api.Contents;
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import jenkins.scm.api.SCMFile;
+
+/**
+ * A file or directory of a {@link DAGsHubSCMFileSystem}.
+ */
+public class DAGsHubSCMFile extends SCMFile {
+
+    private final DAGsHubSCMFileSystem fs;
+    private Type type;
+
+    DAGsHubSCMFile(@NonNull DAGsHubSCMFileSystem fs) {
+        this.fs = fs;
+        this.type = Type.DIRECTORY;
+    }
+
+    private DAGsHubSCMFile(@NonNull DAGsHubSCMFile parent, @NonNull String name, Type type) {
+        super(parent, name);
+        this.fs = parent.fs;
+        this.type = type;
+    }
+
+    @NonNull
+    @Override
+    protected SCMFile newChild(@NonNull String name, boolean assumeIsDirectory) {
+        // Only trust the assumption once we have looked the file up
+        return new DAGsHubSCMFile(this, name, null);
+    }
+
+    @NonNull
+    @Override
+    public Iterable<SCMFile> children() throws IOException {
+        final Contents dir = fs.getContents(getPath());
+        if (dir == null || dir.getEntries() == null) {
+            return Collections.emptyList();
+        }
+        final List<SCMFile> children = new ArrayList<>(dir.getEntries().size());
+        for (Contents entry : dir.getEntries()) {
+            children.add(new DAGsHubSCMFile(this, entry.getName(), typeOf(entry)));
+        }
+        return children;
+    }
+
+    @Override
+    public long lastModified() {
+        return 0L;
+    }
+
+    @NonNull
+    @Override
+    protected Type type() throws IOException {
+        if (type == null) {
+            type = typeOf(fs.getContents(getPath()));
+        }
+        return type;
+    }
+
+    @NonNull
+    @Override
+    public InputStream content() throws IOException {
+        final Contents file = fs.getContents(getPath());
+        if (file == null || file.getType() != Contents.Type.file) {
+            throw new FileNotFoundException(getPath() + " is not a file");
+        }
+        return new ByteArrayInputStream(fs.getBlob(file.getSha()));
+    }
+
+    private static Type typeOf(Contents contents) {
+        if (contents == null) {
+            return Type.NONEXISTENT;
+        }
+        if (contents.getType() == null) {
+            return Type.OTHER;
+        }
+        switch (contents.getType()) {
+            case file:
+                return Type.REGULAR_FILE;
+            case dir:
+                return Type.DIRECTORY;
+            case symlink:
+                return Type.LINK;
+            default:
+                return Type.OTHER;
+        }
+    }
+}
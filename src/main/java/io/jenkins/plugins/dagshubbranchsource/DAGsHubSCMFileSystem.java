@@ -0,0 +1,135 @@
+package io.jenkins.plugins.dagshubbranchsource;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.TaskListener;
+import hudson.scm.SCM;
+import hudson.scm.SCMDescriptor;
+import io.jenkins.plugins.dagshubbranchsource.api.Contents;
+import io.jenkins.plugins.dagshubbranchsource.api.DAGsHubApi;
+import io.jenkins.plugins.dagshubbranchsource.git.PullRequestSCMRevision;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import jenkins.plugins.git.AbstractGitSCMSource;
+import jenkins.scm.api.SCMFile;
+import jenkins.scm.api.SCMFileSystem;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.SCMSourceDescriptor;
+
+/**
+ * Reads files at a single commit through the contents API, so that e.g. a {@code Jenkinsfile} can be
+ * loaded without cloning the repository.
+ * <p>
+ * Contents are cached by commit and blob SHA, see {@link DAGsHubApi#getContents(String, String)}.
+ */
+public class DAGsHubSCMFileSystem extends SCMFileSystem {
+
+    private final DAGsHubApi api;
+    private final String commit;
+
+    protected DAGsHubSCMFileSystem(@NonNull DAGsHubApi api, @NonNull String commit,
+        @CheckForNull SCMRevision rev) {
+        super(rev);
+        this.api = api;
+        this.commit = commit;
+    }
+
+    @Override
+    public long lastModified() {
+        // Would take another request for the commit, and nothing we serve needs it
+        return 0L;
+    }
+
+    @NonNull
+    @Override
+    public SCMFile getRoot() {
+        return new DAGsHubSCMFile(this);
+    }
+
+    @Override
+    public void close() throws IOException {
+        api.close();
+    }
+
+    @CheckForNull
+    Contents getContents(String path) throws IOException {
+        return api.getContents(commit, path);
+    }
+
+    byte[] getBlob(String sha) throws IOException {
+        return api.getBlob(sha);
+    }
+
+    /**
+     * The commit whose files a revision stands for, or {@code null} if there is no such commit.
+     * <p>
+     * The merge revision of a pull request only exists once Jenkins has merged it locally, so we
+     * cannot read its files remotely. Trusted revisions of untrusted pull requests are plain
+     * {@link AbstractGitSCMSource.SCMRevisionImpl}s of the target branch, see
+     * {@link DAGsHubSCMSource#getTrustedRevision(SCMRevision, TaskListener)}.
+     */
+    @CheckForNull
+    static String commitOf(@CheckForNull SCMRevision rev) {
+        if (rev instanceof PullRequestSCMRevision) {
+            final PullRequestSCMRevision pull = (PullRequestSCMRevision) rev;
+            return pull.isMerge() ? null : pull.getHeadHash();
+        }
+        if (rev instanceof AbstractGitSCMSource.SCMRevisionImpl) {
+            return ((AbstractGitSCMSource.SCMRevisionImpl) rev).getHash();
+        }
+        return null;
+    }
+
+    @Extension
+    public static class BuilderImpl extends SCMFileSystem.Builder {
+
+        @Override
+        public boolean supports(SCM source) {
+            // Only reached for jobs which aren't built from a DAGsHubSCMSource, which we can't serve
+            return false;
+        }
+
+        @Override
+        public boolean supports(SCMSource source) {
+            return source instanceof DAGsHubSCMSource;
+        }
+
+        @Override
+        protected boolean supportsDescriptor(SCMDescriptor descriptor) {
+            return false;
+        }
+
+        @Override
+        protected boolean supportsDescriptor(SCMSourceDescriptor descriptor) {
+            return descriptor instanceof DAGsHubSCMSource.DescriptorImpl;
+        }
+
+        @Override
+        public SCMFileSystem build(@NonNull Item owner, @NonNull SCM scm, @CheckForNull SCMRevision rev) {
+            return null;
+        }
+
+        @Override
+        public SCMFileSystem build(@NonNull SCMSource source, @NonNull SCMHead head,
+            @CheckForNull SCMRevision rev) throws IOException, InterruptedException {
+            final DAGsHubSCMSource dagshubSource = (DAGsHubSCMSource) source;
+            if (rev == null) {
+                rev = dagshubSource.fetch(head, TaskListener.NULL);
+            }
+            final String commit = commitOf(rev);
+            if (commit == null) {
+                // Let the caller fall back to a full checkout
+                return null;
+            }
+            try {
+                return new DAGsHubSCMFileSystem(dagshubSource.createApi(), commit, rev);
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package io.jenkins.plugins.dagshubbranchsource;
+
+import com.cloudbees.plugins.credentials.CredentialsMatchers;
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.cloudbees.plugins.credentials.common.StandardListBoxModel;
+import com.cloudbees.plugins.credentials.common.StandardUsernameCredentials;
+import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
+import com.cloudbees.plugins.credentials.domains.URIRequirementBuilder;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Queue.Task;
+import hudson.model.TaskListener;
+import hudson.security.ACL;
+import hudson.util.ListBoxModel;
+import io.jenkins.plugins.dagshubbranchsource.api.DAGsHubApi;
+import io.jenkins.plugins.dagshubbranchsource.api.Repository;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import jenkins.model.Jenkins;
+import jenkins.scm.api.SCMNavigator;
+import jenkins.scm.api.SCMNavigatorDescriptor;
+import jenkins.scm.api.SCMNavigatorOwner;
+import jenkins.scm.api.SCMSourceObserver;
+import jenkins.scm.api.SCMSourceOwner;
+import jenkins.scm.api.trait.SCMSourceTrait;
+import jenkins.scm.api.trait.SCMTrait;
+import jenkins.scm.api.trait.SCMTraitDescriptor;
+import jenkins.scm.impl.form.NamedArrayList;
+import org.acegisecurity.Authentication;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.AncestorInPath;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+/**
+ * Discovers the repositories of a DAGsHub user or organization, and proposes a
+ * {@link DAGsHubSCMSource} for each of them, e.g. to an organization folder.
+ * <p>
+ * Empty repositories and mirrors are skipped based on the listing alone. The remaining ones are
+ * proposed one at a time, as the listing goes on: the owner probes each of them for a recognizable
+ * project while the proposal is completed, and its observers are not documented as thread-safe.
+ * Repositories which were not recognized in the last scan are skipped until they are updated, see
+ * {@link RepositorySnapshot}.
+ */
+public class DAGsHubSCMNavigator extends SCMNavigator {
+
+    private static final Logger LOGGER = Logger.getLogger(DAGsHubSCMNavigator.class.getName());
+
+    public static final String DEFAULT_SERVER_URL = "https://dagshub.com";
+
+    /**
+     * Names which are not encoded when used as item names, so that we can tell whether a project exists.
+     */
+    private static final Pattern SAFE_NAME = Pattern.compile("[A-Za-z0-9_][A-Za-z0-9_.-]*");
+
+    private final String serverUrl;
+    private final String repoOwner;
+    private String credentialsId;
+    private List<SCMTrait<? extends SCMTrait<?>>> traits;
+    private boolean excludeForks;
+
+    @DataBoundConstructor
+    public DAGsHubSCMNavigator(String serverUrl, String repoOwner, String credentialsId,
+        List<SCMTrait<? extends SCMTrait<?>>> traits) {
+        this.serverUrl = Util.fixEmptyAndTrim(serverUrl) == null ? DEFAULT_SERVER_URL : serverUrl.trim();
+        this.repoOwner = repoOwner;
+        this.credentialsId = credentialsId;
+        setTraits(traits);
+    }
+
+    public String getServerUrl() {
+        return serverUrl;
+    }
+
+    public String getRepoOwner() {
+        return repoOwner;
+    }
+
+    public String getCredentialsId() {
+        return credentialsId;
+    }
+
+    @DataBoundSetter
+    public void setCredentialsId(String credentialsId) {
+        this.credentialsId = credentialsId;
+    }
+
+    @NonNull
+    @Override
+    public List<SCMTrait<? extends SCMTrait<?>>> getTraits() {
+        return traits;
+    }
+
+    @Override
+    @DataBoundSetter
+    public void setTraits(List<SCMTrait<? extends SCMTrait<?>>> traits) {
+        this.traits = traits == null ? Collections.emptyList() :
+            Collections.unmodifiableList(new ArrayList<>(traits));
+    }
+
+    public boolean isExcludeForks() {
+        return excludeForks;
+    }
+
+    @DataBoundSetter
+    public void setExcludeForks(boolean excludeForks) {
+        this.excludeForks = excludeForks;
+    }
+
+    @NonNull
+    @Override
+    protected String id() {
+        return serverUrl + "::" + repoOwner;
+    }
+
+    /**
+     * The project factories of the owner may have changed, so don't trust the outcomes of earlier scans.
+     */
+    @Override
+    public void afterSave(@NonNull SCMNavigatorOwner owner) {
+        final File snapshotFile = getSnapshotFile(owner);
+        if (snapshotFile.exists() && !snapshotFile.delete()) {
+            LOGGER.log(Level.WARNING, "Failed to delete the repository snapshot {0}", snapshotFile);
+        }
+    }
+
+    @Override
+    public void visitSources(@NonNull SCMSourceObserver observer) throws IOException, InterruptedException {
+        final TaskListener listener = observer.getListener();
+        final File snapshotFile = getSnapshotFile(observer.getContext());
+        final RepositorySnapshot previous = RepositorySnapshot.load(snapshotFile);
+        final RepositorySnapshot seen = new RepositorySnapshot();
+        boolean complete = false;
+        try (final DAGsHubApi api = createApi(observer.getContext(), listener)) {
+            listener.getLogger().format("Listing the repositories of %s on %s%n", repoOwner, serverUrl);
+            for (Repository repository : api.iterateRepositories()) {
+                if (!observer.isObserving()) {
+                    break;
+                }
+                if (isSkipped(repository, listener)) {
+                    continue;
+                }
+                if (previous.isUnchangedWithoutProject(repository)) {
+                    listener.getLogger().format("Skipping %s, it had no project and has not been updated "
+                        + "since%n", repository.getName());
+                    seen.record(repository, false);
+                    continue;
+                }
+                propose(observer, repository, seen);
+            }
+            complete = observer.isObserving();
+        } catch (UncheckedIOException e) {
+            if (e.getCause() instanceof InterruptedIOException) {
+                throw interrupted((InterruptedIOException) e.getCause());
+            }
+            throw e.getCause();
+        } catch (InterruptedIOException e) {
+            throw interrupted(e);
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        } finally {
+            saveSnapshot(snapshotFile, previous, seen, complete);
+        }
+    }
+
+    /**
+     * Looks the repository up directly, e.g. when an event names it, rather than listing all of them.
+     */
+    @Override
+    public void visitSource(@NonNull String sourceName, @NonNull SCMSourceObserver observer)
+        throws IOException, InterruptedException {
+        final TaskListener listener = observer.getListener();
+        try (final DAGsHubApi api = createApi(observer.getContext(), listener)) {
+            final Repository repository = api.getRepository(sourceName);
+            if (repository == null) {
+                listener.getLogger().format("Repository %s of %s does not exist%n", sourceName, repoOwner);
+                return;
+            }
+            if (!isSkipped(repository, listener)) {
+                propose(observer, repository, null);
+            }
+        } catch (InterruptedIOException e) {
+            throw interrupted(e);
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private boolean isSkipped(@NonNull Repository repository, @NonNull TaskListener listener) {
+        final String reason;
+        if (repository.isEmpty()) {
+            reason = "it is empty";
+        } else if (repository.isMirror()) {
+            reason = "it is a mirror";
+        } else if (excludeForks && repository.isFork()) {
+            reason = "it is a fork";
+        } else {
+            return false;
+        }
+        listener.getLogger().format("Skipping %s, %s%n", repository.getName(), reason);
+        return true;
+    }
+
+    /**
+     * Proposes a source for the repository to the observer, which decides whether it has a project.
+     *
+     * @param seen where to record the outcome, if anywhere.
+     */
+    private void propose(@NonNull SCMSourceObserver observer, @NonNull Repository repository,
+        @CheckForNull RepositorySnapshot seen) throws IOException, InterruptedException {
+        if (!observer.isObserving()) {
+            return;
+        }
+        final String name = repository.getName();
+        observer.getListener().getLogger().format("Proposing %s%n", name);
+
+        final DAGsHubSCMSource source =
+            new DAGsHubSCMSource(repository.getHtmlUrl(), credentialsId, getSourceTraits());
+        source.setId(getId() + "::" + name);
+        // Completing the project observer is where the owner probes for a project
+        final SCMSourceObserver.ProjectObserver project = observer.observe(name);
+        project.addSource(source);
+        project.complete();
+
+        if (seen != null) {
+            seen.record(repository, hasProject(observer.getContext(), name));
+        }
+    }
+
+    /**
+     * Whether the owner has a project for the repository. If we can't tell, we assume it does, so that
+     * the repository is never skipped.
+     */
+    private static boolean hasProject(@NonNull SCMSourceOwner context, @NonNull String name) {
+        if (!(context instanceof ItemGroup) || !SAFE_NAME.matcher(name).matches()) {
+            return true;
+        }
+        return ((ItemGroup<?>) context).getItem(name) != null;
+    }
+
+    /**
+     * The traits passed on to the source of every repository.
+     */
+    private List<SCMSourceTrait> getSourceTraits() {
+        final List<SCMSourceTrait> sourceTraits = new ArrayList<>();
+        for (SCMTrait<?> trait : traits) {
+            if (trait instanceof SCMSourceTrait) {
+                sourceTraits.add((SCMSourceTrait) trait);
+            }
+        }
+        return sourceTraits;
+    }
+
+    private void saveSnapshot(@NonNull File file, @NonNull RepositorySnapshot previous,
+        @NonNull RepositorySnapshot seen, boolean complete) {
+        final RepositorySnapshot snapshot;
+        if (complete) {
+            snapshot = seen;
+        } else {
+            previous.putAll(seen);
+            snapshot = previous;
+        }
+        try {
+            snapshot.save(file);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save the repository snapshot of " + repoOwner, e);
+        }
+    }
+
+    private File getSnapshotFile(@NonNull Item owner) {
+        return new File(owner.getRootDir(), "dagshub-repositories-" + Util.getDigestOf(getId()) + ".json");
+    }
+
+    private DAGsHubApi createApi(@NonNull Item context, @NonNull TaskListener listener)
+        throws URISyntaxException {
+        return DAGsHubApi.createForOwner(serverUrl, repoOwner, getCredentials(context)).withListener(listener);
+    }
+
+    @CheckForNull
+    private StandardUsernameCredentials getCredentials(@NonNull Item context) {
+        if (Util.fixEmpty(credentialsId) == null) {
+            return null;
+        }
+        final Authentication authentication =
+            context instanceof Task ? ((Task) context).getDefaultAuthentication() : ACL.SYSTEM;
+        return CredentialsMatchers.firstOrNull(
+            CredentialsProvider.lookupCredentials(StandardUsernameCredentials.class, context, authentication,
+                URIRequirementBuilder.fromUri(serverUrl).build()),
+            CredentialsMatchers.withId(credentialsId));
+    }
+
+    private static InterruptedException interrupted(InterruptedIOException e) {
+        // The API keeps the interrupt status for other callers, but we report it by throwing instead
+        Thread.interrupted();
+        final InterruptedException interrupted = new InterruptedException(e.getMessage());
+        interrupted.initCause(e);
+        return interrupted;
+    }
+
+    @Symbol("dagshub")
+    @Extension
+    public static class DescriptorImpl extends SCMNavigatorDescriptor {
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return Messages.DAGsHubSCMNavigator_DisplayName();
+        }
+
+        @Override
+        public String getDescription() {
+            return Messages.DAGsHubSCMNavigator_Description();
+        }
+
+        @Override
+        public String getPronoun() {
+            return Messages.DAGsHubSCMNavigator_Pronoun();
+        }
+
+        @Override
+        public SCMNavigator newInstance(@CheckForNull String name) {
+            return new DAGsHubSCMNavigator(DEFAULT_SERVER_URL, name, null, getTraitsDefaults());
+        }
+
+        @SuppressWarnings("unused") // Used by jelly UI
+        public ListBoxModel doFillCredentialsIdItems(@AncestorInPath SCMNavigatorOwner context,
+            @QueryParameter String serverUrl, @QueryParameter String credentialsId) {
+            StandardListBoxModel result = new StandardListBoxModel();
+            if (context == null) {
+                if (!Jenkins.get().hasPermission(Jenkins.ADMINISTER)) {
+                    return result.includeCurrentValue(credentialsId);
+                }
+            } else {
+                if (!context.hasPermission(Item.EXTENDED_READ)
+                    && !context.hasPermission(CredentialsProvider.USE_ITEM)) {
+                    return result.includeCurrentValue(credentialsId);
+                }
+            }
+
+            Authentication authentication =
+                context instanceof Task ? ((Task) context).getDefaultAuthentication() : ACL.SYSTEM;
+
+            return result
+                .includeEmptyValue()
+                .includeAs(authentication, context, StandardUsernamePasswordCredentials.class,
+                    URIRequirementBuilder.fromUri(serverUrl).build())
+                .includeAs(authentication, context, StandardUsernameCredentials.class,
+                    URIRequirementBuilder.fromUri(serverUrl).build())
+                .includeCurrentValue(credentialsId);
+        }
+
+        /**
+         * The navigator has no traits of its own, it passes the source traits on to every repository.
+         */
+        @SuppressWarnings("unused") // Used by jelly UI
+        public List<NamedArrayList<? extends SCMTraitDescriptor<?>>> getTraitsDescriptorLists() {
+            return getSourceDescriptor().getTraitsDescriptorLists();
+        }
+
+        @NonNull
+        @Override
+        public List<SCMTrait<? extends SCMTrait<?>>> getTraitsDefaults() {
+            return new ArrayList<>(getSourceDescriptor().getTraitsDefaults());
+        }
+
+        private static DAGsHubSCMSource.DescriptorImpl getSourceDescriptor() {
+            return Jenkins.get().getDescriptorByType(DAGsHubSCMSource.DescriptorImpl.class);
+        }
+    }
+}
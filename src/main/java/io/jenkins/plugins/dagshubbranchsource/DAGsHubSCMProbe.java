@@ -0,0 +1,116 @@
+package io.jenkins.plugins.dagshubbranchsource;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.jenkins.plugins.dagshubbranchsource.api.DAGsHubApi;
+import io.jenkins.plugins.dagshubbranchsource.api.Tree;
+import io.jenkins.plugins.dagshubbranchsource.git.PullRequestSCMRevision;
+import java.io.IOException;
+import jenkins.plugins.git.AbstractGitSCMSource;
+import jenkins.scm.api.SCMFile;
+import jenkins.scm.api.SCMProbe;
+import jenkins.scm.api.SCMProbeStat;
+import jenkins.scm.api.SCMRevision;
+
+/**
+ * Checks {@link jenkins.scm.api.SCMSourceCriteria} against the git trees of a commit, without a
+ * checkout.
+ * <p>
+ * Only the trees on the way to the requested paths are fetched, usually just the root tree of the
+ * commit. Trees are cached by SHA, so probing a commit that was already probed, e.g. an unchanged
+ * head in the next scan, makes no requests at all.
+ */
+class DAGsHubSCMProbe extends SCMProbe {
+
+    private final DAGsHubApi api;
+    private final String name;
+    private final String commit;
+
+    /**
+     * @param api the API to read trees with. Not closed by this probe.
+     * @param name the name of the probed head.
+     * @param commit the probed commit, or {@code null} if nothing can be probed.
+     */
+    DAGsHubSCMProbe(@NonNull DAGsHubApi api, @NonNull String name, @CheckForNull String commit) {
+        this.api = api;
+        this.name = name;
+        this.commit = commit;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public long lastModified() {
+        return 0L;
+    }
+
+    @NonNull
+    @Override
+    public SCMProbeStat stat(@NonNull String path) throws IOException {
+        if (commit == null) {
+            return SCMProbeStat.fromType(SCMFile.Type.NONEXISTENT);
+        }
+        String treeSha = commit;
+        Tree.Entry entry = null;
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (entry != null && entry.getType() != Tree.Entry.Type.tree) {
+                return SCMProbeStat.fromType(SCMFile.Type.NONEXISTENT);
+            }
+            final Tree tree = api.getTree(treeSha);
+            entry = tree == null ? null : find(tree, segment);
+            if (entry == null) {
+                return SCMProbeStat.fromType(SCMFile.Type.NONEXISTENT);
+            }
+            treeSha = entry.getSha();
+        }
+        if (entry == null) {
+            // The root
+            return SCMProbeStat.fromType(SCMFile.Type.DIRECTORY);
+        }
+        switch (entry.getType()) {
+            case blob:
+                return SCMProbeStat.fromType(
+                    entry.isSymlink() ? SCMFile.Type.LINK : SCMFile.Type.REGULAR_FILE);
+            case tree:
+                return SCMProbeStat.fromType(SCMFile.Type.DIRECTORY);
+            default:
+                return SCMProbeStat.fromType(SCMFile.Type.OTHER);
+        }
+    }
+
+    @Override
+    public void close() {
+        // The API belongs to the caller
+    }
+
+    @CheckForNull
+    private static Tree.Entry find(Tree tree, String name) {
+        for (Tree.Entry entry : tree.getTree()) {
+            if (name.equals(entry.getPath())) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The commit to probe for a revision. For pull requests, that's the head commit even when they are
+     * built merged, since the merge commit doesn't exist on the server.
+     */
+    @CheckForNull
+    static String commitOf(@CheckForNull SCMRevision rev) {
+        if (rev instanceof PullRequestSCMRevision) {
+            return ((PullRequestSCMRevision) rev).getHeadHash();
+        }
+        if (rev instanceof AbstractGitSCMSource.SCMRevisionImpl) {
+            return ((AbstractGitSCMSource.SCMRevisionImpl) rev).getHash();
+        }
+        return null;
+    }
+}
@@ -5,23 +5,44 @@ import com.cloudbees.plugins.credentials.common.StandardListBoxModel;
 import com.cloudbees.plugins.credentials.common.StandardUsernameCredentials;
 import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
 import com.cloudbees.plugins.credentials.domains.URIRequirementBuilder;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.AbortException;
 import hudson.Extension;
+import hudson.Util;
+import hudson.XmlFile;
 import hudson.model.Item;
+import hudson.model.Items;
 import hudson.model.Queue.Task;
 import hudson.model.TaskListener;
 import hudson.security.ACL;
+import hudson.util.DaemonThreadFactory;
 import hudson.util.ListBoxModel;
+import hudson.util.NamingThreadFactory;
+import hudson.util.Secret;
 import io.jenkins.plugins.dagshubbranchsource.api.Branch;
 import io.jenkins.plugins.dagshubbranchsource.api.DAGsHubApi;
+import io.jenkins.plugins.dagshubbranchsource.api.DAGsHubApiException;
+import io.jenkins.plugins.dagshubbranchsource.api.DAGsHubClientRegistry;
+import io.jenkins.plugins.dagshubbranchsource.api.DAGsHubMetrics;
+import io.jenkins.plugins.dagshubbranchsource.api.Prefetcher;
 import io.jenkins.plugins.dagshubbranchsource.api.PullRequest;
+import io.jenkins.plugins.dagshubbranchsource.api.PullRequestQuery;
+import io.jenkins.plugins.dagshubbranchsource.api.PullRequestSummary;
 import io.jenkins.plugins.dagshubbranchsource.api.Tag;
 import io.jenkins.plugins.dagshubbranchsource.git.PullRequestSCMHead;
 import io.jenkins.plugins.dagshubbranchsource.git.PullRequestSCMRevision;
+import io.jenkins.plugins.dagshubbranchsource.git.ShallowMergeSCMExtension;
+import io.jenkins.plugins.dagshubbranchsource.hooks.DAGsHubWebhookAction;
+import io.jenkins.plugins.dagshubbranchsource.hooks.DAGsHubWebhookConfiguration;
 import io.jenkins.plugins.dagshubbranchsource.traits.BranchDiscoveryTrait;
+import io.jenkins.plugins.dagshubbranchsource.traits.MergeBaseShallowFetchTrait;
 import io.jenkins.plugins.dagshubbranchsource.traits.OriginPullRequestDiscoveryTrait;
+import io.jenkins.plugins.dagshubbranchsource.traits.ScanTimeBudgetTrait;
 import io.jenkins.plugins.dagshubbranchsource.traits.TagDiscoveryTrait;
+import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -29,8 +50,15 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import jenkins.model.Jenkins;
 import jenkins.plugins.git.AbstractGitSCMSource;
 import jenkins.plugins.git.GitBranchSCMHead;
@@ -48,7 +76,10 @@ import jenkins.scm.api.SCMRevision;
 import jenkins.scm.api.SCMSourceCriteria;
 import jenkins.scm.api.SCMSourceDescriptor;
 import jenkins.scm.api.SCMSourceOwner;
+import jenkins.scm.api.mixin.ChangeRequestCheckoutStrategy;
+import jenkins.scm.api.trait.SCMSourceRequest;
 import jenkins.scm.api.trait.SCMSourceTrait;
+import jenkins.scm.api.trait.SCMTrait;
 import jenkins.scm.impl.ChangeRequestSCMHeadCategory;
 import jenkins.scm.impl.TagSCMHeadCategory;
 import jenkins.scm.impl.UncategorizedSCMHeadCategory;
@@ -61,6 +92,28 @@ import org.kohsuke.stapler.QueryParameter;
 
 public class DAGsHubSCMSource extends AbstractGitSCMSource {
 
+    private static final Logger LOGGER = Logger.getLogger(DAGsHubSCMSource.class.getName());
+
+    /**
+     * Maximum number of threads listing branches, tags and pull requests, across all sources.
+     */
+    private static final int LISTING_THREADS =
+        Integer.getInteger(DAGsHubSCMSource.class.getName() + ".listingThreads", 12);
+
+    /**
+     * Maximum number of heads of each kind fetched ahead of the observer during a scan.
+     */
+    private static final int PREFETCH_BUFFER_SIZE =
+        Integer.getInteger(DAGsHubSCMSource.class.getName() + ".prefetchBufferSize", 100);
+
+    private static final ExecutorService LISTING_EXECUTOR = createListingExecutor();
+
+    /**
+     * Names of pull request heads, with an optional checkout strategy, see {@link PullRequest#toRev}.
+     */
+    private static final Pattern PULL_NAME = Pattern.compile("PR-(\\d+)(?:-(HEAD|MERGE))?");
+    private static final Pattern COMMIT_HASH = Pattern.compile("[0-9a-fA-F]{7,40}");
+
     private String repositoryUrl;
     private String credentialsId;
     private List<SCMSourceTrait> traits;
@@ -133,9 +186,48 @@ public class DAGsHubSCMSource extends AbstractGitSCMSource {
         return revision;
     }
 
+    /**
+     * Registers a webhook on the repository, so that changes get picked up without waiting for the
+     * next scan. This is only attempted with credentials once a webhook secret is configured, and
+     * requires admin access to the repository.
+     */
     @Override
     public void afterSave() {
-        // TODO: Register a webhook on the DAGsHub server, if possible given credentials
+        // The criteria may have changed, so don't trust the outcomes of earlier scans
+        final File snapshotFile = getSnapshotFile();
+        if (snapshotFile != null && snapshotFile.exists() && !snapshotFile.delete()) {
+            LOGGER.log(Level.WARNING, "Failed to delete the head snapshot {0}", snapshotFile);
+        }
+
+        final DAGsHubWebhookConfiguration config = DAGsHubWebhookConfiguration.get();
+        if (config == null || !config.isManageHooks() || getCredentialsId() == null) {
+            return;
+        }
+        final String hookUrl = DAGsHubWebhookAction.getHookUrl();
+        if (hookUrl == null) {
+            LOGGER.log(Level.INFO, "Not registering a webhook on {0}, since the Jenkins URL is not "
+                + "configured", getRepositoryUrl());
+            return;
+        }
+        final Secret secret = config.getSecret();
+        if (secret == null || secret.getPlainText().isEmpty()) {
+            LOGGER.log(Level.INFO, "Not registering a webhook on {0}, since no webhook secret is configured",
+                getRepositoryUrl());
+            return;
+        }
+        try (final DAGsHubApi api = createApi()) {
+            api.ensureHook(hookUrl, secret.getPlainText(), DAGsHubWebhookAction.EVENTS);
+            LOGGER.log(Level.FINE, "Registered a webhook on {0}", getRepositoryUrl());
+        } catch (DAGsHubApiException e) {
+            if (e.getStatus() == 401 || e.getStatus() == 403 || e.getStatus() == 404) {
+                LOGGER.log(Level.INFO, "Not registering a webhook on {0}, since the credentials {1} "
+                    + "don't have admin access to it", new Object[]{getRepositoryUrl(), getCredentialsId()});
+            } else {
+                LOGGER.log(Level.WARNING, "Failed to register a webhook on " + getRepositoryUrl(), e);
+            }
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to register a webhook on " + getRepositoryUrl(), e);
+        }
     }
 
     @Override
@@ -156,9 +248,15 @@ public class DAGsHubSCMSource extends AbstractGitSCMSource {
                 // To be extra correct, we should be providing a new implementation of SCMBuilder which
                 // adds this extension as the last possible extension before building the SCM, since this
                 // extension can be overridden by various git clone extensions.
-                builder.withExtension(new MergeWithGitSCMExtension(
-                    r.getTarget().getHead().getName(), r.getBaseHash()
-                ));
+                if (SCMTrait.find(getTraits(), MergeBaseShallowFetchTrait.class) != null) {
+                    // Finds out how deep to fetch at checkout, where it can tell the build log about it
+                    builder.withExtension(new ShallowMergeSCMExtension(r.getTarget().getHead().getName(),
+                        r.getBaseHash(), r.getHeadHash(), getRepositoryUrl(), getCredentialsId()));
+                } else {
+                    builder.withExtension(new MergeWithGitSCMExtension(
+                        r.getTarget().getHead().getName(), r.getBaseHash()
+                    ));
+                }
             }
 
         } else if (head instanceof GitBranchSCMHead) {
@@ -187,26 +285,43 @@ public class DAGsHubSCMSource extends AbstractGitSCMSource {
     @Override
     protected SCMRevision retrieve(@NonNull SCMHead head, @NonNull TaskListener listener)
         throws IOException, InterruptedException {
-        try (final DAGsHubApi api = createApi()){
+        try (final DAGsHubApi api = createApi(listener)) {
             if (head instanceof GitBranchSCMHead) {
                 listener.getLogger().format("Querying the current revision of branch %s...%n", head.getName());
-                GitBranchSCMRevision rev = api.getBranch(head.getName()).toRev();
+                final Branch branch = api.getBranch(head.getName());
+                if (branch == null) {
+                    listener.getLogger().format("Branch %s no longer exists%n", head.getName());
+                    return null;
+                }
+                GitBranchSCMRevision rev = branch.toRev();
                 listener.getLogger().format("Current revision of branch %s is %s%n", head.getName(), rev);
                 return rev;
             }
             if (head instanceof GitTagSCMHead) {
                 listener.getLogger().format("Querying the current revision of tag %s...%n", head.getName());
-                GitTagSCMRevision rev = api.getTag(head.getName()).toRev();
+                final Tag tag = api.getTag(head.getName());
+                if (tag == null) {
+                    listener.getLogger().format("Tag %s no longer exists%n", head.getName());
+                    return null;
+                }
+                GitTagSCMRevision rev = tag.toRev();
                 listener.getLogger().format("Current revision of tag %s is %s%n", head.getName(), rev);
                 return rev;
             }
             if (head instanceof PullRequestSCMHead) {
                 listener.getLogger().format("Querying the current revision of pull request %s...%n", head.getName());
-                final PullRequestSCMRevision rev = api.getPull(((PullRequestSCMHead) head).getNumber())
-                    .toRev(((PullRequestSCMHead) head).getCheckoutStrategy());
+                final PullRequest pull = api.getPull(((PullRequestSCMHead) head).getNumber());
+                if (pull == null) {
+                    listener.getLogger().format("Pull request %s no longer exists%n", head.getName());
+                    return null;
+                }
+                final PullRequestSCMRevision rev =
+                    pull.toRev(((PullRequestSCMHead) head).getCheckoutStrategy());
                 listener.getLogger().format("Current revision of pull request %s is %s%n", head.getName(), rev);
                 return rev;
             }
+        } catch (InterruptedIOException e) {
+            throw interrupted(e);
         } catch (URISyntaxException e) {
             throw new IOException(e);
         }
@@ -217,113 +332,503 @@ public class DAGsHubSCMSource extends AbstractGitSCMSource {
     protected void retrieve(SCMSourceCriteria criteria, @NonNull SCMHeadObserver observer,
         SCMHeadEvent<?> event, @NonNull TaskListener listener)
         throws IOException, InterruptedException {
+        final DAGsHubMetrics metrics = DAGsHubClientRegistry.get().getMetrics();
+        final long started = System.nanoTime();
         try (final DAGsHubSCMSourceRequest request = createRequest(observer, listener);
-            final DAGsHubApi api = createApi()) {
-
-            if (request.isFetchBranches()) {
-                listener.getLogger().println("Listing branches");
-                final List<GitBranchSCMRevision> branches =
-                    api.getBranches().stream().map(Branch::toRev).collect(Collectors.toList());
-                listener.getLogger().format("Found %d branches total%n", branches.size());
-                for (GitBranchSCMRevision rev : branches) {
-                    // TODO: Use request.process after we implement an SCMProbe or SCMFileSystem
-                    final SCMHead head = rev.getHead();
-                    if (request.isExcluded(head)) {
-                        listener.getLogger().format("Branch %s is excluded, skipping%n", head.getName());
-                        continue;
+            final DAGsHubApi api = createApi(listener)) {
+
+            final File snapshotFile = getSnapshotFile();
+            final String criteriaKey = criteriaKey(criteria);
+            final HeadSnapshot previous = HeadSnapshot.load(snapshotFile, criteriaKey);
+            final HeadSnapshot seen = new HeadSnapshot(criteriaKey);
+            final ScanBudget budget = new ScanBudget(request.getScanTimeBudgetMillis());
+
+            final Set<SCMHead> requestedHeads = requestedHeads(observer, event);
+            if (requestedHeads != null) {
+                // We know exactly which heads we're interested in, so look them up one by one rather
+                // than listing everything
+                listener.getLogger().format("Querying %d requested heads%n", requestedHeads.size());
+                final long phaseStarted = System.nanoTime();
+                for (SCMHead requested : requestedHeads) {
+                    if (!observer.isObserving() || budget.isExhausted()) {
+                        break;
                     }
-                    if (!observer.isObserving()) {
-                        return;
+                    final SCMRevision rev = retrieveRequested(requested, request, api, listener);
+                    if (rev == null) {
+                        continue;
                     }
-                    listener.getLogger().format("Processing branch %s%n", head.getName());
-                    observer.observe(head, rev);
-                }
-            }
-
-            if (request.isFetchTags()) {
-                listener.getLogger().println("Listing tags");
-                final List<GitTagSCMRevision> tags =
-                    api.getTags().stream().map(Tag::toRev).collect(Collectors.toList());
-                listener.getLogger().format("Found %d tags total%n", tags.size());
-                for (GitTagSCMRevision rev : tags) {
                     final SCMHead head = rev.getHead();
                     if (request.isExcluded(head)) {
-                        listener.getLogger().format("Tag %s is excluded, skipping%n", head.getName());
+                        listener.getLogger().format("%s is excluded, skipping%n", head.getName());
                         continue;
                     }
-                    if (!observer.isObserving()) {
-                        return;
-                    }
-                    listener.getLogger().format("Processing tag %s%n", head.getName());
-                    observer.observe(head, rev);
+                    listener.getLogger().format("Processing %s%n", head.getName());
+                    process(request, observer, head, rev, api, previous, seen, listener);
                 }
+                metrics.recordPhase(DAGsHubMetrics.Phase.REQUESTED_HEADS, System.nanoTime() - phaseStarted);
+                saveSnapshot(snapshotFile, previous, seen, false);
+                budget.checkNotExhausted();
+                return;
             }
 
-            if (request.isFetchAnyPullRequests()) {
-                Stream<PullRequestSCMRevision> pullsStream = Stream.empty();
-                final List<PullRequest> pulls = api.getPulls();
-                if (request.isFetchOriginPullRequests()) {
-                    listener.getLogger().println("Listing pull requests from one branch in the repo to another branch");
-                    pullsStream = pulls.stream()
-                        .filter(PullRequest::isSameOrigin)
-                        .map(pr -> pr.toRev(request.getOriginPullStrategy()));
-                }
-                if (request.isFetchForkPullRequests()) {
-                    listener.getLogger().println("Listing pull requests from forks to the target repo");
-                    pullsStream = Stream.concat(pullsStream, pulls.stream()
-                        .filter(pr -> !pr.isSameOrigin())
-                        .map(pr -> pr.toRev(request.getForkPullStrategy())));
+            // Heads are listed lazily, page by page, so we stop querying the server soon after the
+            // observer has seen everything it wants. The enabled categories are listed concurrently,
+            // but always observed in the same order: branches, tags, then pull requests. Pages are
+            // streamed straight into revisions, so memory use doesn't grow with the number of heads.
+            try (final Prefetcher<GitBranchSCMRevision> branches = request.isFetchBranches()
+                    ? prefetch(api.iterateBranchRevisions()) : null;
+                final Prefetcher<GitTagSCMRevision> tags = request.isFetchTags()
+                    ? prefetch(api.iterateTagRevisions()) : null;
+                final Prefetcher<PullRequestSCMRevision> pulls = request.isFetchAnyPullRequests()
+                    ? prefetch(api.iteratePullRevisions(PullRequestQuery.open(),
+                        request.isFetchOriginPullRequests() ? request.getOriginPullStrategy() : null,
+                        request.isFetchForkPullRequests() ? request.getForkPullStrategy() : null))
+                    : null) {
+
+                if (branches != null) {
+                    listener.getLogger().println("Listing branches");
+                    final long phaseStarted = System.nanoTime();
+                    int count = 0;
+                    while (observer.isObserving() && !budget.isExhausted() && branches.hasNext()) {
+                        count++;
+                        final GitBranchSCMRevision rev = branches.next();
+                        final SCMHead head = rev.getHead();
+                        if (request.isExcluded(head)) {
+                            listener.getLogger().format("Branch %s is excluded, skipping%n", head.getName());
+                            continue;
+                        }
+                        listener.getLogger().format("Processing branch %s%n", head.getName());
+                        process(request, observer, head, rev, api, previous, seen, listener);
+                    }
+                    final long elapsed = System.nanoTime() - phaseStarted;
+                    metrics.recordPhase(DAGsHubMetrics.Phase.BRANCHES, elapsed);
+                    listener.getLogger().format("Found %d branches in %d ms%n", count,
+                        TimeUnit.NANOSECONDS.toMillis(elapsed));
                 }
-                final List<PullRequestSCMRevision> pullRevs = pullsStream.collect(Collectors.toList());
-                listener.getLogger().format("Found %d pull requests%n", pullRevs.size());
-                for (PullRequestSCMRevision rev : pullRevs) {
-                    final PullRequestSCMHead head = rev.getPullHead();
-                    if (request.isExcluded(head)) {
-                        listener.getLogger().format("Pull request %s is excluded, skipping", head.getId());
-                        continue;
+
+                if (tags != null && observer.isObserving() && !budget.isExhausted()) {
+                    listener.getLogger().println("Listing tags");
+                    final long phaseStarted = System.nanoTime();
+                    int count = 0;
+                    while (observer.isObserving() && !budget.isExhausted() && tags.hasNext()) {
+                        count++;
+                        final GitTagSCMRevision rev = tags.next();
+                        final SCMHead head = rev.getHead();
+                        if (request.isExcluded(head)) {
+                            listener.getLogger().format("Tag %s is excluded, skipping%n", head.getName());
+                            continue;
+                        }
+                        listener.getLogger().format("Processing tag %s%n", head.getName());
+                        process(request, observer, head, rev, api, previous, seen, listener);
                     }
-                    if (!observer.isObserving()) {
-                        return;
+                    final long elapsed = System.nanoTime() - phaseStarted;
+                    metrics.recordPhase(DAGsHubMetrics.Phase.TAGS, elapsed);
+                    listener.getLogger().format("Found %d tags in %d ms%n", count,
+                        TimeUnit.NANOSECONDS.toMillis(elapsed));
+                }
+
+                if (pulls != null && observer.isObserving() && !budget.isExhausted()) {
+                    listener.getLogger().println("Listing pull requests");
+                    final long phaseStarted = System.nanoTime();
+                    int count = 0;
+                    while (observer.isObserving() && !budget.isExhausted() && pulls.hasNext()) {
+                        count++;
+                        final PullRequestSCMRevision rev = pulls.next();
+                        final PullRequestSCMHead head = rev.getPullHead();
+                        if (request.isExcluded(head)) {
+                            listener.getLogger().format("Pull request %s is excluded, skipping%n",
+                                head.getId());
+                            continue;
+                        }
+                        listener.getLogger().format("Processing pull request %s%n", head.getId());
+                        process(request, observer, head, rev, api, previous, seen, listener);
                     }
-                    listener.getLogger().format("Processing pull request %s%n", head.getId());
-                    observer.observe(head, rev);
+                    final long elapsed = System.nanoTime() - phaseStarted;
+                    metrics.recordPhase(DAGsHubMetrics.Phase.PULL_REQUESTS, elapsed);
+                    listener.getLogger().format("Found %d pull requests in %d ms%n", count,
+                        TimeUnit.NANOSECONDS.toMillis(elapsed));
                 }
             }
+            // Only a scan which listed everything knows which heads are gone
+            saveSnapshot(snapshotFile, previous, seen, observer.isObserving() && !budget.wasExhausted());
+            budget.checkNotExhausted();
+        } catch (InterruptedIOException e) {
+            throw interrupted(e);
         } catch (URISyntaxException e) {
             throw new IOException(e);
+        } finally {
+            metrics.recordPhase(DAGsHubMetrics.Phase.RETRIEVE, System.nanoTime() - started);
         }
     }
 
-    private DAGsHubApi createApi() throws URISyntaxException {
+    /**
+     * The time budget of a retrieval, see {@link ScanTimeBudgetTrait}. Once exhausted, it stays so.
+     */
+    private static final class ScanBudget {
+        private final long millis;
+        private final long deadline;
+        private boolean exhausted;
+
+        private ScanBudget(long millis) {
+            this.millis = millis;
+            this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        private boolean isExhausted() {
+            if (!exhausted && millis > 0 && System.nanoTime() - deadline >= 0) {
+                exhausted = true;
+            }
+            return exhausted;
+        }
+
+        private boolean wasExhausted() {
+            return exhausted;
+        }
+
+        /**
+         * Fails the retrieval if it stopped early for lack of time. Completing normally would tell the
+         * owner that the heads we didn't get to are gone.
+         */
+        private void checkNotExhausted() throws AbortException {
+            if (exhausted) {
+                throw new AbortException(String.format("Stopped after the scan time budget of %d minutes ran "
+                    + "out. Heads which were not processed are left as they were.",
+                    TimeUnit.MILLISECONDS.toMinutes(millis)));
+            }
+        }
+    }
+
+    /**
+     * Rethrows an interrupted API call the way retrievals report interruption.
+     */
+    private static InterruptedException interrupted(InterruptedIOException e) {
+        // The API keeps the interrupt status for other callers, but we report it by throwing instead
+        Thread.interrupted();
+        final InterruptedException interrupted = new InterruptedException(e.getMessage());
+        interrupted.initCause(e);
+        return interrupted;
+    }
+
+    /**
+     * The heads a retrieval is limited to, either because the observer only wants specific heads, or
+     * because it was triggered by an event about specific heads.
+     *
+     * @return the heads, or {@code null} if all heads should be listed.
+     */
+    @CheckForNull
+    private Set<SCMHead> requestedHeads(@NonNull SCMHeadObserver observer,
+        @CheckForNull SCMHeadEvent<?> event) {
+        Set<SCMHead> heads = observer.getIncludes();
+        if (event != null) {
+            final Set<SCMHead> eventHeads = event.heads(this).keySet();
+            if (heads == null) {
+                heads = eventHeads;
+            } else {
+                heads = new HashSet<>(heads);
+                heads.retainAll(eventHeads);
+            }
+        }
+        return heads;
+    }
+
+    /**
+     * Looks up the current revision of a single head, if this source discovers heads of its kind.
+     *
+     * @return the revision, or {@code null} if the head does not exist, or is not discovered.
+     */
+    @CheckForNull
+    private SCMRevision retrieveRequested(@NonNull SCMHead head, @NonNull DAGsHubSCMSourceRequest request,
+        @NonNull DAGsHubApi api, @NonNull TaskListener listener) throws IOException {
+        if (head instanceof PullRequestSCMHead) {
+            final PullRequestSCMHead pullHead = (PullRequestSCMHead) head;
+            return retrievePull(pullHead.getNumber(), pullHead.getCheckoutStrategy(), request, api, listener);
+        }
+        if (head instanceof GitTagSCMHead) {
+            if (!request.isFetchTags()) {
+                return null;
+            }
+            listener.getLogger().format("Querying tag %s%n", head.getName());
+            final Tag tag = api.getTag(head.getName());
+            return tag == null ? null : tag.toRev();
+        }
+        if (head instanceof GitBranchSCMHead) {
+            if (!request.isFetchBranches()) {
+                return null;
+            }
+            listener.getLogger().format("Querying branch %s%n", head.getName());
+            final Branch branch = api.getBranch(head.getName());
+            return branch == null ? null : branch.toRev();
+        }
+        return null;
+    }
+
+    /**
+     * Looks up the current revision of a single pull request, if this source discovers pull requests
+     * of its origin with the given strategy.
+     *
+     * @param strategy the checkout strategy, or {@code null} for the one configured for the origin.
+     * @return the revision, or {@code null} if the pull request does not exist, is closed, or is not
+     * discovered.
+     */
+    @CheckForNull
+    private PullRequestSCMRevision retrievePull(long number,
+        @CheckForNull ChangeRequestCheckoutStrategy strategy, @NonNull DAGsHubSCMSourceRequest request,
+        @NonNull DAGsHubApi api, @NonNull TaskListener listener) throws IOException {
+        if (!request.isFetchAnyPullRequests()) {
+            return null;
+        }
+        listener.getLogger().format("Querying pull request %s%n", number);
+        final PullRequest pull = api.getPull(number);
+        if (pull == null || pull.getState() == PullRequest.State.closed) {
+            return null;
+        }
+        final ChangeRequestCheckoutStrategy wantedStrategy = pull.isSameOrigin()
+            ? request.getOriginPullStrategy() : request.getForkPullStrategy();
+        final boolean wanted = pull.isSameOrigin()
+            ? request.isFetchOriginPullRequests() : request.isFetchForkPullRequests();
+        if (!wanted || (strategy != null && strategy != wantedStrategy)) {
+            return null;
+        }
+        return pull.toRev(wantedStrategy);
+    }
+
+    /**
+     * Checks a head against the criteria, and observes it if it meets them. If the head is at the same
+     * revision as in a previous retrieval, the outcome recorded back then is reused instead.
+     */
+    private void process(@NonNull DAGsHubSCMSourceRequest request, @NonNull SCMHeadObserver observer,
+        @NonNull SCMHead head, @NonNull SCMRevision rev, @NonNull DAGsHubApi api,
+        @NonNull HeadSnapshot previous, @NonNull HeadSnapshot seen, @NonNull TaskListener listener)
+        throws IOException, InterruptedException {
+        final Boolean matched = previous.matched(head, rev);
+        if (matched == null) {
+            final long started = System.nanoTime();
+            try {
+                request.process(head, rev, probe(api), witness(listener),
+                    (h, r, isMatch) -> seen.record(h, r, isMatch));
+            } finally {
+                DAGsHubClientRegistry.get().getMetrics()
+                    .recordPhase(DAGsHubMetrics.Phase.CRITERIA, System.nanoTime() - started);
+            }
+            return;
+        }
+        seen.record(head, rev, matched);
+        if (matched) {
+            listener.getLogger().println("Unchanged, met criteria");
+            observer.observe(head, rev);
+        } else {
+            listener.getLogger().println("Unchanged, does not meet criteria");
+        }
+    }
+
+    /**
+     * Where the {@link HeadSnapshot} of this source is kept.
+     *
+     * @return the file, or {@code null} if this source has no owner yet.
+     */
+    @CheckForNull
+    private File getSnapshotFile() {
+        final SCMSourceOwner owner = getOwner();
+        return owner == null ? null
+            : new File(owner.getRootDir(), "dagshub-heads-" + Util.getDigestOf(getId()) + ".json");
+    }
+
+    /**
+     * Identifies the criteria of a retrieval, so that a {@link HeadSnapshot} is only reused for the
+     * criteria it was saved with. Criteria don't tell what they check, so this is a digest of their type
+     * and the configuration of the owner they come from, e.g. with the script path of a multibranch
+     * project.
+     */
+    @NonNull
+    private String criteriaKey(@CheckForNull SCMSourceCriteria criteria) {
+        if (criteria == null) {
+            return "none";
+        }
+        final StringBuilder key = new StringBuilder(criteria.getClass().getName());
+        final SCMSourceOwner owner = getOwner();
+        if (owner != null) {
+            final XmlFile config = Items.getConfigFile(owner);
+            try {
+                if (config.exists()) {
+                    key.append('\n').append(config.asString());
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Could not read the configuration of " + owner.getFullName(), e);
+                // No snapshot was saved with this key, so none is reused
+                key.append('\n').append(UUID.randomUUID());
+            }
+        }
+        return Util.getDigestOf(key.toString());
+    }
+
+    /**
+     * @param complete whether every head was listed, so that heads which were not seen are gone.
+     */
+    private void saveSnapshot(@CheckForNull File file, @NonNull HeadSnapshot previous,
+        @NonNull HeadSnapshot seen, boolean complete) {
+        final HeadSnapshot snapshot;
+        if (complete) {
+            snapshot = seen;
+        } else {
+            previous.putAll(seen);
+            snapshot = previous;
+        }
+        try {
+            snapshot.save(file);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save the head snapshot of " + getRepositoryUrl(), e);
+        }
+    }
+
+    /**
+     * Creates probes for the criteria of a request. They share the API of the retrieval, and with it
+     * the trees already fetched, see {@link DAGsHubSCMProbe}.
+     */
+    private static <H extends SCMHead, R extends SCMRevision> SCMSourceRequest.ProbeLambda<H, R> probe(
+        @NonNull DAGsHubApi api) {
+        return (head, rev) -> new DAGsHubSCMProbe(api, head.getName(), DAGsHubSCMProbe.commitOf(rev));
+    }
+
+    private static SCMSourceRequest.Witness witness(@NonNull TaskListener listener) {
+        return (head, rev, isMatch) ->
+            listener.getLogger().println(isMatch ? "Met criteria" : "Does not meet criteria");
+    }
+
+    private static <T> Prefetcher<T> prefetch(Iterable<T> items) {
+        return new Prefetcher<>(items.iterator(), PREFETCH_BUFFER_SIZE, LISTING_EXECUTOR);
+    }
+
+    DAGsHubApi createApi() throws URISyntaxException {
         return DAGsHubApi.create(getRepositoryUrl(), getCredentials());
     }
 
+    /**
+     * Creates an API which reports waiting, e.g. for the rate limit, to the given listener.
+     */
+    private DAGsHubApi createApi(@NonNull TaskListener listener) throws URISyntaxException {
+        return createApi().withListener(listener);
+    }
+
+    /**
+     * Applies the traits of this source to a new context, without any criteria or observer.
+     */
+    @NonNull
+    public DAGsHubSCMSourceContext createContext() {
+        return new DAGsHubSCMSourceContext(null, SCMHeadObserver.none()).withTraits(getTraits());
+    }
+
     private DAGsHubSCMSourceRequest createRequest(SCMHeadObserver observer, TaskListener listener) {
         return new DAGsHubSCMSourceContext(this.getCriteria(), observer)
             .withTraits(getTraits())
             .newRequest(this, listener);
     }
 
+    /**
+     * Resolves a branch, tag, pull request or commit by name, looking each kind up directly rather than
+     * listing everything. Replays, parameterized builds and library loading all end up here.
+     */
     @Override
     protected SCMRevision retrieve(@NonNull String revision, @NonNull TaskListener listener, Item retrieveContext)
         throws IOException, InterruptedException {
-        SCMHeadObserver.Named observer = SCMHeadObserver.named(revision);
-        retrieve(null, observer, null, listener);
-        return observer.result();
+        try (final DAGsHubSCMSourceRequest request = createRequest(SCMHeadObserver.none(), listener);
+            final DAGsHubApi api = createApi(listener)) {
+
+            final List<SCMHead> heads = Arrays.asList(
+                new GitBranchSCMHead(revision), new GitTagSCMHead(revision, 0L));
+            for (SCMHead head : heads) {
+                final SCMRevision rev = retrieveRequested(head, request, api, listener);
+                if (rev != null && !request.isExcluded(rev.getHead())) {
+                    listener.getLogger().format("Resolved %s to %s%n", revision, rev);
+                    return rev;
+                }
+            }
+
+            final Matcher pullName = PULL_NAME.matcher(revision);
+            if (pullName.matches()) {
+                final ChangeRequestCheckoutStrategy strategy = pullName.group(2) == null
+                    ? null : ChangeRequestCheckoutStrategy.valueOf(pullName.group(2));
+                final PullRequestSCMRevision rev =
+                    retrievePull(Long.parseLong(pullName.group(1)), strategy, request, api, listener);
+                if (rev != null && !request.isExcluded(rev.getHead())) {
+                    listener.getLogger().format("Resolved %s to %s%n", revision, rev);
+                    return rev;
+                }
+            }
+
+            if (COMMIT_HASH.matcher(revision).matches()) {
+                listener.getLogger().format("Querying commit %s%n", revision);
+                final String hash = api.getCommitHash(revision);
+                if (hash != null) {
+                    listener.getLogger().format("Resolved %s to commit %s%n", revision, hash);
+                    return new SCMRevisionImpl(new SCMHead(revision), hash);
+                }
+            }
+        } catch (InterruptedIOException e) {
+            throw interrupted(e);
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+        listener.getLogger().format("Could not resolve %s%n", revision);
+        return null;
     }
 
+    /**
+     * Lists the names of all heads, for revision dropdowns. Unlike a retrieval, this only lists names,
+     * which can be briefly cached, and doesn't build revisions or probe anything.
+     */
     @NonNull
     @Override
     protected Set<String> retrieveRevisions(@NonNull TaskListener listener, Item retrieveContext)
         throws IOException, InterruptedException {
         // don't pass through to AbstractGitSCMSource, instead use the SCMSource behaviour
-        Set<String> revisions = new HashSet<>();
-        for (SCMHead head : retrieve(listener)) {
-            revisions.add(head.getName());
+        final Set<String> revisions = new HashSet<>();
+        try (final DAGsHubSCMSourceRequest request = createRequest(SCMHeadObserver.none(), listener);
+            final DAGsHubApi api = createApi(listener)) {
+            if (request.isFetchBranches()) {
+                for (String name : api.getBranchNames()) {
+                    if (!request.isExcluded(new GitBranchSCMHead(name))) {
+                        revisions.add(name);
+                    }
+                }
+            }
+            if (request.isFetchTags()) {
+                for (String name : api.getTagNames()) {
+                    if (!request.isExcluded(new GitTagSCMHead(name, 0L))) {
+                        revisions.add(name);
+                    }
+                }
+            }
+            if (request.isFetchAnyPullRequests()) {
+                // Without the full pull request there's no head to check exclusions against
+                for (PullRequestSummary pull : api.getPullSummaries(PullRequestQuery.open())) {
+                    if (pull.getState() == PullRequest.State.closed) {
+                        continue;
+                    }
+                    final String prefix = "PR-" + pull.getNumber() + "-";
+                    if (pull.isSameOrigin() && request.isFetchOriginPullRequests()) {
+                        revisions.add(prefix + request.getOriginPullStrategy().name());
+                    }
+                    if (!pull.isSameOrigin() && request.isFetchForkPullRequests()) {
+                        revisions.add(prefix + request.getForkPullStrategy().name());
+                    }
+                }
+            }
+        } catch (InterruptedIOException e) {
+            throw interrupted(e);
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
         }
         return revisions;
     }
 
+    private static ExecutorService createListingExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(LISTING_THREADS, LISTING_THREADS,
+            60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            new NamingThreadFactory(new DaemonThreadFactory(), "DAGsHubSCMSource.listing"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     @Symbol("dagshubScmSource")
     @Extension
     public static class DescriptorImpl extends SCMSourceDescriptor {
@@ -16,6 +16,7 @@ public class DAGsHubSCMSourceContext extends SCMSourceContext<DAGsHubSCMSourceCo
     private ChangeRequestCheckoutStrategy originPullStrategy;
     private boolean wantForkPullRequests;
     private ChangeRequestCheckoutStrategy forkPullStrategy;
+    private long scanTimeBudgetMillis;
 
     public DAGsHubSCMSourceContext(SCMSourceCriteria criteria, @NonNull SCMHeadObserver observer) {
         super(criteria, observer);
@@ -76,4 +77,15 @@ public class DAGsHubSCMSourceContext extends SCMSourceContext<DAGsHubSCMSourceCo
     public void setForkPullStrategy(ChangeRequestCheckoutStrategy forkPullStrategy) {
         this.forkPullStrategy = forkPullStrategy;
     }
+
+    /**
+     * How long a full retrieval may take, or 0 for no limit.
+     */
+    public long getScanTimeBudgetMillis() {
+        return scanTimeBudgetMillis;
+    }
+
+    public void setScanTimeBudgetMillis(long scanTimeBudgetMillis) {
+        this.scanTimeBudgetMillis = scanTimeBudgetMillis;
+    }
 }
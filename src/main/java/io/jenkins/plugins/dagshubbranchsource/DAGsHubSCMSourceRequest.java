@@ -14,6 +14,7 @@ public class DAGsHubSCMSourceRequest extends SCMSourceRequest {
     private final ChangeRequestCheckoutStrategy originPullStrategy;
     private final boolean fetchForkPullRequests;
     private final ChangeRequestCheckoutStrategy forkPullStrategy;
+    private final long scanTimeBudgetMillis;
 
     protected DAGsHubSCMSourceRequest(
         @NonNull SCMSource source,
@@ -26,6 +27,7 @@ public class DAGsHubSCMSourceRequest extends SCMSourceRequest {
         this.originPullStrategy = context.getOriginPullStrategy();
         this.fetchForkPullRequests = context.isWantForkPullRequests();
         this.forkPullStrategy = context.getForkPullStrategy();
+        this.scanTimeBudgetMillis = context.getScanTimeBudgetMillis();
     }
 
     public boolean isFetchBranches() {
@@ -55,4 +57,11 @@ public class DAGsHubSCMSourceRequest extends SCMSourceRequest {
     public ChangeRequestCheckoutStrategy getForkPullStrategy() {
         return forkPullStrategy;
     }
+
+    /**
+     * How long this retrieval may take, or 0 for no limit.
+     */
+    public long getScanTimeBudgetMillis() {
+        return scanTimeBudgetMillis;
+    }
 }
@@ -0,0 +1,219 @@
+package io.jenkins.plugins.dagshubbranchsource;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.util.AtomicFileWriter;
+import io.jenkins.plugins.dagshubbranchsource.api.DAGsHubClientRegistry;
+import io.jenkins.plugins.dagshubbranchsource.git.PullRequestSCMHead;
+import io.jenkins.plugins.dagshubbranchsource.git.PullRequestSCMRevision;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.plugins.git.AbstractGitSCMSource;
+import jenkins.plugins.git.GitBranchSCMHead;
+import jenkins.plugins.git.GitTagSCMHead;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMRevision;
+
+/**
+ * The heads a source saw in its last retrievals, with the commits they were at and whether they met
+ * the criteria back then. Persisted in the directory of the owner, so that after a restart a head
+ * which has not moved is observed again without probing its commit.
+ * <p>
+ * The criteria outcome only depends on the commit and the configuration. The criteria come from the
+ * owner, e.g. the script path of a multibranch project, which can change without the source being
+ * saved. So a snapshot is only used for the same criteria key it was saved with, see
+ * {@link DAGsHubSCMSource}, and it is also deleted whenever the source is saved.
+ */
+class HeadSnapshot {
+
+    private static final Logger LOGGER = Logger.getLogger(HeadSnapshot.class.getName());
+
+    private final String criteriaKey;
+    private final Map<String, Entry> entries;
+
+    /**
+     * @param criteriaKey identifies the criteria the heads are checked against.
+     */
+    HeadSnapshot(@NonNull String criteriaKey) {
+        this(criteriaKey, new HashMap<>());
+    }
+
+    private HeadSnapshot(@NonNull String criteriaKey, @NonNull Map<String, Entry> entries) {
+        this.criteriaKey = criteriaKey;
+        this.entries = entries;
+    }
+
+    /**
+     * @param criteriaKey identifies the criteria the heads are checked against now.
+     * @return the snapshot saved in the given file, or an empty one if there is none, it can't be read or
+     * it was saved for other criteria.
+     */
+    @NonNull
+    static HeadSnapshot load(@CheckForNull File file, @NonNull String criteriaKey) {
+        if (file == null || !file.isFile()) {
+            return new HeadSnapshot(criteriaKey);
+        }
+        try {
+            final Saved saved = DAGsHubClientRegistry.get().getMapper().readValue(file, Saved.class);
+            if (!criteriaKey.equals(saved.getCriteria()) || saved.getHeads() == null) {
+                LOGGER.log(Level.FINE, "Ignoring head snapshot {0} of other criteria", file);
+                return new HeadSnapshot(criteriaKey);
+            }
+            return new HeadSnapshot(criteriaKey, saved.getHeads());
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Ignoring unreadable head snapshot " + file, e);
+            return new HeadSnapshot(criteriaKey);
+        }
+    }
+
+    synchronized void save(@CheckForNull File file) throws IOException {
+        if (file == null) {
+            return;
+        }
+        final Saved saved = new Saved();
+        saved.setCriteria(criteriaKey);
+        saved.setHeads(entries);
+        final String json = DAGsHubClientRegistry.get().getMapper().writeValueAsString(saved);
+        final AtomicFileWriter writer = new AtomicFileWriter(file.toPath(), StandardCharsets.UTF_8);
+        try {
+            writer.write(json);
+            writer.commit();
+        } finally {
+            writer.abort();
+        }
+    }
+
+    /**
+     * Whether a head met the criteria, if it was last seen at the same revision.
+     *
+     * @return the criteria outcome, or {@code null} if the head is new or has moved.
+     */
+    @CheckForNull
+    synchronized Boolean matched(@NonNull SCMHead head, @NonNull SCMRevision rev) {
+        final Entry entry = entries.get(keyOf(head));
+        final Entry current = Entry.of(rev, false);
+        if (entry == null || current == null || !entry.isSameRevision(current)) {
+            return null;
+        }
+        return entry.isMatched();
+    }
+
+    synchronized void record(@NonNull SCMHead head, @CheckForNull SCMRevision rev, boolean matched) {
+        final Entry entry = Entry.of(rev, matched);
+        if (entry == null) {
+            entries.remove(keyOf(head));
+        } else {
+            entries.put(keyOf(head), entry);
+        }
+    }
+
+    /**
+     * Branches and tags may share a name, so entries are keyed by the kind of head as well.
+     */
+    private static String keyOf(SCMHead head) {
+        final String kind;
+        if (head instanceof PullRequestSCMHead) {
+            kind = "pull";
+        } else if (head instanceof GitTagSCMHead) {
+            kind = "tag";
+        } else if (head instanceof GitBranchSCMHead) {
+            kind = "branch";
+        } else {
+            kind = "other";
+        }
+        return kind + ":" + head.getName();
+    }
+
+    /**
+     * Adds the heads recorded in another snapshot, replacing those of the same name.
+     */
+    synchronized void putAll(@NonNull HeadSnapshot other) {
+        synchronized (other) {
+            entries.putAll(other.entries);
+        }
+    }
+
+    /**
+     * The file format. Snapshots saved before they had a criteria key have no such field, and are
+     * ignored like those of other criteria.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Saved {
+        private String criteria;
+        private Map<String, Entry> heads;
+
+        public String getCriteria() {
+            return criteria;
+        }
+
+        public void setCriteria(String criteria) {
+            this.criteria = criteria;
+        }
+
+        public Map<String, Entry> getHeads() {
+            return heads;
+        }
+
+        public void setHeads(Map<String, Entry> heads) {
+            this.heads = heads;
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Entry {
+        private String hash;
+        private String baseHash;
+        private boolean matched;
+
+        @CheckForNull
+        static Entry of(@CheckForNull SCMRevision rev, boolean matched) {
+            final Entry entry = new Entry();
+            if (rev instanceof PullRequestSCMRevision) {
+                // The base matters too, since the pull request may be built merged into it
+                entry.hash = ((PullRequestSCMRevision) rev).getHeadHash();
+                entry.baseHash = ((PullRequestSCMRevision) rev).getBaseHash();
+            } else if (rev instanceof AbstractGitSCMSource.SCMRevisionImpl) {
+                entry.hash = ((AbstractGitSCMSource.SCMRevisionImpl) rev).getHash();
+            } else {
+                return null;
+            }
+            entry.matched = matched;
+            return entry;
+        }
+
+        boolean isSameRevision(Entry other) {
+            return Objects.equals(hash, other.hash) && Objects.equals(baseHash, other.baseHash);
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public void setHash(String hash) {
+            this.hash = hash;
+        }
+
+        public String getBaseHash() {
+            return baseHash;
+        }
+
+        public void setBaseHash(String baseHash) {
+            this.baseHash = baseHash;
+        }
+
+        public boolean isMatched() {
+            return matched;
+        }
+
+        public void setMatched(boolean matched) {
+            this.matched = matched;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package io.jenkins.plugins.dagshubbranchsource;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.util.AtomicFileWriter;
+import io.jenkins.plugins.dagshubbranchsource.api.DAGsHubClientRegistry;
+import io.jenkins.plugins.dagshubbranchsource.api.Repository;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The repositories a navigator saw in its last scan, with when they were last updated and whether
+ * they ended up with a project. Persisted in the directory of the owner, like {@link HeadSnapshot}.
+ * <p>
+ * A repository without a project is one the project factories did not recognize, and finding that out
+ * takes probing every one of its heads. As long as it hasn't been updated since, there's no need to
+ * do that again. The outcome depends on the configuration of the owner as well, so the snapshot is
+ * deleted whenever the navigator is saved, see {@link DAGsHubSCMNavigator#afterSave}.
+ */
+class RepositorySnapshot {
+
+    private static final Logger LOGGER = Logger.getLogger(RepositorySnapshot.class.getName());
+    private static final TypeReference<Map<String, Entry>> ENTRIES =
+        new TypeReference<Map<String, Entry>>() {};
+
+    private final Map<String, Entry> entries;
+
+    RepositorySnapshot() {
+        this(new HashMap<>());
+    }
+
+    private RepositorySnapshot(Map<String, Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * @return the snapshot saved in the given file, or an empty one if there is none or it can't be
+     * read.
+     */
+    @NonNull
+    static RepositorySnapshot load(@CheckForNull File file) {
+        if (file == null || !file.isFile()) {
+            return new RepositorySnapshot();
+        }
+        try {
+            return new RepositorySnapshot(DAGsHubClientRegistry.get().getMapper().readValue(file, ENTRIES));
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Ignoring unreadable repository snapshot " + file, e);
+            return new RepositorySnapshot();
+        }
+    }
+
+    void save(@CheckForNull File file) throws IOException {
+        if (file == null) {
+            return;
+        }
+        final String json = DAGsHubClientRegistry.get().getMapper().writeValueAsString(entries);
+        final AtomicFileWriter writer = new AtomicFileWriter(file.toPath(), StandardCharsets.UTF_8);
+        try {
+            writer.write(json);
+            writer.commit();
+        } finally {
+            writer.abort();
+        }
+    }
+
+    /**
+     * Whether a repository had no project when it was last seen, and has not been updated since.
+     */
+    synchronized boolean isUnchangedWithoutProject(@NonNull Repository repository) {
+        final Entry entry = entries.get(repository.getName());
+        final String updatedAt = updatedAtOf(repository);
+        return entry != null && !entry.isProject()
+            && updatedAt != null && updatedAt.equals(entry.getUpdatedAt());
+    }
+
+    synchronized void record(@NonNull Repository repository, boolean project) {
+        final Entry entry = new Entry();
+        entry.updatedAt = updatedAtOf(repository);
+        entry.project = project;
+        entries.put(repository.getName(), entry);
+    }
+
+    /**
+     * Adds the repositories recorded in another snapshot, replacing those of the same name.
+     */
+    synchronized void putAll(@NonNull RepositorySnapshot other) {
+        synchronized (other) {
+            entries.putAll(other.entries);
+        }
+    }
+
+    /**
+     * Compared as an instant, since the zone the server reports it in doesn't matter.
+     */
+    @CheckForNull
+    private static String updatedAtOf(Repository repository) {
+        return repository.getUpdatedAt() == null ? null : repository.getUpdatedAt().toInstant().toString();
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Entry {
+        private String updatedAt;
+        private boolean project;
+
+        public String getUpdatedAt() {
+            return updatedAt;
+        }
+
+        public void setUpdatedAt(String updatedAt) {
+            this.updatedAt = updatedAt;
+        }
+
+        public boolean isProject() {
+            return project;
+        }
+
+        public void setProject(boolean project) {
+            this.project = project;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stops requests to a server that keeps failing, so that while DAGsHub is degraded every source
+ * fails fast instead of adding to its load.
+ * <p>
+ * After {@link #FAILURE_THRESHOLD} consecutive failures (server errors or no response at all), the
+ * breaker opens and rejects requests for {@link #OPEN_SECONDS}. Then it lets a single request
+ * through: if that succeeds the breaker closes again, otherwise it stays open for another while.
+ */
+public class CircuitBreaker {
+
+    static final int FAILURE_THRESHOLD =
+        Integer.getInteger(CircuitBreaker.class.getName() + ".failureThreshold", 5);
+    static final long OPEN_SECONDS =
+        Long.getLong(CircuitBreaker.class.getName() + ".openSeconds", 30L);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String server;
+    private final long openNanos;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probing;
+    private final AtomicLong successes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong probes = new AtomicLong();
+
+    CircuitBreaker(String server) {
+        this(server, OPEN_SECONDS);
+    }
+
+    /**
+     * @param openSeconds how long to reject requests once opened.
+     */
+    CircuitBreaker(String server, long openSeconds) {
+        this.server = server;
+        this.openNanos = TimeUnit.SECONDS.toNanos(openSeconds);
+    }
+
+    /**
+     * Asks for permission to make a request. Every permitted request must be followed by
+     * {@link #recordSuccess()} or {@link #recordFailure()}.
+     *
+     * @throws CircuitBreakerOpenException if the breaker is open, or already probing the server.
+     */
+    synchronized void acquire() throws CircuitBreakerOpenException {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                rejected.incrementAndGet();
+                throw new CircuitBreakerOpenException(server);
+            }
+            state = State.HALF_OPEN;
+            probing = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probing) {
+                rejected.incrementAndGet();
+                throw new CircuitBreakerOpenException(server);
+            }
+            probing = true;
+            probes.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gives back a permission without an outcome, e.g. because the request was abandoned.
+     */
+    synchronized void cancel() {
+        probing = false;
+    }
+
+    synchronized void recordSuccess() {
+        successes.incrementAndGet();
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+        probing = false;
+    }
+
+    synchronized void recordFailure() {
+        failures.incrementAndGet();
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= FAILURE_THRESHOLD) {
+            if (state != State.OPEN) {
+                opened.incrementAndGet();
+            }
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            probing = false;
+        }
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            // The next request will probe
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public String getServer() {
+        return server;
+    }
+
+    public long getSuccessCount() {
+        return successes.get();
+    }
+
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * The number of requests failed fast without being sent.
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * The number of times the breaker has opened.
+     */
+    public long getOpenedCount() {
+        return opened.get();
+    }
+
+    /**
+     * The number of requests let through while half-open, to find out whether the server has recovered.
+     */
+    public long getProbeCount() {
+        return probes.get();
+    }
+}
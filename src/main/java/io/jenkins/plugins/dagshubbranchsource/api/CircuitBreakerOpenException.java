@@ -0,0 +1,13 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of making a request while the {@link CircuitBreaker} of the server is open.
+ */
+public class CircuitBreakerOpenException extends IOException {
+
+    public CircuitBreakerOpenException(String server) {
+        super("Not sending requests to " + server + " for a while, since it keeps failing");
+    }
+}
@@ -1,8 +1,10 @@
 package io.jenkins.plugins.dagshubbranchsource.api;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import java.time.ZonedDateTime;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 @JsonNaming(PropertyNamingStrategy.SnakeCaseStrategy.class)
@@ -12,6 +14,7 @@ public class Commit {
     private String url;
     private Committer author;
     private Committer committer;
+    private ZonedDateTime timestamp;
 
     public String getId() {
         return id;
@@ -52,4 +55,20 @@ public class Commit {
     public void setCommitter(Committer committer) {
         this.committer = committer;
     }
+
+    public ZonedDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(ZonedDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * The time of this commit in milliseconds since the epoch, or 0 if the server didn't send one.
+     */
+    @JsonIgnore
+    public long getTimeMillis() {
+        return timestamp == null ? 0L : timestamp.toInstant().toEpochMilli();
+    }
 }
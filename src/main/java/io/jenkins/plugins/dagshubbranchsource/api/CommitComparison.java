@@ -0,0 +1,25 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * Just the count of a comparison of two commits, without the commits and files it lists.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategy.SnakeCaseStrategy.class)
+public class CommitComparison {
+    private int totalCommits;
+
+    /**
+     * The number of commits reachable from the head of the comparison but not from its base.
+     */
+    public int getTotalCommits() {
+        return totalCommits;
+    }
+
+    public void setTotalCommits(int totalCommits) {
+        this.totalCommits = totalCommits;
+    }
+}
@@ -0,0 +1,95 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches repository contents by immutable keys, so repeated reads need no network calls at all:
+ * file and directory metadata by commit SHA and path, trees by commit or tree SHA, and file bytes by
+ * blob SHA.
+ * <p>
+ * Cached values are shared between callers and must be treated as read-only.
+ * Blob bytes are bounded by {@link #MAX_BYTES} in total, and blobs larger than {@link #MAX_BLOB_BYTES}
+ * are never cached.
+ */
+public class ContentCache {
+
+    static final int MAX_ENTRIES =
+        Integer.getInteger(ContentCache.class.getName() + ".maxEntries", 5000);
+    static final long MAX_BYTES =
+        Long.getLong(ContentCache.class.getName() + ".maxBytes", 32L << 20);
+    static final long MAX_BLOB_BYTES =
+        Long.getLong(ContentCache.class.getName() + ".maxBlobBytes", 1L << 20);
+
+    /**
+     * Cached in place of a path that does not exist at a commit.
+     */
+    static final Contents MISSING = new Contents();
+
+    private final Map<String, Contents> contents =
+        new LinkedHashMap<String, Contents>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Contents> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+    private final Map<String, Tree> trees =
+        new LinkedHashMap<String, Tree>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Tree> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+    private final LinkedHashMap<String, byte[]> blobs = new LinkedHashMap<>(16, 0.75f, true);
+    private long blobBytes;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    synchronized Contents getContents(String commit, String path) {
+        final Contents result = contents.get(commit + ':' + path);
+        (result == null ? misses : hits).incrementAndGet();
+        return result;
+    }
+
+    synchronized void putContents(String commit, String path, Contents value) {
+        contents.put(commit + ':' + path, value == null ? MISSING : value);
+    }
+
+    synchronized Tree getTree(String sha) {
+        final Tree result = trees.get(sha);
+        (result == null ? misses : hits).incrementAndGet();
+        return result;
+    }
+
+    synchronized void putTree(String sha, Tree tree) {
+        trees.put(sha, tree);
+    }
+
+    synchronized byte[] getBlob(String sha) {
+        final byte[] result = blobs.get(sha);
+        (result == null ? misses : hits).incrementAndGet();
+        return result;
+    }
+
+    synchronized void putBlob(String sha, byte[] bytes) {
+        if (bytes.length > MAX_BLOB_BYTES || blobs.containsKey(sha)) {
+            return;
+        }
+        blobs.put(sha, bytes);
+        blobBytes += bytes.length;
+        while (blobBytes > MAX_BYTES && !blobs.isEmpty()) {
+            final Map.Entry<String, byte[]> eldest = blobs.entrySet().iterator().next();
+            blobBytes -= eldest.getValue().length;
+            blobs.remove(eldest.getKey());
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+}
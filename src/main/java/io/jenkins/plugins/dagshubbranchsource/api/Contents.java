@@ -0,0 +1,103 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import java.util.List;
+
+/**
+ * A file or directory in a repository, as returned by the contents API.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategy.SnakeCaseStrategy.class)
+public class Contents {
+
+    private String name;
+    private String path;
+    private String sha;
+    private Type type;
+    private long size;
+    private String encoding;
+    private String content;
+    @JsonIgnore
+    private List<Contents> entries;
+
+    public enum Type {
+        file, dir, symlink, submodule
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    /**
+     * The blob SHA of a file, or the tree SHA of a directory.
+     */
+    public String getSha() {
+        return sha;
+    }
+
+    public void setSha(String sha) {
+        this.sha = sha;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    public void setEncoding(String encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     * The content of a file, encoded as per {@link #getEncoding()}. Only sent for files that are not
+     * too large, and only when the file itself was requested rather than its directory.
+     */
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    /**
+     * The entries of a directory. Not part of the API response, filled in when a directory is listed.
+     */
+    public List<Contents> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<Contents> entries) {
+        this.entries = entries;
+    }
+}
@@ -2,27 +2,102 @@ package io.jenkins.plugins.dagshubbranchsource.api;
 
 import com.cloudbees.plugins.credentials.common.StandardUsernameCredentials;
 import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.fasterxml.jackson.jaxrs.json.JacksonJaxbJsonProvider;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.model.TaskListener;
+import io.jenkins.plugins.dagshubbranchsource.git.PullRequestSCMRevision;
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.AsyncInvoker;
 import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.InvocationCallback;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
-import org.glassfish.jersey.client.authentication.HttpAuthenticationFeature;
+import javax.ws.rs.core.Response;
+import jenkins.plugins.git.GitBranchSCMRevision;
+import jenkins.plugins.git.GitTagSCMRevision;
+import jenkins.scm.api.mixin.ChangeRequestCheckoutStrategy;
 
 public class DAGsHubApi implements Closeable {
 
+    /**
+     * Number of items to request per page from list endpoints.
+     */
+    static final int PAGE_SIZE = Integer.getInteger(DAGsHubApi.class.getName() + ".pageSize", 50);
+
+    /**
+     * How many times a request is repeated after being told to slow down.
+     */
+    static final int RATE_LIMITED_RETRIES =
+        Integer.getInteger(DAGsHubApi.class.getName() + ".rateLimitedRetries", 3);
+
+    /**
+     * How many times an idempotent request is repeated after a server error or connection failure.
+     */
+    static final int RETRIES = Integer.getInteger(DAGsHubApi.class.getName() + ".retries", 3);
+    static final long RETRY_BASE_DELAY_MILLIS =
+        Long.getLong(DAGsHubApi.class.getName() + ".retryBaseDelayMillis", 500L);
+    static final long RETRY_MAX_DELAY_MILLIS =
+        Long.getLong(DAGsHubApi.class.getName() + ".retryMaxDelayMillis", 10_000L);
+
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    private static final GenericType<List<Branch>> BRANCH_LIST = new GenericType<List<Branch>>() {};
+    private static final GenericType<List<Tag>> TAG_LIST = new GenericType<List<Tag>>() {};
+    private static final GenericType<List<PullRequest>> PULL_LIST =
+        new GenericType<List<PullRequest>>() {};
+    private static final GenericType<List<RefName>> REF_NAME_LIST = new GenericType<List<RefName>>() {};
+    private static final GenericType<List<PullRequestSummary>> PULL_SUMMARY_LIST =
+        new GenericType<List<PullRequestSummary>>() {};
+    private static final GenericType<List<Repository>> REPOSITORY_LIST =
+        new GenericType<List<Repository>>() {};
+    private static final GenericType<List<Hook>> HOOK_LIST = new GenericType<List<Hook>>() {};
+    private static final String HOOK_TYPE = "gitea";
+    private static final TypeReference<List<Contents>> CONTENTS_LIST =
+        new TypeReference<List<Contents>>() {};
+    private static final Pattern COMMIT_SHA = Pattern.compile("[0-9a-f]{40}");
+
     private final String owner;
     private final String repo;
     private final URI apiRootUrl;
+    private final boolean authenticated;
+    private final DAGsHubClientRegistry.Entry clientEntry;
     private final Client client;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile TaskListener listener = TaskListener.NULL;
 
     public static DAGsHubApi create(String repoUrl) throws URISyntaxException {
         return create(repoUrl, null, null);
@@ -59,31 +134,54 @@ public class DAGsHubApi implements Closeable {
 
     public static DAGsHubApi create(String repositoryUrl, StandardUsernameCredentials credentials)
         throws URISyntaxException {
-        String user = null, password = null;
-        if (credentials != null) {
-            user = credentials.getUsername();
-            if (credentials instanceof StandardUsernamePasswordCredentials) {
-                password = ((StandardUsernamePasswordCredentials) credentials).getPassword().getPlainText();
-            } else {
-                password = "";
-            }
+        return create(repositoryUrl, usernameOf(credentials), passwordOf(credentials));
+    }
+
+    /**
+     * Creates an API for the repositories of a user or organization rather than a single repository.
+     * Only {@link #iterateRepositories()} and {@link #getRepository(String)} may be used on it.
+     *
+     * @param serverUrl the URL of the DAGsHub server, e.g. {@code https://dagshub.com}.
+     */
+    public static DAGsHubApi createForOwner(String serverUrl, String owner,
+        StandardUsernameCredentials credentials) throws URISyntaxException {
+        final URI url = new URI(serverUrl.endsWith("/") ? serverUrl : serverUrl + "/");
+        return new DAGsHubApi(owner, null, url.resolve("api/v1/"),
+            usernameOf(credentials), passwordOf(credentials));
+    }
+
+    private static String usernameOf(StandardUsernameCredentials credentials) {
+        return credentials == null ? null : credentials.getUsername();
+    }
+
+    private static String passwordOf(StandardUsernameCredentials credentials) {
+        if (credentials == null) {
+            return null;
+        }
+        if (credentials instanceof StandardUsernamePasswordCredentials) {
+            return ((StandardUsernamePasswordCredentials) credentials).getPassword().getPlainText();
         }
-        return create(repositoryUrl, user, password);
+        return "";
     }
 
     protected DAGsHubApi(String owner, String repo, URI apiRootUrl, String user, String password) {
         this.owner = owner;
         this.repo = repo;
         this.apiRootUrl = apiRootUrl;
-        final ClientBuilder clientBuilder = ClientBuilder.newBuilder()
-            .register(new JacksonJaxbJsonProvider(
-                new ObjectMapper().registerModule(new JavaTimeModule()),
-                JacksonJaxbJsonProvider.DEFAULT_ANNOTATIONS));
+        this.authenticated = user != null;
+        // The client is shared with every other DAGsHubApi for the same server and credentials
+        this.clientEntry = DAGsHubClientRegistry.get().acquire(apiRootUrl, user, password);
+        this.client = clientEntry.getClient();
+    }
 
-        if (user != null) {
-            clientBuilder.register(HttpAuthenticationFeature.basic(user, password));
-        }
-        this.client = clientBuilder.build();
+    /**
+     * Sets where to report waiting, e.g. for the rate limit of the server.
+     *
+     * @return this API.
+     */
+    public DAGsHubApi withListener(TaskListener listener) {
+        this.listener = listener == null ? TaskListener.NULL : listener;
+        return this;
     }
 
     public String getOwner() {
@@ -98,51 +196,893 @@ public class DAGsHubApi implements Closeable {
         return apiRootUrl;
     }
 
+    /**
+     * Lists all branches, fetching every page. Prefer {@link #iterateBranches()} when the caller might
+     * not need all of them.
+     */
     public List<Branch> getBranches() throws IOException {
-        final WebTarget webTarget = client.target(apiRootUrl)
-            .path("/repos/" + owner + "/" + repo + "/branches");
-        // TODO: Paging could be required
-        final GenericType<List<Branch>> entity = new GenericType<List<Branch>>() {};
-        return webTarget.request(MediaType.APPLICATION_JSON).get(entity);
+        return collect(iterateBranches());
+    }
+
+    /**
+     * Lists branches lazily, fetching the next page only once the previous one has been consumed.
+     * Failures are rethrown as {@link UncheckedIOException} by the iterator.
+     */
+    public Iterable<Branch> iterateBranches() {
+        return () -> new PagedIterator<>(PAGE_SIZE,
+            (page, limit) -> getPage(repoTarget("/branches"), page, limit, BRANCH_LIST));
+    }
+
+    /**
+     * Lists the revisions of all branches lazily, like {@link #iterateBranches()}. Each page is parsed
+     * as it is read, and every branch is converted as soon as it is bound, so that only revisions are
+     * kept, see {@link #streamPage}.
+     */
+    public Iterable<GitBranchSCMRevision> iterateBranchRevisions() {
+        return () -> new PagedIterator<>(PAGE_SIZE,
+            (page, limit) -> streamPage(repoTarget("/branches"), page, limit, RefHead.class, "branch",
+                (ref, interner) -> ref.toBranchRev()));
     }
 
+    public Stream<Branch> streamBranches() {
+        return StreamSupport.stream(iterateBranches().spliterator(), false);
+    }
+
+    /**
+     * Lists the names of all branches. Only the names are bound, and the result may be up to
+     * {@link ListingCache#TTL_SECONDS} old, see {@link ListingCache}.
+     */
+    public List<String> getBranchNames() throws IOException {
+        return names(listRecent(repoTarget("/branches"), REF_NAME_LIST));
+    }
+
+    /**
+     * Lookups in quick succession are answered from a single listing when there are enough of them and
+     * that takes fewer requests, see {@link LookupBatcher}.
+     *
+     * @return the branch, or {@code null} if there is no such branch.
+     */
+    @CheckForNull
     public Branch getBranch(String name) throws IOException {
-        final WebTarget webTarget = client.target(apiRootUrl)
-            .path("/repos/" + owner + "/" + repo + "/branches/" + name);
-        return webTarget.request(MediaType.APPLICATION_JSON).get(Branch.class);
+        return clientEntry.getLookupBatcher().lookup(batchKey("/branches"), name,
+            keyCount -> listForLookups(repoTarget("/branches"), BRANCH_LIST, Branch::getName, keyCount),
+            this::fetchBranch);
     }
 
+    private Branch fetchBranch(String name) throws IOException {
+        return getOrNull(repoTarget("/branches/" + name), response -> response.readEntity(Branch.class));
+    }
+
+    /**
+     * Lists all tags, fetching every page. Prefer {@link #iterateTags()} when the caller might not
+     * need all of them.
+     */
     public List<Tag> getTags() throws IOException {
-        final WebTarget webTarget = client.target(apiRootUrl)
-            .path("/repos/" + owner + "/" + repo + "/tags");
-        // TODO: Paging could be required
-        final GenericType<List<Tag>> entity = new GenericType<List<Tag>>() {};
-        return webTarget.request(MediaType.APPLICATION_JSON).get(entity);
+        return collect(iterateTags());
+    }
+
+    /**
+     * Lists tags lazily, fetching the next page only once the previous one has been consumed.
+     * Failures are rethrown as {@link UncheckedIOException} by the iterator.
+     */
+    public Iterable<Tag> iterateTags() {
+        return () -> new PagedIterator<>(PAGE_SIZE,
+            (page, limit) -> getPage(repoTarget("/tags"), page, limit, TAG_LIST));
     }
 
+    /**
+     * Lists the revisions of all tags lazily, like {@link #iterateBranchRevisions()}.
+     */
+    public Iterable<GitTagSCMRevision> iterateTagRevisions() {
+        return () -> new PagedIterator<>(PAGE_SIZE,
+            (page, limit) -> streamPage(repoTarget("/tags"), page, limit, RefHead.class, "tag",
+                (ref, interner) -> ref.toTagRev()));
+    }
+
+    public Stream<Tag> streamTags() {
+        return StreamSupport.stream(iterateTags().spliterator(), false);
+    }
+
+    /**
+     * Lists the names of all tags. Only the names are bound, and the result may be up to
+     * {@link ListingCache#TTL_SECONDS} old, see {@link ListingCache}.
+     */
+    public List<String> getTagNames() throws IOException {
+        return names(listRecent(repoTarget("/tags"), REF_NAME_LIST));
+    }
+
+    /**
+     * Lookups in quick succession are answered from a single listing when there are enough of them and
+     * that takes fewer requests, see {@link LookupBatcher}.
+     *
+     * @return the tag, or {@code null} if there is no such tag.
+     */
+    @CheckForNull
     public Tag getTag(String name) throws IOException {
-        final WebTarget webTarget = client.target(apiRootUrl)
-            .path("/repos/" + owner + "/" + repo + "/tags/" + name);
-        return webTarget.request(MediaType.APPLICATION_JSON).get(Tag.class);
+        return clientEntry.getLookupBatcher().lookup(batchKey("/tags"), name,
+            keyCount -> listForLookups(repoTarget("/tags"), TAG_LIST, Tag::getName, keyCount),
+            this::fetchTag);
+    }
+
+    private Tag fetchTag(String name) throws IOException {
+        return getOrNull(repoTarget("/tags/" + name), response -> response.readEntity(Tag.class));
     }
 
+    /**
+     * Lookups in quick succession are answered from a single listing when there are enough of them and
+     * that takes fewer requests, see {@link LookupBatcher}.
+     *
+     * @return the pull request, or {@code null} if there is no such pull request.
+     */
+    @CheckForNull
     public PullRequest getPull(long index) throws IOException {
-        final WebTarget webTarget = client.target(apiRootUrl)
-            .path("/repos/" + owner + "/" + repo + "/pulls/" + index);
+        // Only open pull requests are listed, closed ones are looked up one by one
+        return clientEntry.getLookupBatcher().lookup(batchKey("/pulls"), index,
+            keyCount -> listForLookups(PullRequestQuery.open().applyTo(repoTarget("/pulls")), PULL_LIST,
+                PullRequest::getNumber, keyCount),
+            this::fetchPull);
+    }
+
+    private PullRequest fetchPull(long index) throws IOException {
+        return getOrNull(repoTarget("/pulls/" + index), response -> response.readEntity(PullRequest.class));
+    }
+
+    /**
+     * Lists all pull requests, fetching every page. Prefer {@link #iteratePulls()} when the caller
+     * might not need all of them.
+     */
+    public List<PullRequest> getPulls() throws IOException {
+        return collect(iteratePulls());
+    }
+
+    /**
+     * Lists the pull requests matching a query, from its first page on.
+     */
+    public List<PullRequest> getPulls(PullRequestQuery query) throws IOException {
+        return collect(iteratePulls(query));
+    }
+
+    /**
+     * Lists pull requests lazily, fetching the next page only once the previous one has been
+     * consumed. Failures are rethrown as {@link UncheckedIOException} by the iterator.
+     */
+    public Iterable<PullRequest> iteratePulls() {
+        return iteratePulls(new PullRequestQuery());
+    }
+
+    /**
+     * Lists the pull requests matching a query lazily, like {@link #iteratePulls()}.
+     */
+    public Iterable<PullRequest> iteratePulls(PullRequestQuery query) {
+        final WebTarget target = query.applyTo(repoTarget("/pulls"));
+        return () -> new PagedIterator<>(query.getPage(), query.getLimit(),
+            (page, limit) -> getPage(target, page, limit, PULL_LIST));
+    }
+
+    /**
+     * Lists the revisions of the open pull requests matching a query lazily, like
+     * {@link #iterateBranchRevisions()}.
+     *
+     * @param originStrategy how pull requests from the repository itself are checked out, or
+     * {@code null} to leave them out.
+     * @param forkStrategy how pull requests from forks are checked out, or {@code null} to leave them out.
+     */
+    public Iterable<PullRequestSCMRevision> iteratePullRevisions(PullRequestQuery query,
+        @CheckForNull ChangeRequestCheckoutStrategy originStrategy,
+        @CheckForNull ChangeRequestCheckoutStrategy forkStrategy) {
+        final WebTarget target = query.applyTo(repoTarget("/pulls"));
+        final BiFunction<PullRequestHead, Interner, PullRequestSCMRevision> toRev = (pull, interner) -> {
+            // Closed ones are only listed if the server ignored the state filter
+            final ChangeRequestCheckoutStrategy strategy =
+                pull.isSameOrigin() ? originStrategy : forkStrategy;
+            if (strategy == null || pull.getState() == PullRequest.State.closed) {
+                return null;
+            }
+            pull.intern(interner);
+            return pull.toRev(strategy);
+        };
+        return () -> new PagedIterator<>(query.getPage(), query.getLimit(),
+            (page, limit) -> streamPage(target, page, limit, PullRequestHead.class,
+                "revision:" + originStrategy + "," + forkStrategy, toRev));
+    }
+
+    public Stream<PullRequest> streamPulls() {
+        return StreamSupport.stream(iteratePulls().spliterator(), false);
+    }
+
+    public Stream<PullRequest> streamPulls(PullRequestQuery query) {
+        return StreamSupport.stream(iteratePulls(query).spliterator(), false);
+    }
+
+    /**
+     * Lists the pull requests matching a query, binding only what is needed to name their heads. The
+     * result may be up to {@link ListingCache#TTL_SECONDS} old, see {@link ListingCache}.
+     */
+    public List<PullRequestSummary> getPullSummaries(PullRequestQuery query) throws IOException {
+        return listRecent(query.applyTo(repoTarget("/pulls")), PULL_SUMMARY_LIST);
+    }
+
+    /**
+     * Looks up a file or directory. Directories come with their {@link Contents#getEntries() entries}.
+     * <p>
+     * When {@code ref} is a full commit SHA, the result can never change, so it is kept in the
+     * {@link ContentCache}, and so are the bytes of a file read along with it.
+     *
+     * @param ref the commit SHA, branch or tag to look at.
+     * @param path the path relative to the repository root, or the empty string for the root.
+     * @return the file or directory, or {@code null} if there is nothing at that path.
+     */
+    @CheckForNull
+    public Contents getContents(String ref, String path) throws IOException {
+        final ContentCache cache = clientEntry.getContentCache();
+        final boolean immutable = COMMIT_SHA.matcher(ref).matches();
+        if (immutable) {
+            final Contents cached = cache.getContents(ref, path);
+            if (cached != null) {
+                return cached == ContentCache.MISSING ? null : cached;
+            }
+        }
+
+        final WebTarget target = repoTarget(path.isEmpty() ? "/contents" : "/contents/" + path)
+            .queryParam("ref", ref);
+        // Read as a tree first, since a file is an object but a directory is an array. A file comes with
+        // all of its content, so it is left to the ContentCache, which bounds what it keeps, rather than
+        // to the ValidatorCache, which only bounds the number of responses.
+        final JsonNode node = getOrNull(target, false, response -> response.readEntity(JsonNode.class));
+        final ObjectMapper mapper = DAGsHubClientRegistry.get().getMapper();
+        final Contents contents;
+        if (node == null) {
+            contents = null;
+        } else if (node.isArray()) {
+            contents = new Contents();
+            contents.setName(path.substring(path.lastIndexOf('/') + 1));
+            contents.setPath(path);
+            contents.setType(Contents.Type.dir);
+            contents.setEntries(mapper.convertValue(node, CONTENTS_LIST));
+        } else {
+            contents = mapper.treeToValue(node, Contents.class);
+            if (contents.getContent() != null) {
+                cache.putBlob(contents.getSha(), decode(contents, target));
+                // Don't keep a second, encoded copy around
+                contents.setContent(null);
+            }
+        }
+        if (immutable) {
+            cache.putContents(ref, path, contents);
+        }
+        return contents;
+    }
+
+    /**
+     * Lists the direct entries of a tree, fetching every page. Since trees are addressed by SHA, the
+     * result is kept in the {@link ContentCache}.
+     *
+     * @param sha the SHA of a tree, or of a commit for its root tree.
+     * @return the tree, or {@code null} if there is no such tree or commit.
+     */
+    @CheckForNull
+    public Tree getTree(String sha) throws IOException {
+        final ContentCache cache = clientEntry.getContentCache();
+        final Tree cached = cache.getTree(sha);
+        if (cached != null) {
+            return cached;
+        }
+        final List<Tree.Entry> entries = new ArrayList<>();
+        Tree page;
+        int pageNumber = 1;
+        do {
+            page = getOrNull(repoTarget("/git/trees/" + sha).queryParam("page", pageNumber++),
+                response -> response.readEntity(Tree.class));
+            if (page == null) {
+                return null;
+            }
+            if (page.getTree() != null) {
+                entries.addAll(page.getTree());
+            }
+        } while (page.isTruncated());
+
+        final Tree tree = new Tree();
+        tree.setSha(page.getSha());
+        tree.setTree(entries);
+        cache.putTree(sha, tree);
+        return tree;
+    }
+
+    /**
+     * Reads the bytes of a file, from the {@link ContentCache} if the same blob has been read before.
+     *
+     * @param sha the blob SHA, see {@link Contents#getSha()}.
+     */
+    public byte[] getBlob(String sha) throws IOException {
+        final ContentCache cache = clientEntry.getContentCache();
+        byte[] bytes = cache.getBlob(sha);
+        if (bytes == null) {
+            final WebTarget target = repoTarget("/git/blobs/" + sha);
+            // A blob has the same sha, size, encoding and content fields as a file, and is kept out of the
+            // ValidatorCache for the same reason
+            bytes = decode(get(target, null, false, response -> response.readEntity(Contents.class)), target);
+            cache.putBlob(sha, bytes);
+        }
+        return bytes;
+    }
+
+    private static byte[] decode(Contents file, WebTarget target) throws IOException {
+        if (file.getContent() == null) {
+            throw new IOException("No content in response from " + target.getUri());
+        }
+        if (!"base64".equals(file.getEncoding())) {
+            throw new IOException("Unsupported encoding " + file.getEncoding() + " in response from "
+                + target.getUri());
+        }
+        try {
+            return Base64.getMimeDecoder().decode(file.getContent());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid content in response from " + target.getUri(), e);
+        }
+    }
+
+    /**
+     * Resolves a commit from its full or abbreviated SHA.
+     *
+     * @return the full SHA of the commit, or {@code null} if there is no such commit.
+     */
+    @CheckForNull
+    public String getCommitHash(String sha) throws IOException {
+        final JsonNode commit = getOrNull(repoTarget("/git/commits/" + sha),
+            response -> response.readEntity(JsonNode.class));
+        return commit == null || !commit.hasNonNull("sha") ? null : commit.get("sha").asText();
+    }
+
+    /**
+     * Counts the commits reachable from {@code head} but not from {@code base}, that is how far
+     * {@code head} is ahead of their merge base.
+     *
+     * @return the number of commits, or {@code null} if the server doesn't know either commit.
+     */
+    @CheckForNull
+    public Integer getCommitsAhead(String base, String head) throws IOException {
+        final CommitComparison comparison = getOrNull(repoTarget("/compare/" + base + "..." + head),
+            response -> response.readEntity(CommitComparison.class));
+        return comparison == null ? null : comparison.getTotalCommits();
+    }
+
+    /**
+     * Lists the repositories of the owner lazily, whether it is an organization or a user.
+     * Failures are rethrown as {@link UncheckedIOException} by the iterator.
+     * <p>
+     * Without credentials only public repositories are listed. With credentials, the listing of an
+     * organization includes the private repositories the user can see. The public listing of a user
+     * never does, so if the owner is the authenticated user, their own listing is used instead, which
+     * also has their private repositories.
+     */
+    public Iterable<Repository> iterateRepositories() {
+        return () -> {
+            // Organizations and users have separate endpoints, and we can only tell them apart by asking
+            final AtomicReference<WebTarget> target =
+                new AtomicReference<>(client.target(apiRootUrl).path("/orgs/" + owner + "/repos"));
+            final AtomicBoolean ownListing = new AtomicBoolean();
+            return new PagedIterator<>(PAGE_SIZE, (page, limit) -> {
+                try {
+                    return getOwnedPage(target.get(), page, limit, ownListing.get());
+                } catch (DAGsHubApiException e) {
+                    if (page != 1 || e.getStatus() != Response.Status.NOT_FOUND.getStatusCode()) {
+                        throw e;
+                    }
+                    final User user = getAuthenticatedUser();
+                    ownListing.set(user != null && owner.equalsIgnoreCase(user.getUserName()));
+                    target.set(client.target(apiRootUrl)
+                        .path(ownListing.get() ? "/user/repos" : "/users/" + owner + "/repos"));
+                    return getOwnedPage(target.get(), page, limit, ownListing.get());
+                }
+            });
+        };
+    }
+
+    /**
+     * @param ownListing whether the page is from the listing of the authenticated user, which also has
+     * the repositories they collaborate on or see through their organizations, and must be filtered.
+     */
+    private PagedIterator.Page<Repository> getOwnedPage(WebTarget target, int page, int limit,
+        boolean ownListing) throws IOException {
+        final PagedIterator.Page<Repository> listed = getPage(target, page, limit, REPOSITORY_LIST);
+        if (!ownListing) {
+            return listed;
+        }
+        final List<Repository> owned = new ArrayList<>();
+        for (Repository repository : listed.getItems()) {
+            if (repository.getOwner() != null && owner.equalsIgnoreCase(repository.getOwner().getUserName())) {
+                owned.add(repository);
+            }
+        }
+        return new PagedIterator.Page<>(owned, listed.getListedCount(), listed.getTotalCount());
+    }
+
+    /**
+     * @return the user whose credentials the API is used with, or {@code null} if it is used anonymously.
+     */
+    @CheckForNull
+    public User getAuthenticatedUser() throws IOException {
+        if (!authenticated) {
+            return null;
+        }
+        return get(client.target(apiRootUrl).path("/user"), response -> response.readEntity(User.class));
+    }
+
+    /**
+     * @return the repository of the owner with the given name, or {@code null} if there is none.
+     */
+    @CheckForNull
+    public Repository getRepository(String name) throws IOException {
+        return getOrNull(client.target(apiRootUrl).path("/repos/" + owner + "/" + name),
+            response -> response.readEntity(Repository.class));
+    }
+
+    public List<Hook> getHooks() throws IOException {
+        return get(repoTarget("/hooks"), response -> response.readEntity(HOOK_LIST));
+    }
+
+    /**
+     * Makes sure the repository has an active hook delivering the given events to the given URL,
+     * signed with the given secret. An existing hook for the same URL is updated in place.
+     * <p>
+     * This requires admin access to the repository.
+     *
+     * @return the created or updated hook.
+     */
+    public Hook ensureHook(String url, String secret, List<String> events) throws IOException {
+        final Map<String, String> config = new HashMap<>();
+        config.put("url", url);
+        config.put("content_type", "json");
+        config.put("secret", secret);
+
+        final Hook hook = new Hook();
+        hook.setConfig(config);
+        hook.setEvents(events);
+        hook.setActive(true);
+
+        for (Hook existing : getHooks()) {
+            if (existing.getConfig() != null && url.equals(existing.getConfig().get("url"))) {
+                return send(repoTarget("/hooks/" + existing.getId()), "PATCH", hook, Hook.class);
+            }
+        }
+        hook.setType(HOOK_TYPE);
+        return send(repoTarget("/hooks"), HttpMethod.POST, hook, Hook.class);
+    }
+
+    private WebTarget repoTarget(String path) {
+        return client.target(apiRootUrl).path("/repos/" + owner + "/" + repo + path);
+    }
+
+    /**
+     * Lists every page of an endpoint, or reuses a recent listing of the same type.
+     */
+    private <T> List<T> listRecent(WebTarget target, GenericType<List<T>> type) throws IOException {
+        final ListingCache cache = clientEntry.getListingCache();
+        final String key = target.getUri() + "#" + type.getType().getTypeName();
+        List<T> items = cache.get(key);
+        if (items == null) {
+            items = Collections.unmodifiableList(collect(() -> new PagedIterator<>(PAGE_SIZE,
+                (page, limit) -> getPage(target, page, limit, type))));
+            cache.put(key, items);
+        }
+        return items;
+    }
+
+    private String batchKey(String path) {
+        return owner + "/" + repo + path;
+    }
+
+    /**
+     * Lists items by key for a batch of lookups, if that takes fewer pages than there are lookups.
+     * Otherwise only the first page is listed, which tells how many pages there are, and whatever it
+     * doesn't answer is left to be looked up item by item.
+     */
+    private <K, T> Map<K, T> listForLookups(WebTarget target, GenericType<List<T>> type,
+        Function<T, K> keyOf, int keyCount) throws IOException {
+        final Map<K, T> byKey = new HashMap<>();
+        PagedIterator.Page<T> page = getPage(target, 1, PAGE_SIZE, type);
+        addByKey(byKey, page.getItems(), keyOf);
+        final Long totalCount = page.getTotalCount();
+        final long pages = totalCount == null ? Long.MAX_VALUE : (totalCount + PAGE_SIZE - 1) / PAGE_SIZE;
+        if (pages >= keyCount) {
+            return byKey;
+        }
+        for (int number = 2; number <= pages && page.getListedCount() >= PAGE_SIZE; number++) {
+            page = getPage(target, number, PAGE_SIZE, type);
+            addByKey(byKey, page.getItems(), keyOf);
+        }
+        return byKey;
+    }
+
+    private static <K, T> void addByKey(Map<K, T> byKey, List<T> items, Function<T, K> keyOf) {
+        if (items != null) {
+            for (T item : items) {
+                byKey.put(keyOf.apply(item), item);
+            }
+        }
+    }
+
+    private static List<String> names(List<RefName> refs) {
+        final List<String> names = new ArrayList<>(refs.size());
+        for (RefName ref : refs) {
+            names.add(ref.getName());
+        }
+        return names;
+    }
+
+    private <T> PagedIterator.Page<T> getPage(WebTarget target, int page, int limit,
+        GenericType<List<T>> type) throws IOException {
+        final WebTarget pageTarget = target
+            .queryParam("page", page)
+            .queryParam("limit", limit);
+        // The same page may be bound to different types, e.g. both Branch and RefName
+        return get(pageTarget, type.getType().getTypeName(), true,
+            response -> new PagedIterator.Page<>(response.readEntity(type), totalCount(pageTarget, response)));
+    }
+
+    /**
+     * Like {@link #getPage}, but parses the response as it is read rather than binding it as a whole.
+     * Items are bound one at a time, usually to a projection which only has the fields the converter
+     * needs, and converted right away. So a page never holds more than one bound item, and only the
+     * converted items are kept until the caller is done with them. The converter is given an
+     * {@link Interner} for the page, so that converted items can share what they have in common.
+     * <p>
+     * Streamed pages are requested conditionally too, but a full scan streams thousands of them, which
+     * would push everything else out of the {@link ValidatorCache}. So their converted items are kept
+     * apart, in a cache bounded by the number of items, see {@link ValidatorCache#forPages()}.
+     *
+     * @param variant identifies the converter, since pages are shared by target and variant.
+     * @param converter converts an item, or returns {@code null} to leave it out.
+     */
+    private <T, R> PagedIterator.Page<R> streamPage(WebTarget target, int page, int limit, Class<T> type,
+        String variant, BiFunction<T, Interner, R> converter) throws IOException {
+        final WebTarget pageTarget = target
+            .queryParam("page", page)
+            .queryParam("limit", limit);
+        return get(pageTarget, type.getName() + "#" + variant, clientEntry.getPageCache(), response -> {
+            final Long totalCount = totalCount(pageTarget, response);
+            final ObjectMapper mapper = DAGsHubClientRegistry.get().getMapper();
+            final List<R> items = new ArrayList<>();
+            final Interner interner = new Interner();
+            int listed = 0;
+            try (InputStream in = response.readEntity(InputStream.class);
+                JsonParser parser = mapper.getFactory().createParser(in)) {
+                final JsonToken start = parser.nextToken();
+                if (start == null || start == JsonToken.VALUE_NULL) {
+                    return new PagedIterator.Page<>(items, 0, totalCount);
+                }
+                if (start != JsonToken.START_ARRAY) {
+                    throw new IOException("Expected a list from " + pageTarget.getUri() + " but got " + start);
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    listed++;
+                    final R item = converter.apply(mapper.readValue(parser, type), interner);
+                    if (item != null) {
+                        items.add(item);
+                    }
+                }
+                if (parser.currentToken() != JsonToken.END_ARRAY) {
+                    throw new IOException("Unexpected " + parser.currentToken() + " in the list from "
+                        + pageTarget.getUri());
+                }
+            }
+            return new PagedIterator.Page<>(items, listed, totalCount);
+        });
+    }
+
+    @CheckForNull
+    private static Long totalCount(WebTarget target, Response response) throws IOException {
+        final String totalCount = response.getHeaderString(TOTAL_COUNT_HEADER);
+        try {
+            return totalCount == null ? null : Long.valueOf(totalCount);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid " + TOTAL_COUNT_HEADER + " header from " + target.getUri(), e);
+        }
+    }
+
+    /**
+     * Like {@link #get(WebTarget, ResponseReader)}, but returns {@code null} when the resource does not
+     * exist.
+     */
+    @CheckForNull
+    private <T> T getOrNull(WebTarget target, ResponseReader<T> reader) throws IOException {
+        return getOrNull(target, true, reader);
+    }
+
+    /**
+     * @param cacheable whether the parsed response may be kept by the {@link ValidatorCache}.
+     */
+    @CheckForNull
+    private <T> T getOrNull(WebTarget target, boolean cacheable, ResponseReader<T> reader) throws IOException {
+        try {
+            return get(target, null, cacheable, reader);
+        } catch (DAGsHubApiException e) {
+            if (e.getStatus() == Response.Status.NOT_FOUND.getStatusCode()) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Performs a GET request and parses its response.
+     * <p>
+     * If we have already seen a response with validators for the same URL, the request is made
+     * conditional, and a {@code 304 Not Modified} is answered with the value parsed back then,
+     * without reading anything from the network. See {@link ValidatorCache}.
+     */
+    private <T> T get(WebTarget target, ResponseReader<T> reader) throws IOException {
+        return get(target, null, true, reader);
+    }
 
-        return webTarget.request(MediaType.APPLICATION_JSON).get(PullRequest.class);
+    /**
+     * Like {@link #get(WebTarget, ResponseReader)}, for a URL whose response is parsed in more than one
+     * way. Each way is cached separately.
+     * <p>
+     * Identical requests made at the same time through the same client share a single call, see
+     * {@link SingleFlight}.
+     *
+     * @param variant identifies how the response is parsed, or {@code null} if there's only one way.
+     * @param cacheable whether the parsed response may be kept by the {@link ValidatorCache}.
+     */
+    private <T> T get(WebTarget target, @CheckForNull String variant, boolean cacheable,
+        ResponseReader<T> reader) throws IOException {
+        return get(target, variant, cacheable ? clientEntry.getValidatorCache() : null, reader);
     }
 
-    public List<PullRequest> getPulls() {
-        final WebTarget webTarget = client.target(apiRootUrl)
-            .path("/repos/" + owner + "/" + repo + "/pulls");
-        // TODO: Paging could be required
-        final GenericType<List<PullRequest>> entity = new GenericType<List<PullRequest>>() {};
-        return webTarget.request(MediaType.APPLICATION_JSON).get(entity);
+    /**
+     * @param cache the cache to keep the parsed response in, or {@code null} to leave it out.
+     */
+    private <T> T get(WebTarget target, @CheckForNull String variant, @CheckForNull ValidatorCache cache,
+        ResponseReader<T> reader) throws IOException {
+        final String url = target.getUri().toString();
+        final String cacheKey = variant == null ? url : url + "#" + variant;
+        return DAGsHubClientRegistry.get().getSingleFlight().execute(clientEntry.getKey() + " " + cacheKey,
+            () -> fetch(target, cache, cacheKey, reader));
+    }
+
+    /**
+     * @param cache the cache to keep the parsed response in, or {@code null} to leave it out.
+     * @param cacheKey the key of the response in the cache.
+     */
+    @SuppressWarnings("unchecked") // The same URL and variant are always read into the same type
+    private <T> T fetch(WebTarget target, @CheckForNull ValidatorCache cache, String cacheKey,
+        ResponseReader<T> reader) throws IOException {
+        final String url = target.getUri().toString();
+        final ValidatorCache.Validated cached = cache == null ? null : cache.get(cacheKey);
+
+        final Invocation.Builder request = target.request(MediaType.APPLICATION_JSON);
+        if (cached != null) {
+            if (cached.getETag() != null) {
+                request.header(HttpHeaders.IF_NONE_MATCH, cached.getETag());
+            }
+            if (cached.getLastModified() != null) {
+                request.header(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+            }
+        }
+
+        final Response response = execute(target.getUri(), request::async, HttpMethod.GET, null);
+        try {
+            if (cached != null && response.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode()) {
+                cache.recordNotModified();
+                return (T) cached.getValue();
+            }
+            if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+                throw new DAGsHubApiException(url, response.getStatus(),
+                    response.getStatusInfo().getReasonPhrase());
+            }
+            final T value;
+            try {
+                value = reader.read(response);
+            } catch (ProcessingException e) {
+                throw new IOException("Failed to read the response from " + url, e);
+            }
+            if (cache != null) {
+                cache.put(cacheKey, response.getHeaderString(HttpHeaders.ETAG),
+                    response.getHeaderString(HttpHeaders.LAST_MODIFIED), value);
+            }
+            return value;
+        } finally {
+            response.close();
+        }
+    }
+
+    private static <T> List<T> collect(Iterable<T> items) throws IOException {
+        final List<T> result = new ArrayList<>();
+        try {
+            for (T item : items) {
+                result.add(item);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return result;
+    }
+
+    /**
+     * Performs a request with a JSON body. Unlike {@link #get(WebTarget, ResponseReader)}, nothing is
+     * cached.
+     */
+    private <T> T send(WebTarget target, String method, Object body, Class<T> type) throws IOException {
+        final Response response = execute(target.getUri(),
+            () -> target.request(MediaType.APPLICATION_JSON).async(), method, Entity.json(body));
+        try {
+            if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+                throw new DAGsHubApiException(target.getUri().toString(), response.getStatus(),
+                    response.getStatusInfo().getReasonPhrase());
+            }
+            return response.readEntity(type);
+        } catch (ProcessingException e) {
+            throw new IOException("Failed to read the response from " + target.getUri(), e);
+        } finally {
+            response.close();
+        }
+    }
+
+    /**
+     * Makes a request once the {@link RateLimiter} and {@link CircuitBreaker} of the server allow it.
+     * <p>
+     * A request which is rejected for going over the rate limit is repeated after the wait the server
+     * asks for. GET requests which fail with a server error, or get no response at all, are repeated
+     * up to {@link #RETRIES} times, after a jittered exponential backoff. Every attempt is recorded in
+     * the {@link DAGsHubMetrics}.
+     *
+     * @param url the URL of the request, to tell which endpoint it is for.
+     * @param invoker creates the request, once per attempt.
+     * @param method the HTTP method. Only GET requests are considered safe to repeat after a failure.
+     * @param entity the request body, if any.
+     * @return the response. It may still be unsuccessful.
+     * @throws IOException if the request could not be made at all.
+     * @throws InterruptedIOException if the calling thread is interrupted.
+     */
+    private Response execute(URI url, Supplier<AsyncInvoker> invoker, String method,
+        @CheckForNull Entity<?> entity) throws IOException {
+        final boolean idempotent = HttpMethod.GET.equals(method);
+        final DAGsHubMetrics metrics = DAGsHubClientRegistry.get().getMetrics();
+        final DAGsHubMetrics.Endpoint endpoint = DAGsHubMetrics.Endpoint.of(apiRootUrl, url);
+        final RateLimiter limiter = clientEntry.getRateLimiter();
+        final CircuitBreaker breaker = clientEntry.getCircuitBreaker();
+        int failures = 0;
+        int rateLimited = 0;
+        while (true) {
+            try {
+                limiter.acquire(wait -> {
+                    if (wait >= TimeUnit.SECONDS.toNanos(1)) {
+                        listener.getLogger().format("Waiting %d s for the rate limit of %s%n",
+                            TimeUnit.NANOSECONDS.toSeconds(wait), apiRootUrl);
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(
+                    "Interrupted while waiting for the rate limit of " + apiRootUrl);
+            }
+
+            breaker.acquire();
+            final long start = System.nanoTime();
+            final Response response;
+            try {
+                response = call(invoker.get(), method, entity);
+            } catch (InterruptedIOException e) {
+                breaker.cancel();
+                throw e;
+            } catch (ProcessingException e) {
+                metrics.recordFailure(endpoint, System.nanoTime() - start);
+                breaker.recordFailure();
+                if (!idempotent || failures >= RETRIES) {
+                    throw new IOException("Failed to reach " + apiRootUrl, e);
+                }
+                backOff(failures++, e.toString());
+                continue;
+            } catch (IOException | RuntimeException e) {
+                metrics.recordFailure(endpoint, System.nanoTime() - start);
+                breaker.recordFailure();
+                throw e;
+            }
+
+            final int status = response.getStatus();
+            metrics.recordResponse(endpoint, status, System.nanoTime() - start, response.getLength());
+            limiter.update(status,
+                response.getHeaderString(RateLimiter.REMAINING_HEADER),
+                response.getHeaderString(RateLimiter.RESET_HEADER),
+                response.getHeaderString(RateLimiter.RETRY_AFTER_HEADER));
+            if (status >= 500) {
+                breaker.recordFailure();
+                if (idempotent && failures < RETRIES) {
+                    response.close();
+                    backOff(failures++, "HTTP " + status);
+                    continue;
+                }
+                return response;
+            }
+            breaker.recordSuccess();
+            if (status != RateLimiter.TOO_MANY_REQUESTS || rateLimited++ >= RATE_LIMITED_RETRIES) {
+                return response;
+            }
+            response.close();
+            listener.getLogger().format("Rate limited by %s, retrying%n", apiRootUrl);
+        }
+    }
+
+    /**
+     * Sends a request and waits for its response, but stops waiting as soon as the calling thread is
+     * interrupted, e.g. because the scan was aborted. The abandoned request then runs into its read
+     * timeout at the latest, and its response is closed whenever it arrives.
+     *
+     * @throws ProcessingException if there was no response.
+     */
+    private Response call(AsyncInvoker invoker, String method, @CheckForNull Entity<?> entity)
+        throws IOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Interrupted before sending a request to " + apiRootUrl);
+        }
+        final CompletableFuture<Response> result = new CompletableFuture<>();
+        final InvocationCallback<Response> callback = new InvocationCallback<Response>() {
+            @Override
+            public void completed(Response response) {
+                if (!result.complete(response)) {
+                    // Nobody is waiting for it anymore
+                    response.close();
+                }
+            }
+
+            @Override
+            public void failed(Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+        };
+        final Future<Response> request = entity == null
+            ? invoker.method(method, callback)
+            : invoker.method(method, entity, callback);
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            if (!result.cancel(false)) {
+                // Completed just in time, but we are not going to read it
+                final Response response = result.getNow(null);
+                if (response != null) {
+                    response.close();
+                }
+            }
+            request.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + apiRootUrl);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException("Request to " + apiRootUrl + " failed", e.getCause());
+        }
+    }
+
+    /**
+     * Sleeps before the next attempt of a failed request. The delay is random, up to a limit which
+     * doubles with every attempt, so that many clients failing at once don't retry in lockstep.
+     */
+    private void backOff(int attempt, String reason) throws IOException {
+        final long maxDelay =
+            Math.min(RETRY_MAX_DELAY_MILLIS, RETRY_BASE_DELAY_MILLIS << Math.min(attempt, 20));
+        final long delay = ThreadLocalRandom.current().nextLong(maxDelay + 1);
+        listener.getLogger().format("Request to %s failed (%s), retrying in %d ms%n",
+            apiRootUrl, reason, delay);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while retrying a request to " + apiRootUrl);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+        T read(Response response) throws IOException;
     }
 
     @Override
     public void close() throws IOException {
-        client.close();
+        // Return the lease rather than closing the shared client, see DAGsHubClientRegistry
+        if (closed.compareAndSet(false, true)) {
+            DAGsHubClientRegistry.get().release(clientEntry);
+        }
     }
 }
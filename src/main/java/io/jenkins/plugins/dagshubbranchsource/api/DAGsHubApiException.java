@@ -0,0 +1,21 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the DAGsHub API answers a request with an unsuccessful HTTP status.
+ */
+public class DAGsHubApiException extends IOException {
+
+    private final int status;
+
+    public DAGsHubApiException(String url, int status, String reason) {
+        super("DAGsHub API request to " + url + " failed with HTTP " + status
+            + (reason == null ? "" : " " + reason));
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
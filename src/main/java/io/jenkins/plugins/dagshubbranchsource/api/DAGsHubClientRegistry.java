@@ -0,0 +1,377 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.jaxrs.json.JacksonJaxbJsonProvider;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.authentication.HttpAuthenticationFeature;
+
+/**
+ * Process-wide registry of the HTTP clients used to talk to DAGsHub servers.
+ * <p>
+ * Building a Jersey {@link Client} bootstraps HK2 and a JSON provider, and every new client starts
+ * with a cold connection pool. Since clients are thread-safe, we keep a single one per API root and
+ * credential, backed by a bounded pool of keep-alive connections, and lease it out to every
+ * {@link DAGsHubApi} which needs it.
+ * <p>
+ * Clients which have not been leased for {@link #IDLE_TIMEOUT_SECONDS} are closed by
+ * {@link #evictIdle()}, and {@link #shutdown()} closes everything when the plugin stops.
+ */
+public final class DAGsHubClientRegistry {
+
+    private static final Logger LOGGER = Logger.getLogger(DAGsHubClientRegistry.class.getName());
+
+    /**
+     * Maximum number of pooled connections per client, across all routes.
+     */
+    static final int MAX_CONNECTIONS_TOTAL =
+        Integer.getInteger(DAGsHubClientRegistry.class.getName() + ".maxConnectionsTotal", 20);
+
+    /**
+     * Maximum number of pooled connections per client to a single route (host).
+     */
+    static final int MAX_CONNECTIONS_PER_ROUTE =
+        Integer.getInteger(DAGsHubClientRegistry.class.getName() + ".maxConnectionsPerRoute", 10);
+
+    /**
+     * How long to wait for a connection to be established, and then for a pooled connection to
+     * become free.
+     */
+    static final int CONNECT_TIMEOUT_SECONDS =
+        Integer.getInteger(DAGsHubClientRegistry.class.getName() + ".connectTimeoutSeconds", 10);
+
+    /**
+     * How long to wait for data from the server before giving up on a response.
+     */
+    static final int READ_TIMEOUT_SECONDS =
+        Integer.getInteger(DAGsHubClientRegistry.class.getName() + ".readTimeoutSeconds", 30);
+
+    /**
+     * How long a client, or a pooled connection, may stay unused before it is closed.
+     */
+    static final long IDLE_TIMEOUT_SECONDS =
+        Long.getLong(DAGsHubClientRegistry.class.getName() + ".idleTimeoutSeconds", 300L);
+
+    private static final DAGsHubClientRegistry INSTANCE = new DAGsHubClientRegistry();
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<String, ContentCache> contentCaches = new HashMap<>();
+    private final Map<String, RateLimiter> rateLimiters = new HashMap<>();
+    private final Map<String, CircuitBreaker> circuitBreakers = new HashMap<>();
+    private final List<Consumer<CircuitBreaker>> circuitBreakerWatchers = new CopyOnWriteArrayList<>();
+    private final SingleFlight singleFlight = new SingleFlight();
+    private final DAGsHubMetrics metrics = new DAGsHubMetrics(singleFlight);
+
+    private DAGsHubClientRegistry() {
+    }
+
+    public static DAGsHubClientRegistry get() {
+        return INSTANCE;
+    }
+
+    /**
+     * The {@link ObjectMapper} shared by all clients. It is thread-safe once configured.
+     */
+    public ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    /**
+     * Leases the client for the given API root and credentials, building it if needed.
+     * Every call must be matched by a call to {@link #release(Entry)}.
+     */
+    synchronized Entry acquire(URI apiRootUrl, String user, String password) {
+        final String key = keyOf(apiRootUrl, user, password);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            // Contents are immutable, so their cache outlives idle clients, and helps the next scan
+            entry = new Entry(key, apiRootUrl, buildClient(user, password),
+                contentCaches.computeIfAbsent(key, k -> new ContentCache()),
+                getRateLimiter(apiRootUrl), getCircuitBreaker(apiRootUrl));
+            entries.put(key, entry);
+        }
+        entry.leases++;
+        return entry;
+    }
+
+    synchronized void release(Entry entry) {
+        if (entry.leases > 0) {
+            entry.leases--;
+        }
+        entry.lastReleased = System.nanoTime();
+    }
+
+    /**
+     * Closes clients that have not been leased for a while, and stale connections in the pools of
+     * the clients that remain.
+     *
+     * @return the number of clients closed.
+     */
+    public int evictIdle() {
+        return evictIdle(System.nanoTime());
+    }
+
+    /**
+     * Evicts as {@link #evictIdle()} would at the given {@link System#nanoTime()}.
+     */
+    int evictIdle(long now) {
+        final List<Entry> evicted = new ArrayList<>();
+        final List<Entry> remaining = new ArrayList<>();
+        synchronized (this) {
+            for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+                Entry entry = it.next();
+                if (entry.leases == 0
+                    && now - entry.lastReleased > TimeUnit.SECONDS.toNanos(IDLE_TIMEOUT_SECONDS)) {
+                    it.remove();
+                    evicted.add(entry);
+                } else {
+                    remaining.add(entry);
+                }
+            }
+        }
+        for (Entry entry : evicted) {
+            entry.close();
+        }
+        for (Entry entry : remaining) {
+            entry.connectionManager.closeExpiredConnections();
+            entry.connectionManager.closeIdleConnections(IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        return evicted.size();
+    }
+
+    /**
+     * Closes all clients. Clients leased afterwards are built from scratch.
+     */
+    public void shutdown() {
+        final List<Entry> closing;
+        synchronized (this) {
+            closing = new ArrayList<>(entries.values());
+            entries.clear();
+            contentCaches.clear();
+        }
+        for (Entry entry : closing) {
+            entry.close();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * The rate limiter for a server, shared by all clients talking to it whatever their credentials.
+     */
+    public synchronized RateLimiter getRateLimiter(URI apiRootUrl) {
+        return rateLimiters.computeIfAbsent(apiRootUrl.toString(), k -> new RateLimiter());
+    }
+
+    /**
+     * The circuit breaker for a server, shared by all clients talking to it whatever their credentials.
+     */
+    public synchronized CircuitBreaker getCircuitBreaker(URI apiRootUrl) {
+        CircuitBreaker breaker = circuitBreakers.get(apiRootUrl.toString());
+        if (breaker == null) {
+            breaker = new CircuitBreaker(apiRootUrl.toString());
+            circuitBreakers.put(apiRootUrl.toString(), breaker);
+            for (Consumer<CircuitBreaker> watcher : circuitBreakerWatchers) {
+                watcher.accept(breaker);
+            }
+        }
+        return breaker;
+    }
+
+    /**
+     * The circuit breakers of all servers we have talked to, for monitoring.
+     */
+    public synchronized List<CircuitBreaker> getCircuitBreakers() {
+        return new ArrayList<>(circuitBreakers.values());
+    }
+
+    /**
+     * Hands the circuit breaker of every server to the watcher, those we have already talked to now, and
+     * the others as we first talk to them. Used to publish their metrics, which are per server.
+     */
+    public synchronized void watchCircuitBreakers(Consumer<CircuitBreaker> watcher) {
+        for (CircuitBreaker breaker : circuitBreakers.values()) {
+            watcher.accept(breaker);
+        }
+        circuitBreakerWatchers.add(watcher);
+    }
+
+    /**
+     * Shares identical concurrent requests. Keys include the credential, so nothing is shared between
+     * clients.
+     */
+    public SingleFlight getSingleFlight() {
+        return singleFlight;
+    }
+
+    /**
+     * Metrics of the calls made through all clients.
+     */
+    public DAGsHubMetrics getMetrics() {
+        return metrics;
+    }
+
+    private Client buildClient(String user, String password) {
+        final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(MAX_CONNECTIONS_TOTAL);
+        connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+
+        final int connectTimeout = (int) TimeUnit.SECONDS.toMillis(CONNECT_TIMEOUT_SECONDS);
+        final ClientConfig config = new ClientConfig()
+            .connectorProvider(new ApacheConnectorProvider())
+            .property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager)
+            .property(ApacheClientProperties.REQUEST_CONFIG,
+                RequestConfig.custom().setConnectionRequestTimeout(connectTimeout).build())
+            .property(ClientProperties.CONNECT_TIMEOUT, connectTimeout)
+            .property(ClientProperties.READ_TIMEOUT, (int) TimeUnit.SECONDS.toMillis(READ_TIMEOUT_SECONDS))
+            // Requests run asynchronously so that callers can stop waiting when interrupted, but
+            // there's no point in running more of them than we have connections
+            .property(ClientProperties.ASYNC_THREADPOOL_SIZE, MAX_CONNECTIONS_TOTAL)
+            .register(new JacksonJaxbJsonProvider(mapper, JacksonJaxbJsonProvider.DEFAULT_ANNOTATIONS));
+        if (user != null) {
+            config.register(HttpAuthenticationFeature.basic(user, password));
+        }
+        return ClientBuilder.newClient(config);
+    }
+
+    private static String keyOf(URI apiRootUrl, String user, String password) {
+        if (user == null) {
+            return apiRootUrl.toString();
+        }
+        // Don't keep the plain text password around as a map key
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(user.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(password).getBytes(StandardCharsets.UTF_8));
+            final StringBuilder key = new StringBuilder(apiRootUrl.toString()).append('#');
+            for (byte b : digest.digest()) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * A pooled client for a single API root and credential.
+     */
+    static final class Entry {
+        private final String key;
+        private final URI apiRootUrl;
+        private final Client client;
+        private final PoolingHttpClientConnectionManager connectionManager;
+        private final ValidatorCache validatorCache = new ValidatorCache();
+        private final ValidatorCache pageCache = ValidatorCache.forPages();
+        private final ContentCache contentCache;
+        private final ListingCache listingCache = new ListingCache();
+        private final LookupBatcher lookupBatcher = new LookupBatcher();
+        private final RateLimiter rateLimiter;
+        private final CircuitBreaker circuitBreaker;
+        private int leases;
+        private long lastReleased = System.nanoTime();
+
+        private Entry(String key, URI apiRootUrl, Client client, ContentCache contentCache,
+            RateLimiter rateLimiter, CircuitBreaker circuitBreaker) {
+            this.key = key;
+            this.apiRootUrl = apiRootUrl;
+            this.client = client;
+            this.contentCache = contentCache;
+            this.rateLimiter = rateLimiter;
+            this.circuitBreaker = circuitBreaker;
+            this.connectionManager = (PoolingHttpClientConnectionManager)
+                client.getConfiguration().getProperty(ApacheClientProperties.CONNECTION_MANAGER);
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        URI getApiRootUrl() {
+            return apiRootUrl;
+        }
+
+        Client getClient() {
+            return client;
+        }
+
+        /**
+         * Validators and parsed responses for this client. Scoped to the credential, since
+         * different users may be allowed to see different things at the same URL.
+         */
+        ValidatorCache getValidatorCache() {
+            return validatorCache;
+        }
+
+        /**
+         * Validators and converted pages of streamed listings for this client, scoped like
+         * {@link #getValidatorCache()}.
+         */
+        ValidatorCache getPageCache() {
+            return pageCache;
+        }
+
+        /**
+         * Repository contents read through this client, scoped to the credential for the same reason.
+         */
+        ContentCache getContentCache() {
+            return contentCache;
+        }
+
+        /**
+         * Recent names-only listings, scoped to the credential as well.
+         */
+        ListingCache getListingCache() {
+            return listingCache;
+        }
+
+        /**
+         * Coalesces lookups through this client, scoped to the credential as well.
+         */
+        LookupBatcher getLookupBatcher() {
+            return lookupBatcher;
+        }
+
+        RateLimiter getRateLimiter() {
+            return rateLimiter;
+        }
+
+        CircuitBreaker getCircuitBreaker() {
+            return circuitBreaker;
+        }
+
+        private void close() {
+            try {
+                // Also shuts down the connection manager, since it isn't marked as shared
+                client.close();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.FINE, "Failed to close the DAGsHub client for " + apiRootUrl, e);
+            }
+        }
+    }
+}
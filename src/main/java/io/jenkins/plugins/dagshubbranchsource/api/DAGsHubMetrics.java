@@ -0,0 +1,308 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Counts and times the calls made to DAGsHub servers, per endpoint, and the phases of retrievals, and
+ * counts the calls saved by sharing them, see {@link SingleFlight}.
+ * <p>
+ * Every metric has a fixed name, such as {@code dagshub.api.branches.latency.p95}, so that they can be
+ * published as they are, see {@link #getGauges()}. When the Metrics plugin is installed they show up
+ * there, otherwise {@link #snapshot()} reads them all at once.
+ * <p>
+ * Circuit breakers have metrics of their own, one set per server, see
+ * {@link #getGauges(CircuitBreaker)}.
+ */
+public class DAGsHubMetrics {
+
+    /**
+     * Upper bounds of the latency buckets, in milliseconds.
+     */
+    private static final long[] LATENCY_BOUNDS = {10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+
+    /**
+     * Upper bounds of the response size buckets, in bytes.
+     */
+    private static final long[] SIZE_BOUNDS =
+        {1 << 10, 4 << 10, 16 << 10, 64 << 10, 256 << 10, 1 << 20, 4 << 20};
+
+    /**
+     * The endpoints we call, told apart by the path relative to the API root.
+     */
+    public enum Endpoint {
+        BRANCHES("repos/[^/]+/[^/]+/branches"),
+        BRANCH("repos/[^/]+/[^/]+/branches/.+"),
+        TAGS("repos/[^/]+/[^/]+/tags"),
+        TAG("repos/[^/]+/[^/]+/tags/.+"),
+        PULLS("repos/[^/]+/[^/]+/pulls"),
+        PULL("repos/[^/]+/[^/]+/pulls/\\d+"),
+        CONTENTS("repos/[^/]+/[^/]+/contents(/.*)?"),
+        TREE("repos/[^/]+/[^/]+/git/trees/.+"),
+        BLOB("repos/[^/]+/[^/]+/git/blobs/.+"),
+        COMMIT("repos/[^/]+/[^/]+/git/commits/.+"),
+        HOOKS("repos/[^/]+/[^/]+/hooks(/\\d+)?"),
+        REPOSITORY("repos/[^/]+/[^/]+"),
+        REPOSITORIES("(orgs|users)/[^/]+/repos"),
+        OTHER(".*");
+
+        private final Pattern path;
+
+        Endpoint(String path) {
+            this.path = Pattern.compile(path);
+        }
+
+        /**
+         * @param apiRootUrl the API root the URL is relative to.
+         */
+        public static Endpoint of(URI apiRootUrl, URI url) {
+            final String path = apiRootUrl.relativize(url).getPath();
+            for (Endpoint endpoint : values()) {
+                if (endpoint.path.matcher(path).matches()) {
+                    return endpoint;
+                }
+            }
+            return OTHER;
+        }
+
+        String metricName() {
+            return name().toLowerCase(Locale.ENGLISH);
+        }
+    }
+
+    /**
+     * The phases of a retrieval. Listing phases include checking the criteria of the listed heads,
+     * which is also timed on its own.
+     */
+    public enum Phase {
+        RETRIEVE, REQUESTED_HEADS, BRANCHES, TAGS, PULL_REQUESTS, CRITERIA;
+
+        String metricName() {
+            return name().toLowerCase(Locale.ENGLISH).replace('_', '-');
+        }
+    }
+
+    private final Map<Endpoint, EndpointStats> endpoints = new EnumMap<>(Endpoint.class);
+    private final Map<Phase, Histogram> phases = new EnumMap<>(Phase.class);
+    private final Map<String, Supplier<Number>> gauges;
+
+    public DAGsHubMetrics() {
+        this(new SingleFlight());
+    }
+
+    /**
+     * @param singleFlight shares the calls whose savings are counted.
+     */
+    public DAGsHubMetrics(SingleFlight singleFlight) {
+        for (Endpoint endpoint : Endpoint.values()) {
+            endpoints.put(endpoint, new EndpointStats());
+        }
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, new Histogram(LATENCY_BOUNDS));
+        }
+
+        final Map<String, Supplier<Number>> all = new LinkedHashMap<>();
+        for (Map.Entry<Endpoint, EndpointStats> entry : endpoints.entrySet()) {
+            final String prefix = "dagshub.api." + entry.getKey().metricName() + ".";
+            final EndpointStats stats = entry.getValue();
+            all.put(prefix + "errors", stats.errors::get);
+            for (int statusClass = 2; statusClass <= 5; statusClass++) {
+                final int index = statusClass;
+                all.put(prefix + "status." + statusClass + "xx", () -> stats.statusClasses.get(index));
+            }
+            all.put(prefix + "status.304", stats.notModified::get);
+            all.put(prefix + "status.404", stats.notFound::get);
+            all.put(prefix + "status.429", stats.tooManyRequests::get);
+            stats.latency.addGauges(prefix + "latency", all);
+            stats.size.addGauges(prefix + "size", all);
+        }
+        all.put("dagshub.api.single-flight.saved", singleFlight::getSavedCount);
+        all.put("dagshub.api.single-flight.in-flight", singleFlight::size);
+        for (Map.Entry<Phase, Histogram> entry : phases.entrySet()) {
+            entry.getValue().addGauges("dagshub.retrieve." + entry.getKey().metricName(), all);
+        }
+        this.gauges = Collections.unmodifiableMap(all);
+    }
+
+    /**
+     * Records a response.
+     *
+     * @param size the length of the response body, or a negative number if it isn't known.
+     */
+    public void recordResponse(Endpoint endpoint, int status, long nanos, long size) {
+        final EndpointStats stats = endpoints.get(endpoint);
+        stats.latency.record(TimeUnit.NANOSECONDS.toMillis(nanos));
+        if (size >= 0) {
+            stats.size.record(size);
+        }
+        final int statusClass = status / 100;
+        if (statusClass >= 2 && statusClass <= 5) {
+            stats.statusClasses.incrementAndGet(statusClass);
+        }
+        if (status == 304) {
+            stats.notModified.incrementAndGet();
+        } else if (status == 404) {
+            stats.notFound.incrementAndGet();
+        } else if (status == 429) {
+            stats.tooManyRequests.incrementAndGet();
+        }
+        if (status >= 400) {
+            stats.errors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records a call which got no response at all.
+     */
+    public void recordFailure(Endpoint endpoint, long nanos) {
+        final EndpointStats stats = endpoints.get(endpoint);
+        stats.latency.record(TimeUnit.NANOSECONDS.toMillis(nanos));
+        stats.errors.incrementAndGet();
+    }
+
+    public void recordPhase(Phase phase, long nanos) {
+        phases.get(phase).record(TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    /**
+     * All metrics by name. The names are the same for the lifetime of the instance.
+     */
+    public Map<String, Supplier<Number>> getGauges() {
+        return gauges;
+    }
+
+    /**
+     * The metrics of a server's circuit breaker by name, such as
+     * {@code dagshub.circuit-breaker.dagshub.com_api_v1.state}. The state is the ordinal of its
+     * {@link CircuitBreaker.State}: 0 when closed, 1 when open and 2 when half-open.
+     */
+    public static Map<String, Supplier<Number>> getGauges(CircuitBreaker breaker) {
+        final String prefix = "dagshub.circuit-breaker." + serverName(breaker.getServer()) + ".";
+        final Map<String, Supplier<Number>> gauges = new LinkedHashMap<>();
+        gauges.put(prefix + "state", () -> breaker.getState().ordinal());
+        gauges.put(prefix + "failures", breaker::getFailureCount);
+        gauges.put(prefix + "opened", breaker::getOpenedCount);
+        gauges.put(prefix + "probes", breaker::getProbeCount);
+        return Collections.unmodifiableMap(gauges);
+    }
+
+    /**
+     * An API root URL as part of a metric name, e.g. {@code dagshub.com_api_v1}.
+     */
+    static String serverName(String apiRootUrl) {
+        String name = apiRootUrl.replaceFirst("^[a-zA-Z][a-zA-Z0-9+.-]*://", "");
+        while (name.endsWith("/")) {
+            name = name.substring(0, name.length() - 1);
+        }
+        return name.replaceAll("[^a-zA-Z0-9.-]", "_");
+    }
+
+    /**
+     * The current values of all metrics by name.
+     */
+    public Map<String, Number> snapshot() {
+        final Map<String, Number> values = new LinkedHashMap<>();
+        for (Map.Entry<String, Supplier<Number>> gauge : gauges.entrySet()) {
+            values.put(gauge.getKey(), gauge.getValue().get());
+        }
+        return values;
+    }
+
+    public long getCount(Endpoint endpoint) {
+        return endpoints.get(endpoint).latency.getCount();
+    }
+
+    public long getErrorCount(Endpoint endpoint) {
+        return endpoints.get(endpoint).errors.get();
+    }
+
+    private static final class EndpointStats {
+        private final Histogram latency = new Histogram(LATENCY_BOUNDS);
+        private final Histogram size = new Histogram(SIZE_BOUNDS);
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLongArray statusClasses = new AtomicLongArray(6);
+        private final AtomicLong notModified = new AtomicLong();
+        private final AtomicLong notFound = new AtomicLong();
+        private final AtomicLong tooManyRequests = new AtomicLong();
+    }
+
+    /**
+     * Counts values into fixed buckets. Percentiles are estimated as the upper bound of the bucket they
+     * fall into, or the maximum for the last bucket.
+     */
+    static final class Histogram {
+        private final long[] bounds;
+        private final AtomicLongArray buckets;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        Histogram(long[] bounds) {
+            this.bounds = bounds;
+            this.buckets = new AtomicLongArray(bounds.length + 1);
+        }
+
+        void record(long value) {
+            int bucket = 0;
+            while (bucket < bounds.length && value > bounds[bucket]) {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+            count.incrementAndGet();
+            sum.addAndGet(value);
+            max.accumulateAndGet(value, Math::max);
+        }
+
+        long getCount() {
+            return count.get();
+        }
+
+        long getSum() {
+            return sum.get();
+        }
+
+        long getMax() {
+            return max.get();
+        }
+
+        double getMean() {
+            final long n = count.get();
+            return n == 0 ? 0 : (double) sum.get() / n;
+        }
+
+        long getPercentile(double quantile) {
+            final long n = count.get();
+            if (n == 0) {
+                return 0;
+            }
+            final long rank = (long) Math.ceil(quantile * n);
+            long seen = 0;
+            for (int bucket = 0; bucket < bounds.length; bucket++) {
+                seen += buckets.get(bucket);
+                if (seen >= rank) {
+                    return Math.min(bounds[bucket], max.get());
+                }
+            }
+            return max.get();
+        }
+
+        void addGauges(String prefix, Map<String, Supplier<Number>> gauges) {
+            gauges.put(prefix + ".count", this::getCount);
+            gauges.put(prefix + ".sum", this::getSum);
+            gauges.put(prefix + ".mean", this::getMean);
+            gauges.put(prefix + ".max", this::getMax);
+            gauges.put(prefix + ".p50", () -> getPercentile(0.50));
+            gauges.put(prefix + ".p95", () -> getPercentile(0.95));
+            gauges.put(prefix + ".p99", () -> getPercentile(0.99));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands out a single instance for equal repositories, users, commits and strings bound from the same
+ * response, such as the fork, owner and base branch shared by many pull requests. Repositories and
+ * users are told apart by id.
+ * <p>
+ * Instances are not thread-safe, and are meant to be thrown away with the response.
+ */
+final class Interner {
+
+    private final Map<Long, PullRequestHead.RepositoryRef> repositories = new HashMap<>();
+    private final Map<Long, PullRequestHead.UserRef> users = new HashMap<>();
+    private final Map<String, RefHead.CommitId> commits = new HashMap<>();
+    private final Map<String, String> strings = new HashMap<>();
+
+    PullRequestHead.RepositoryRef repository(PullRequestHead.RepositoryRef repository) {
+        if (repository == null) {
+            return null;
+        }
+        final PullRequestHead.RepositoryRef existing = repositories.get(repository.getId());
+        if (existing != null) {
+            return existing;
+        }
+        repository.setOwner(user(repository.getOwner()));
+        repository.setFullName(string(repository.getFullName()));
+        repositories.put(repository.getId(), repository);
+        return repository;
+    }
+
+    PullRequestHead.UserRef user(PullRequestHead.UserRef user) {
+        if (user == null) {
+            return null;
+        }
+        final PullRequestHead.UserRef existing = users.putIfAbsent(user.getId(), user);
+        if (existing != null) {
+            return existing;
+        }
+        user.setUserName(string(user.getUserName()));
+        return user;
+    }
+
+    RefHead.CommitId commit(RefHead.CommitId commit) {
+        if (commit == null || commit.getId() == null) {
+            return commit;
+        }
+        final RefHead.CommitId existing = commits.putIfAbsent(commit.getId(), commit);
+        return existing == null ? commit : existing;
+    }
+
+    String string(String value) {
+        if (value == null) {
+            return null;
+        }
+        final String existing = strings.putIfAbsent(value, value);
+        return existing == null ? value : existing;
+    }
+
+    /**
+     * The number of distinct repositories seen so far.
+     */
+    int getRepositoryCount() {
+        return repositories.size();
+    }
+}
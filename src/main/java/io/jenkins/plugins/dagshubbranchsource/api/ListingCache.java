@@ -0,0 +1,59 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps complete listings for a short while, so that e.g. rendering a few revision dropdowns in a row
+ * lists each repository only once. Unlike the {@link ValidatorCache}, entries are used without asking
+ * the server at all, so they may be up to {@link #TTL_SECONDS} out of date.
+ * <p>
+ * Cached listings are unmodifiable.
+ */
+public class ListingCache {
+
+    static final long TTL_SECONDS =
+        Long.getLong(ListingCache.class.getName() + ".ttlSeconds", 30L);
+    static final int MAX_ENTRIES =
+        Integer.getInteger(ListingCache.class.getName() + ".maxEntries", 500);
+
+    private final Map<String, Listing> entries =
+        new LinkedHashMap<String, Listing>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Listing> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+
+    @SuppressWarnings("unchecked") // The same key is always stored with the same type
+    synchronized <T> List<T> get(String key) {
+        final Listing listing = entries.get(key);
+        if (listing == null) {
+            return null;
+        }
+        if (System.nanoTime() - listing.created > TimeUnit.SECONDS.toNanos(TTL_SECONDS)) {
+            entries.remove(key);
+            return null;
+        }
+        return (List<T>) listing.items;
+    }
+
+    synchronized void put(String key, List<?> items) {
+        entries.put(key, new Listing(items));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class Listing {
+        private final long created = System.nanoTime();
+        private final List<?> items;
+
+        private Listing(List<?> items) {
+            this.items = items;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces bursts of lookups of single items, such as the branches whose current revisions are
+ * queried when a wave of builds starts.
+ * <p>
+ * A lookup made while no other lookup of the same batch is under way asks for its item right away. One
+ * made while others are under way starts a batch: it waits for {@link #WINDOW_MILLIS}, and every lookup
+ * of the same batch which arrives meanwhile joins it. If at least {@link #LIST_THRESHOLD} items were
+ * asked for, the lister is given their number, and answers as many as it can without listing more pages
+ * than that. Otherwise, or if the listing fails, or lacks an item, each lookup falls back to asking for
+ * its own item.
+ */
+final class LookupBatcher {
+
+    static final long WINDOW_MILLIS =
+        Long.getLong(LookupBatcher.class.getName() + ".windowMillis", 50L);
+    static final int LIST_THRESHOLD =
+        Integer.getInteger(LookupBatcher.class.getName() + ".listThreshold", 5);
+
+    private final long windowMillis;
+    private final int listThreshold;
+    private final Map<String, Batch<?, ?>> open = new HashMap<>();
+    private final Map<String, Integer> underWay = new HashMap<>();
+    private final AtomicLong listings = new AtomicLong();
+    private final AtomicLong fetches = new AtomicLong();
+
+    LookupBatcher() {
+        this(WINDOW_MILLIS, LIST_THRESHOLD);
+    }
+
+    LookupBatcher(long windowMillis, int listThreshold) {
+        this.windowMillis = windowMillis;
+        this.listThreshold = listThreshold;
+    }
+
+    /**
+     * @param batchKey identifies the listing which can answer the lookup, e.g. the branches of a
+     * repository.
+     * @param key the item to look up.
+     * @param lister lists all items of the batch by key.
+     * @param fetcher looks up a single item.
+     * @return the item, or whatever the fetcher returns for it.
+     */
+    <K, T> T lookup(String batchKey, K key, Lister<K, T> lister, Fetcher<K, T> fetcher) throws IOException {
+        if (windowMillis <= 0) {
+            return fetch(fetcher, key);
+        }
+        final Batch<K, T> batch;
+        final boolean leader;
+        synchronized (this) {
+            @SuppressWarnings("unchecked") // The same batch key is always used with the same types
+            Batch<K, T> existing = (Batch<K, T>) open.get(batchKey);
+            // With nothing else under way, there is nothing to wait for
+            final boolean alone = underWay.merge(batchKey, 1, Integer::sum) == 1;
+            leader = existing == null && !alone;
+            if (leader) {
+                existing = new Batch<>();
+                open.put(batchKey, existing);
+            }
+            if (existing != null) {
+                existing.keys.add(key);
+            }
+            batch = existing;
+        }
+        try {
+            final Map<K, T> items = batch == null ? null
+                : leader ? lead(batchKey, batch, lister) : follow(batch);
+            if (items != null && items.containsKey(key)) {
+                return items.get(key);
+            }
+            return fetch(fetcher, key);
+        } finally {
+            synchronized (this) {
+                underWay.computeIfPresent(batchKey, (k, count) -> count == 1 ? null : count - 1);
+            }
+        }
+    }
+
+    private <K, T> Map<K, T> lead(String batchKey, Batch<K, T> batch, Lister<K, T> lister)
+        throws IOException {
+        try {
+            Thread.sleep(windowMillis);
+        } catch (InterruptedException e) {
+            // Let the others look their items up themselves
+            close(batchKey);
+            batch.items.complete(null);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while batching lookups of " + batchKey);
+        }
+        final int size = close(batchKey);
+        Map<K, T> items = null;
+        try {
+            if (size >= listThreshold) {
+                listings.incrementAndGet();
+                items = lister.list(size);
+            }
+        } catch (InterruptedIOException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            // Each lookup gets to report its own failure, if it fails again
+        } finally {
+            batch.items.complete(items);
+        }
+        return items;
+    }
+
+    private static <K, T> Map<K, T> follow(Batch<K, T> batch) throws IOException {
+        try {
+            return batch.items.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a batch of lookups");
+        } catch (ExecutionException e) {
+            // Batches are only ever completed normally
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private synchronized int close(String batchKey) {
+        final Batch<?, ?> batch = open.remove(batchKey);
+        return batch == null ? 0 : batch.keys.size();
+    }
+
+    private <K, T> T fetch(Fetcher<K, T> fetcher, K key) throws IOException {
+        fetches.incrementAndGet();
+        return fetcher.fetch(key);
+    }
+
+    /**
+     * The number of listings made to answer batches.
+     */
+    long getListingCount() {
+        return listings.get();
+    }
+
+    /**
+     * The number of items looked up one by one.
+     */
+    long getFetchCount() {
+        return fetches.get();
+    }
+
+    @FunctionalInterface
+    interface Lister<K, T> {
+        /**
+         * @param keyCount the number of items asked for.
+         * @return items by key, possibly only some of them when listing them all would take at least
+         * as many requests as looking each of the items asked for up.
+         */
+        Map<K, T> list(int keyCount) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface Fetcher<K, T> {
+        T fetch(K key) throws IOException;
+    }
+
+    private static final class Batch<K, T> {
+        private final Set<K> keys = new HashSet<>();
+        private final CompletableFuture<Map<K, T>> items = new CompletableFuture<>();
+    }
+}
@@ -0,0 +1,148 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over a paged list endpoint, fetching the next page only once the previous one has been
+ * consumed.
+ * <p>
+ * Failures to fetch a page are rethrown as {@link UncheckedIOException}.
+ *
+ * @param <T> the type of the listed items
+ */
+public class PagedIterator<T> implements Iterator<T> {
+
+    private final int limit;
+    private final PageFetcher<T> fetcher;
+    private Iterator<T> current = Collections.emptyIterator();
+    private int nextPage = 1;
+    private int pagesFetched;
+    private long itemsFetched;
+    private boolean lastPage;
+
+    /**
+     * @param limit the maximum number of items to request per page.
+     * @param fetcher fetches a single page, counting pages from 1.
+     */
+    public PagedIterator(int limit, PageFetcher<T> fetcher) {
+        this(1, limit, fetcher);
+    }
+
+    /**
+     * @param firstPage the first page to fetch, counting from 1.
+     * @param limit the maximum number of items to request per page.
+     * @param fetcher fetches a single page, counting pages from 1.
+     */
+    public PagedIterator(int firstPage, int limit, PageFetcher<T> fetcher) {
+        if (firstPage <= 0) {
+            throw new IllegalArgumentException("First page must be positive: " + firstPage);
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive: " + limit);
+        }
+        this.limit = limit;
+        this.fetcher = fetcher;
+        this.nextPage = firstPage;
+        // The total count includes the items on the pages we skip
+        this.itemsFetched = (long) (firstPage - 1) * limit;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (lastPage) {
+                return false;
+            }
+            fetchNextPage();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    /**
+     * The number of pages requested from the server so far.
+     */
+    public int getPagesFetched() {
+        return pagesFetched;
+    }
+
+    private void fetchNextPage() {
+        final Page<T> page;
+        try {
+            page = fetcher.fetch(nextPage++, limit);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pagesFetched++;
+        final List<T> items = page.getItems();
+        itemsFetched += page.getListedCount();
+        // A page with more items than we asked for means the server ignores paging, and has sent
+        // everything at once
+        if (page.getListedCount() != limit
+            || (page.getTotalCount() != null && itemsFetched >= page.getTotalCount())) {
+            lastPage = true;
+        }
+        current = items.iterator();
+    }
+
+    /**
+     * Fetches a single page of a list endpoint.
+     */
+    @FunctionalInterface
+    public interface PageFetcher<T> {
+        Page<T> fetch(int page, int limit) throws IOException;
+    }
+
+    /**
+     * A single page of a list endpoint.
+     */
+    public static class Page<T> {
+        private final List<T> items;
+        private final int listedCount;
+        private final Long totalCount;
+
+        /**
+         * @param items the items on this page.
+         * @param totalCount the total number of items across all pages, if the server reported it.
+         */
+        public Page(List<T> items, Long totalCount) {
+            this(items, items == null ? 0 : items.size(), totalCount);
+        }
+
+        /**
+         * @param items the items on this page which the caller is interested in.
+         * @param listedCount the number of items the server listed on this page, including those which
+         * were left out of {@code items}.
+         * @param totalCount the total number of items across all pages, if the server reported it.
+         */
+        public Page(List<T> items, int listedCount, Long totalCount) {
+            this.items = items == null ? Collections.emptyList() : items;
+            this.listedCount = listedCount;
+            this.totalCount = totalCount;
+        }
+
+        public List<T> getItems() {
+            return items;
+        }
+
+        public int getListedCount() {
+            return listedCount;
+        }
+
+        public Long getTotalCount() {
+            return totalCount;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drains an iterator on a background thread into a bounded buffer, so that slow remote listings
+ * (such as the {@link PagedIterator}s of {@link DAGsHubApi}) can make progress while the consumer is
+ * still busy with something else.
+ * <p>
+ * The buffer bounds how far ahead of the consumer we fetch. If no executor thread has picked up the
+ * background task by the time the consumer needs an item, the consumer iterates the source itself,
+ * so a saturated executor can delay a listing but never deadlock it.
+ * <p>
+ * {@link #close()} cancels the background task, interrupting it if it is running.
+ *
+ * @param <T> the type of the listed items
+ */
+public class Prefetcher<T> implements AutoCloseable {
+
+    private static final Object END = new Object();
+
+    private final Iterator<T> source;
+    private final BlockingQueue<Object> buffer;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+    private final Future<?> task;
+    private volatile Throwable failure;
+    private boolean inline;
+    private Object next;
+
+    /**
+     * @param source the iterator to drain.
+     * @param bufferSize the maximum number of items fetched ahead of the consumer.
+     * @param executor the executor to drain the iterator on.
+     */
+    public Prefetcher(Iterator<T> source, int bufferSize, ExecutorService executor) {
+        this.source = source;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize + 1);
+        Future<?> submitted;
+        try {
+            submitted = executor.submit(this::drain);
+        } catch (RejectedExecutionException e) {
+            submitted = null;
+        }
+        this.task = submitted;
+    }
+
+    private void drain() {
+        if (!claimed.compareAndSet(false, true)) {
+            // The consumer got here first and iterates the source itself
+            return;
+        }
+        boolean cancelled = false;
+        try {
+            while (source.hasNext()) {
+                buffer.put(source.next());
+            }
+        } catch (InterruptedException e) {
+            // Cancelled by close(), nobody is waiting for more items
+            cancelled = true;
+        } catch (Throwable e) {
+            // Errors too, or the consumer would wait for the end of the listing for ever
+            failure = e;
+        } finally {
+            if (!cancelled) {
+                try {
+                    buffer.put(END);
+                } catch (InterruptedException e) {
+                    // Cancelled by close()
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for the next item to become available.
+     *
+     * @return whether there is another item.
+     * @throws IOException if listing failed.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean hasNext() throws IOException, InterruptedException {
+        if (next != null) {
+            return next != END;
+        }
+        if (!inline && claimed.compareAndSet(false, true)) {
+            inline = true;
+        }
+        if (inline) {
+            try {
+                next = source.hasNext() ? source.next() : END;
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return next != END;
+        }
+        next = buffer.take();
+        if (next == END && failure != null) {
+            if (failure instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) failure).getCause();
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw new IOException(failure);
+        }
+        return next != END;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T next() throws IOException, InterruptedException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final T item = (T) next;
+        next = null;
+        return item;
+    }
+
+    @Override
+    public void close() {
+        claimed.set(true);
+        if (task != null) {
+            task.cancel(true);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,225 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import io.jenkins.plugins.dagshubbranchsource.git.PullRequestSCMHead;
+import io.jenkins.plugins.dagshubbranchsource.git.PullRequestSCMRevision;
+import jenkins.plugins.git.GitBranchSCMHead;
+import jenkins.plugins.git.GitBranchSCMRevision;
+import jenkins.scm.api.SCMHeadOrigin;
+import jenkins.scm.api.SCMHeadOrigin.Fork;
+import jenkins.scm.api.mixin.ChangeRequestCheckoutStrategy;
+
+/**
+ * Just enough of a {@link PullRequest} to make its revisions, without its body, people and most of its
+ * repositories.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategy.SnakeCaseStrategy.class)
+public class PullRequestHead {
+    private long id;
+    private long number;
+    private String title;
+    private PullRequest.State state;
+    private String headBranch;
+    private RefHead.CommitId headCommit;
+    private RepositoryRef headRepo;
+    private String baseBranch;
+    private RefHead.CommitId baseCommit;
+    private RepositoryRef baseRepo;
+    private boolean sameOrigin;
+
+    /**
+     * Like {@link PullRequest#toRev(ChangeRequestCheckoutStrategy)}.
+     */
+    public PullRequestSCMRevision toRev(ChangeRequestCheckoutStrategy strategy) {
+        final GitBranchSCMHead targetHead = new GitBranchSCMHead(baseBranch);
+        return new PullRequestSCMRevision(
+            new PullRequestSCMHead(
+                "PR-" + number + "-" + strategy.name(),
+                id,
+                number,
+                targetHead,
+                strategy,
+                sameOrigin ? SCMHeadOrigin.DEFAULT : new Fork(headRepo.getFullName()),
+                headRepo.getOwner().getUserName(),
+                baseRepo.getHtmlUrl(),
+                headBranch,
+                title),
+            new GitBranchSCMRevision(targetHead, baseCommit.getId()),
+            new GitBranchSCMRevision(new GitBranchSCMHead(headBranch), headCommit.getId())
+        );
+    }
+
+    /**
+     * Replaces the repositories, users and strings also found in other pull requests of the same
+     * response by the instances seen first, so that the revisions made from them share those.
+     */
+    void intern(Interner interner) {
+        headBranch = interner.string(headBranch);
+        baseBranch = interner.string(baseBranch);
+        headCommit = interner.commit(headCommit);
+        baseCommit = interner.commit(baseCommit);
+        headRepo = interner.repository(headRepo);
+        baseRepo = interner.repository(baseRepo);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public long getNumber() {
+        return number;
+    }
+
+    public void setNumber(long number) {
+        this.number = number;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public PullRequest.State getState() {
+        return state;
+    }
+
+    public void setState(PullRequest.State state) {
+        this.state = state;
+    }
+
+    public String getHeadBranch() {
+        return headBranch;
+    }
+
+    public void setHeadBranch(String headBranch) {
+        this.headBranch = headBranch;
+    }
+
+    public RefHead.CommitId getHeadCommit() {
+        return headCommit;
+    }
+
+    public void setHeadCommit(RefHead.CommitId headCommit) {
+        this.headCommit = headCommit;
+    }
+
+    public RepositoryRef getHeadRepo() {
+        return headRepo;
+    }
+
+    public void setHeadRepo(RepositoryRef headRepo) {
+        this.headRepo = headRepo;
+    }
+
+    public String getBaseBranch() {
+        return baseBranch;
+    }
+
+    public void setBaseBranch(String baseBranch) {
+        this.baseBranch = baseBranch;
+    }
+
+    public RefHead.CommitId getBaseCommit() {
+        return baseCommit;
+    }
+
+    public void setBaseCommit(RefHead.CommitId baseCommit) {
+        this.baseCommit = baseCommit;
+    }
+
+    public RepositoryRef getBaseRepo() {
+        return baseRepo;
+    }
+
+    public void setBaseRepo(RepositoryRef baseRepo) {
+        this.baseRepo = baseRepo;
+    }
+
+    public boolean isSameOrigin() {
+        return sameOrigin;
+    }
+
+    public void setSameOrigin(boolean sameOrigin) {
+        this.sameOrigin = sameOrigin;
+    }
+
+    /**
+     * Just enough of a {@link Repository} to name it, without its parent.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonNaming(PropertyNamingStrategy.SnakeCaseStrategy.class)
+    public static class RepositoryRef {
+        private long id;
+        private UserRef owner;
+        private String fullName;
+        private String htmlUrl;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public UserRef getOwner() {
+            return owner;
+        }
+
+        public void setOwner(UserRef owner) {
+            this.owner = owner;
+        }
+
+        public String getFullName() {
+            return fullName;
+        }
+
+        public void setFullName(String fullName) {
+            this.fullName = fullName;
+        }
+
+        public String getHtmlUrl() {
+            return htmlUrl;
+        }
+
+        public void setHtmlUrl(String htmlUrl) {
+            this.htmlUrl = htmlUrl;
+        }
+    }
+
+    /**
+     * Just the name of a {@link User}.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonNaming(PropertyNamingStrategy.SnakeCaseStrategy.class)
+    public static class UserRef {
+        private long id;
+        private String userName;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getUserName() {
+            return userName;
+        }
+
+        public void setUserName(String userName) {
+            this.userName = userName;
+        }
+    }
+}
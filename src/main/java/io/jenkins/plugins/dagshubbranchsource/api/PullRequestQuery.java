@@ -0,0 +1,99 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import javax.ws.rs.client.WebTarget;
+
+/**
+ * Filters and orders a listing of pull requests on the server, see
+ * {@link DAGsHubApi#iteratePulls(PullRequestQuery)}. Unset parameters are left to the server's
+ * defaults.
+ */
+public class PullRequestQuery {
+
+    public enum State {
+        open, closed, all
+    }
+
+    /**
+     * Only {@link #oldest} keeps its order while pull requests are updated, so it is the only one to
+     * page through when every pull request must be listed. With the others, a pull request updated
+     * during a listing moves to another page, and is then listed twice or not at all.
+     */
+    public enum Sort {
+        oldest, recentupdate, leastupdate, mostcomment, leastcomment, priority
+    }
+
+    private State state;
+    private Sort sort;
+    private int page = 1;
+    private int limit = DAGsHubApi.PAGE_SIZE;
+
+    /**
+     * Only the open pull requests, oldest first, so that listing all of them page by page neither
+     * misses nor repeats any which are updated meanwhile. Ask for {@link Sort#recentupdate} explicitly
+     * to see the most recently updated ones first, when not all of them are needed.
+     */
+    public static PullRequestQuery open() {
+        return new PullRequestQuery().withState(State.open).withSort(Sort.oldest);
+    }
+
+    public PullRequestQuery withState(State state) {
+        this.state = state;
+        return this;
+    }
+
+    public PullRequestQuery withSort(Sort sort) {
+        this.sort = sort;
+        return this;
+    }
+
+    /**
+     * @param page the first page to list, counting from 1.
+     */
+    public PullRequestQuery withPage(int page) {
+        if (page <= 0) {
+            throw new IllegalArgumentException("Page must be positive: " + page);
+        }
+        this.page = page;
+        return this;
+    }
+
+    /**
+     * @param limit the number of pull requests to request per page.
+     */
+    public PullRequestQuery withLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive: " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Adds the filter and order parameters to a target. Paging is up to the caller.
+     */
+    WebTarget applyTo(WebTarget target) {
+        if (state != null) {
+            target = target.queryParam("state", state.name());
+        }
+        if (sort != null) {
+            target = target.queryParam("sort", sort.name());
+        }
+        return target;
+    }
+}
@@ -0,0 +1,40 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * Just enough of a {@link PullRequest} to name its heads, without its users, commits and repositories.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategy.SnakeCaseStrategy.class)
+public class PullRequestSummary {
+    private long number;
+    private PullRequest.State state;
+    private boolean sameOrigin;
+
+    public long getNumber() {
+        return number;
+    }
+
+    public void setNumber(long number) {
+        this.number = number;
+    }
+
+    public PullRequest.State getState() {
+        return state;
+    }
+
+    public void setState(PullRequest.State state) {
+        this.state = state;
+    }
+
+    public boolean isSameOrigin() {
+        return sameOrigin;
+    }
+
+    public void setSameOrigin(boolean sameOrigin) {
+        this.sameOrigin = sameOrigin;
+    }
+}
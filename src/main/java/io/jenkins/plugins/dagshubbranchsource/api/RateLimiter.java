@@ -0,0 +1,234 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * A token bucket shared by every client talking to the same DAGsHub server, so that many sources
+ * indexing at once slow down together instead of running into the server's rate limit.
+ * <p>
+ * Requests are not held back at all until the server says it limits them. Once a response has
+ * {@code X-RateLimit-*} headers, the bucket holds the requests remaining in that window, and when they
+ * run out no requests are made until its reset. No requests are made while a {@code Retry-After} is
+ * pending either. A server which answers {@code 429 Too Many Requests} without telling us its window
+ * is sent at most {@link #REQUESTS_PER_SECOND}, with bursts of {@link #BURST}, from then on, until it
+ * does.
+ */
+public class RateLimiter {
+
+    /**
+     * The rate for servers which rate limit us without {@code X-RateLimit-*} headers.
+     */
+    static final int REQUESTS_PER_SECOND =
+        Integer.getInteger(RateLimiter.class.getName() + ".requestsPerSecond", 10);
+    static final int BURST =
+        Integer.getInteger(RateLimiter.class.getName() + ".burst", 20);
+
+    /**
+     * The longest we are willing to wait for a single request, however long the server asks for.
+     */
+    static final long MAX_WAIT_SECONDS =
+        Long.getLong(RateLimiter.class.getName() + ".maxWaitSeconds", 300L);
+
+    static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    static final String RESET_HEADER = "X-RateLimit-Reset";
+    static final String RETRY_AFTER_HEADER = "Retry-After";
+    static final int TOO_MANY_REQUESTS = 429;
+
+    /**
+     * How long to hold off after a {@code 429 Too Many Requests} that didn't say for how long.
+     */
+    private static final long DEFAULT_BACKOFF_SECONDS = 5L;
+
+    /**
+     * Reset values above this are epoch seconds rather than seconds from now.
+     */
+    private static final long EPOCH_THRESHOLD = 1_000_000_000L;
+
+    /**
+     * Windows ending this close together are taken to be the same one, whatever the rounding of the
+     * reset.
+     */
+    private static final long SAME_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private boolean limited;
+    /**
+     * Whether the tokens are what is left of a window the server told us about, until
+     * {@link #windowEnd}. The bucket is not refilled within a window.
+     */
+    private boolean windowed;
+    private long windowEnd;
+    private double ratePerNano;
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+    private long blockedUntil = lastRefill;
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong waitedNanos = new AtomicLong();
+
+    /**
+     * Takes a token, waiting for one if needed.
+     *
+     * @param onWait told how many nanoseconds we are about to wait, before each wait.
+     * @return the number of nanoseconds waited.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    long acquire(LongConsumer onWait) throws InterruptedException {
+        long waited = 0;
+        while (true) {
+            long wait;
+            synchronized (this) {
+                final long now = System.nanoTime();
+                refill(now);
+                if (windowed && now - windowEnd >= 0) {
+                    // Past the reset, we don't know the next window until the server tells us
+                    limited = false;
+                    windowed = false;
+                }
+                if (now - blockedUntil < 0) {
+                    wait = blockedUntil - now;
+                } else if (!limited) {
+                    break;
+                } else if (tokens >= 1) {
+                    tokens -= 1;
+                    break;
+                } else if (windowed) {
+                    wait = windowEnd - now;
+                } else {
+                    wait = (long) Math.ceil((1 - tokens) / ratePerNano);
+                }
+            }
+            wait = Math.min(wait, TimeUnit.SECONDS.toNanos(MAX_WAIT_SECONDS) - waited);
+            if (wait <= 0) {
+                // Waited long enough, let the server decide
+                break;
+            }
+            if (waited == 0) {
+                throttled.incrementAndGet();
+            }
+            onWait.accept(wait);
+            TimeUnit.NANOSECONDS.sleep(wait);
+            waited += wait;
+        }
+        waitedNanos.addAndGet(waited);
+        return waited;
+    }
+
+    /**
+     * Adapts to the rate limit headers of a response.
+     *
+     * @param status the status of the response.
+     * @param remaining the {@code X-RateLimit-Remaining} header, if any.
+     * @param reset the {@code X-RateLimit-Reset} header, if any.
+     * @param retryAfter the {@code Retry-After} header, if any.
+     */
+    synchronized void update(int status, String remaining, String reset, String retryAfter) {
+        final long now = System.nanoTime();
+        final Long retryAfterSeconds = parseRetryAfter(retryAfter);
+        if (retryAfterSeconds != null) {
+            blockFor(now, retryAfterSeconds);
+        }
+        final Long remainingRequests = parseLong(remaining);
+        final Long resetSeconds = parseReset(reset);
+        if (remainingRequests != null && resetSeconds != null) {
+            final long end =
+                now + TimeUnit.SECONDS.toNanos(Math.max(0, Math.min(resetSeconds, MAX_WAIT_SECONDS)));
+            if (windowed && Math.abs(end - windowEnd) <= SAME_WINDOW_NANOS) {
+                // Requests we let through since this one may not have reached the server yet
+                tokens = Math.min(tokens, remainingRequests);
+            } else {
+                tokens = Math.max(0, remainingRequests);
+            }
+            limited = true;
+            windowed = true;
+            windowEnd = end;
+            ratePerNano = 0;
+            return;
+        }
+        if (status == TOO_MANY_REQUESTS) {
+            if (retryAfterSeconds == null) {
+                // Rate limited without being told for how long
+                blockFor(now, DEFAULT_BACKOFF_SECONDS);
+            }
+            if (!windowed) {
+                limited = true;
+                ratePerNano = REQUESTS_PER_SECOND / 1e9;
+                tokens = 0;
+                lastRefill = now;
+            }
+        }
+    }
+
+    /**
+     * The number of requests which had to wait.
+     */
+    public long getThrottledCount() {
+        return throttled.get();
+    }
+
+    /**
+     * The total time requests have waited, in milliseconds.
+     */
+    public long getWaitedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitedNanos.get());
+    }
+
+    private void refill(long now) {
+        if (limited && !windowed) {
+            tokens = Math.min(BURST, tokens + (now - lastRefill) * ratePerNano);
+        }
+        lastRefill = now;
+    }
+
+    private void blockFor(long now, long seconds) {
+        final long clamped = Math.max(0, Math.min(seconds, MAX_WAIT_SECONDS));
+        final long until = now + TimeUnit.SECONDS.toNanos(clamped);
+        if (until - blockedUntil > 0) {
+            blockedUntil = until;
+        }
+    }
+
+    private static Long parseLong(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the seconds until the reset, whether the header has epoch seconds or a delay.
+     */
+    private static Long parseReset(String reset) {
+        final Long value = parseLong(reset);
+        if (value == null || value < EPOCH_THRESHOLD) {
+            return value;
+        }
+        return value - System.currentTimeMillis() / 1000;
+    }
+
+    /**
+     * @return the seconds to wait, whether the header has a delay or an HTTP date.
+     */
+    private static Long parseRetryAfter(String retryAfter) {
+        if (retryAfter == null) {
+            return null;
+        }
+        final Long seconds = parseLong(retryAfter);
+        if (seconds != null) {
+            return seconds;
+        }
+        try {
+            return ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                .toEpochSecond() - System.currentTimeMillis() / 1000;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
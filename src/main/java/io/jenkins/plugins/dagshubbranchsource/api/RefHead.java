@@ -0,0 +1,82 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.time.ZonedDateTime;
+import jenkins.plugins.git.GitBranchSCMHead;
+import jenkins.plugins.git.GitBranchSCMRevision;
+import jenkins.plugins.git.GitTagSCMHead;
+import jenkins.plugins.git.GitTagSCMRevision;
+
+/**
+ * Just enough of a {@link Branch} or {@link Tag} to make its revision, without the commit message and
+ * people.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RefHead {
+    private String name;
+    private CommitId commit;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public CommitId getCommit() {
+        return commit;
+    }
+
+    public void setCommit(CommitId commit) {
+        this.commit = commit;
+    }
+
+    /**
+     * Like {@link Branch#toRev()}.
+     */
+    public GitBranchSCMRevision toBranchRev() {
+        return new GitBranchSCMRevision(new GitBranchSCMHead(name), commit.getId());
+    }
+
+    /**
+     * Like {@link Tag#toRev()}.
+     */
+    public GitTagSCMRevision toTagRev() {
+        return new GitTagSCMRevision(new GitTagSCMHead(name, commit.getTimeMillis()), commit.getId());
+    }
+
+    /**
+     * Only the SHA and time of a {@link Commit}.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class CommitId {
+        private String id;
+        private ZonedDateTime timestamp;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public ZonedDateTime getTimestamp() {
+            return timestamp;
+        }
+
+        public void setTimestamp(ZonedDateTime timestamp) {
+            this.timestamp = timestamp;
+        }
+
+        /**
+         * Like {@link Commit#getTimeMillis()}.
+         */
+        @JsonIgnore
+        public long getTimeMillis() {
+            return timestamp == null ? 0L : timestamp.toInstant().toEpochMilli();
+        }
+    }
+}
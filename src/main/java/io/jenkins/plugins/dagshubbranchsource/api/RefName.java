@@ -0,0 +1,19 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Only the name of a {@link Branch} or {@link Tag}, for listings which need nothing else.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RefName {
+    private String name;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
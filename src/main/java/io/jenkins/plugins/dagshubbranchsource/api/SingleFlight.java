@@ -0,0 +1,97 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets concurrent identical requests share a single call. The first caller for a key makes the call,
+ * and everyone asking for the same key until it completes gets its result, or its failure.
+ * <p>
+ * Like those of the {@link ValidatorCache}, shared results must be treated as read-only.
+ */
+public class SingleFlight {
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new HashMap<>();
+    private final AtomicLong saved = new AtomicLong();
+
+    /**
+     * @param key identifies the call, including anything its result depends on, such as the credential.
+     */
+    @SuppressWarnings("unchecked") // The same key is always used with the same type
+    <T> T execute(String key, Call<T> call) throws IOException {
+        while (true) {
+            final CompletableFuture<Object> flight;
+            final boolean leader;
+            synchronized (this) {
+                final CompletableFuture<Object> existing = inFlight.get(key);
+                leader = existing == null;
+                flight = leader ? new CompletableFuture<>() : existing;
+                if (leader) {
+                    inFlight.put(key, flight);
+                }
+            }
+
+            if (leader) {
+                try {
+                    final T value = call.call();
+                    flight.complete(value);
+                    return value;
+                } catch (IOException | RuntimeException | Error e) {
+                    flight.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    synchronized (this) {
+                        inFlight.remove(key, flight);
+                    }
+                }
+            }
+
+            try {
+                final Object value = flight.get();
+                saved.incrementAndGet();
+                return (T) value;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a shared request");
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof InterruptedIOException) {
+                    // The caller who made the call was interrupted, but we weren't, so try again
+                    continue;
+                }
+                saved.incrementAndGet();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw (Error) cause;
+            }
+        }
+    }
+
+    /**
+     * The number of calls saved by sharing the result of another one.
+     */
+    public long getSavedCount() {
+        return saved.get();
+    }
+
+    /**
+     * The number of calls currently in flight.
+     */
+    public synchronized int size() {
+        return inFlight.size();
+    }
+
+    @FunctionalInterface
+    interface Call<T> {
+        T call() throws IOException;
+    }
+}
@@ -30,7 +30,7 @@ public class Tag {
 
     public GitTagSCMRevision toRev() {
         return new GitTagSCMRevision(
-            new GitTagSCMHead(getName(), 0L /* TODO */),
+            new GitTagSCMHead(getName(), getCommit().getTimeMillis()),
             getCommit().getId());
     }
 }
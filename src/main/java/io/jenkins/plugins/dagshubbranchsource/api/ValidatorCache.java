@@ -0,0 +1,123 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * Remembers the validators ({@code ETag} and {@code Last-Modified}) the server sent for a URL,
+ * together with the response already parsed from it, so that the next request for the same URL can
+ * be made conditional and a {@code 304 Not Modified} answered from memory.
+ * <p>
+ * Cached values are shared between callers and must be treated as read-only.
+ * The cache keeps the most recently used {@link #MAX_ENTRIES} URLs. Streamed listings, which a scan
+ * goes through page by page, are kept apart, see {@link #forPages()}, so that a scan does not push out
+ * everything else.
+ */
+public class ValidatorCache {
+
+    static final int MAX_ENTRIES =
+        Integer.getInteger(ValidatorCache.class.getName() + ".maxEntries", 2000);
+
+    /**
+     * The number of converted items the pages of streamed listings may hold together.
+     */
+    static final int MAX_PAGE_ITEMS =
+        Integer.getInteger(ValidatorCache.class.getName() + ".maxPageItems", 10_000);
+
+    private final int maxWeight;
+    private final ToIntFunction<Object> weigher;
+    private final Map<String, Validated> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private int weight;
+    private final AtomicLong notModified = new AtomicLong();
+
+    public ValidatorCache() {
+        this(MAX_ENTRIES, value -> 1);
+    }
+
+    /**
+     * @param maxWeight the most the values may weigh together.
+     * @param weigher weighs a value.
+     */
+    ValidatorCache(int maxWeight, ToIntFunction<Object> weigher) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * A cache for the converted pages of streamed listings, bounded by the number of items on them
+     * rather than the number of pages, see {@link #MAX_PAGE_ITEMS}.
+     */
+    static ValidatorCache forPages() {
+        return new ValidatorCache(MAX_PAGE_ITEMS,
+            value -> 1 + ((PagedIterator.Page<?>) value).getItems().size());
+    }
+
+    synchronized Validated get(String url) {
+        return entries.get(url);
+    }
+
+    synchronized void put(String url, String etag, String lastModified, Object value) {
+        final Validated removed = entries.remove(url);
+        if (removed != null) {
+            weight -= removed.weight;
+        }
+        final int valueWeight = weigher.applyAsInt(value);
+        if (etag == null && lastModified == null || valueWeight > maxWeight) {
+            return;
+        }
+        entries.put(url, new Validated(etag, lastModified, value, valueWeight));
+        weight += valueWeight;
+        final Iterator<Validated> eldest = entries.values().iterator();
+        while (weight > maxWeight) {
+            weight -= eldest.next().weight;
+            eldest.remove();
+        }
+    }
+
+    void recordNotModified() {
+        notModified.incrementAndGet();
+    }
+
+    /**
+     * The number of responses answered from this cache after a {@code 304 Not Modified}.
+     */
+    public long getNotModifiedCount() {
+        return notModified.get();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * A previously parsed response, with the validators needed to revalidate it.
+     */
+    static final class Validated {
+        private final String etag;
+        private final String lastModified;
+        private final Object value;
+        private final int weight;
+
+        private Validated(String etag, String lastModified, Object value, int weight) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.value = value;
+            this.weight = weight;
+        }
+
+        String getETag() {
+            return etag;
+        }
+
+        String getLastModified() {
+            return lastModified;
+        }
+
+        Object getValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package io.jenkins.plugins.dagshubbranchsource.git;
+
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.plugins.git.GitException;
+import hudson.plugins.git.GitSCM;
+import hudson.plugins.git.extensions.GitSCMExtension;
+import java.io.IOException;
+import java.util.concurrent.locks.ReentrantLock;
+import org.eclipse.jgit.transport.RemoteConfig;
+import org.eclipse.jgit.transport.URIish;
+import org.jenkinsci.plugins.gitclient.CloneCommand;
+import org.jenkinsci.plugins.gitclient.GitClient;
+
+/**
+ * Keeps a bare mirror of the repository on each agent, and clones workspaces with it as their reference
+ * repository. Before each checkout the mirror fetches the same refspecs as the checkout itself, so the
+ * objects of a head come over the network once per agent, and new workspaces borrow them from disk.
+ * <p>
+ * The mirror only ever grows: it collects the heads built on the agent, and must never be pruned or
+ * garbage collected. Workspaces cloned from it borrow its objects through {@code objects/info/alternates}
+ * rather than copying them, and the forced refspecs it fetches leave objects unreachable in the mirror
+ * which those workspaces still need, so pruning them would corrupt the workspaces. {@code git fetch} runs
+ * {@code gc --auto} and auto maintenance on its own, so both are turned off in the mirror's configuration.
+ * Failing to update the mirror does not fail the build, which then fetches whatever it lacks from the
+ * remote.
+ * <p>
+ * Mirrors live under {@code caches/dagshub-mirrors} in the root of the agent, one per remote URL.
+ * Updates of a mirror are serialized by the controller, which is what schedules builds on the agent.
+ */
+public class MirrorCacheSCMExtension extends GitSCMExtension {
+
+    private static final String MIRRORS_DIR = "caches/dagshub-mirrors";
+
+    /**
+     * Keeps git from ever pruning objects in the mirror, see git-gc(1) and git-maintenance(1).
+     */
+    private static final String NO_GC_CONFIG = "[gc]\n\tauto = 0\n\tautoDetach = false\n"
+        + "\tpruneExpire = never\n\treflogExpire = never\n\treflogExpireUnreachable = never\n"
+        + "[maintenance]\n\tauto = false\n";
+
+    /**
+     * Held while a mirror is updated, see {@link #lockFor(Node, FilePath)}. A fixed number of them, rather
+     * than one for every agent and mirror ever seen, which would only grow as agents come and go.
+     */
+    private static final ReentrantLock[] LOCKS = new ReentrantLock[256];
+
+    static {
+        for (int i = 0; i < LOCKS.length; i++) {
+            LOCKS[i] = new ReentrantLock();
+        }
+    }
+
+    // No descriptor: like the extensions the git plugin adds for SCM API implementations, this is only
+    // ever added by MirrorCacheTrait, never configured by hand.
+
+    @Override
+    public void beforeCheckout(GitSCM scm, Run<?, ?> build, GitClient git, TaskListener listener)
+        throws IOException, InterruptedException, GitException {
+        final RemoteConfig remote = remoteOf(scm);
+        final Node node = nodeOf(git);
+        final FilePath mirror = mirrorFor(node, remote);
+        if (mirror == null) {
+            return;
+        }
+        final ReentrantLock lock = lockFor(node, mirror);
+        lock.lockInterruptibly();
+        try {
+            final EnvVars env = build.getEnvironment(listener);
+            final GitClient mirrorGit = scm.createClient(listener, env, build, mirror);
+            final URIish uri = remote.getURIs().get(0);
+            if (!mirror.child("HEAD").exists()) {
+                listener.getLogger().format("Creating a mirror of %s in %s%n", uri, mirror);
+                mirror.mkdirs();
+                mirrorGit.init_().workspace(mirror.getRemote()).bare(true).execute();
+            }
+            disableGc(mirror);
+            listener.getLogger().format("Updating the mirror of %s%n", uri);
+            mirrorGit.fetch_()
+                .from(uri, remote.getFetchRefSpecs())
+                .tags(false)
+                .execute();
+        } catch (GitException | IOException e) {
+            listener.getLogger().format("Failed to update the mirror in %s, checking out without it: %s%n",
+                mirror, e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void decorateCloneCommand(GitSCM scm, Run<?, ?> build, GitClient git, TaskListener listener,
+        CloneCommand cmd) throws IOException, InterruptedException, GitException {
+        final FilePath mirror = mirrorFor(nodeOf(git), remoteOf(scm));
+        // Without gc turned off, the mirror could prune objects the new workspace relies on
+        if (mirror != null && mirror.child("HEAD").exists() && isGcDisabled(mirror)) {
+            listener.getLogger().format("Using the mirror in %s as a reference repository%n", mirror);
+            cmd.reference(mirror.getRemote());
+        }
+    }
+
+    /**
+     * Turns off garbage collection in a mirror, unless it already is, e.g. for mirrors created before it
+     * was turned off on creation.
+     */
+    private static void disableGc(FilePath mirror) throws IOException, InterruptedException {
+        if (!isGcDisabled(mirror)) {
+            final FilePath config = mirror.child("config");
+            final String current = config.readToString();
+            config.write(current + (current.endsWith("\n") ? "" : "\n") + NO_GC_CONFIG, "UTF-8");
+        }
+    }
+
+    private static boolean isGcDisabled(FilePath mirror) throws IOException, InterruptedException {
+        final FilePath config = mirror.child("config");
+        return config.exists() && config.readToString().contains(NO_GC_CONFIG);
+    }
+
+    private static RemoteConfig remoteOf(GitSCM scm) {
+        return scm.getRepositories().get(0);
+    }
+
+    private static Node nodeOf(GitClient git) {
+        final Computer computer = git.getWorkTree().toComputer();
+        return computer == null ? null : computer.getNode();
+    }
+
+    /**
+     * The lock serializing updates of a mirror on a node. Updates of unrelated mirrors rarely share one,
+     * and then only wait for each other.
+     */
+    private static ReentrantLock lockFor(Node node, FilePath mirror) {
+        return LOCKS[Math.floorMod((node.getNodeName() + ':' + mirror.getRemote()).hashCode(), LOCKS.length)];
+    }
+
+    /**
+     * The mirror of a remote on a node, or {@code null} if the node is not connected.
+     */
+    static FilePath mirrorFor(Node node, RemoteConfig remote) {
+        final FilePath root = node == null ? null : node.getRootPath();
+        if (root == null) {
+            return null;
+        }
+        final URIish uri = remote.getURIs().get(0);
+        return root.child(MIRRORS_DIR).child(Util.getDigestOf(uri.toString()) + ".git");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o != null && getClass() == o.getClass();
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "MirrorCacheSCMExtension{}";
+    }
+}
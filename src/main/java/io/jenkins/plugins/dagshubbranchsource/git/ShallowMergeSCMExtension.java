@@ -0,0 +1,213 @@
+package io.jenkins.plugins.dagshubbranchsource.git;
+
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.cloudbees.plugins.credentials.common.StandardUsernameCredentials;
+import com.cloudbees.plugins.credentials.domains.URIRequirementBuilder;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.plugins.git.GitException;
+import hudson.plugins.git.GitSCM;
+import hudson.plugins.git.Revision;
+import io.jenkins.plugins.dagshubbranchsource.api.Branch;
+import io.jenkins.plugins.dagshubbranchsource.api.DAGsHubApi;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URISyntaxException;
+import jenkins.plugins.git.MergeWithGitSCMExtension;
+import org.eclipse.jgit.transport.RemoteConfig;
+import org.jenkinsci.plugins.gitclient.CloneCommand;
+import org.jenkinsci.plugins.gitclient.FetchCommand;
+import org.jenkinsci.plugins.gitclient.GitClient;
+
+/**
+ * Merges the target branch of a pull request into it, like {@link MergeWithGitSCMExtension}, but from a
+ * shallow clone just deep enough for the merge.
+ * <p>
+ * Before the checkout, DAGsHub is asked how far the pull request head, the target commit to merge and
+ * the current tip of the target branch, which is what gets fetched, are from each other. The clone and
+ * fetches then take only the configured refspecs, without tags, that many commits deep. If DAGsHub can't
+ * tell, the whole history is fetched as {@link MergeWithGitSCMExtension} would. If the merge still fails
+ * in a shallow clone, e.g. because the target branch moved again meanwhile, the whole history is fetched
+ * and the merge tried once more.
+ */
+public class ShallowMergeSCMExtension extends MergeWithGitSCMExtension {
+
+    /**
+     * Makes git fetch the whole history, see {@code --unshallow} in git-fetch(1).
+     */
+    private static final int UNSHALLOW_DEPTH = Integer.MAX_VALUE;
+
+    @NonNull
+    private final String headHash;
+    @NonNull
+    private final String repositoryUrl;
+    @CheckForNull
+    private final String credentialsId;
+
+    /**
+     * The depth found before the checkout, or {@code null} to fetch the whole history.
+     */
+    private transient volatile Integer depth;
+
+    // No descriptor: like the extensions the git plugin adds for SCM API implementations, this is only
+    // ever added by DAGsHubSCMSource, never configured by hand.
+
+    /**
+     * @param baseName the name of the target branch.
+     * @param baseHash the target commit to merge.
+     * @param headHash the head commit of the pull request.
+     * @param repositoryUrl the URL of the repository on DAGsHub.
+     * @param credentialsId the credentials to ask DAGsHub with, if any.
+     */
+    public ShallowMergeSCMExtension(@NonNull String baseName, @NonNull String baseHash,
+        @NonNull String headHash, @NonNull String repositoryUrl, @CheckForNull String credentialsId) {
+        super(baseName, baseHash);
+        this.headHash = headHash;
+        this.repositoryUrl = repositoryUrl;
+        this.credentialsId = credentialsId;
+    }
+
+    @NonNull
+    public String getHeadHash() {
+        return headHash;
+    }
+
+    @NonNull
+    public String getRepositoryUrl() {
+        return repositoryUrl;
+    }
+
+    @CheckForNull
+    public String getCredentialsId() {
+        return credentialsId;
+    }
+
+    @Override
+    public void beforeCheckout(GitSCM scm, Run<?, ?> build, GitClient git, TaskListener listener)
+        throws IOException, InterruptedException, GitException {
+        super.beforeCheckout(scm, build, git, listener);
+        depth = mergeBaseDepth(build, listener);
+        if (depth == null) {
+            listener.getLogger().println("Fetching the whole history to merge with");
+        } else {
+            listener.getLogger().format("Fetching %d commits deep to merge with%n", depth);
+        }
+    }
+
+    /**
+     * How deep a fetch of the pull request and the current target branch must be to reach the merge
+     * base of the pull request and the target commit.
+     *
+     * @return the depth, or {@code null} if DAGsHub can't compare them.
+     */
+    @CheckForNull
+    Integer mergeBaseDepth(Run<?, ?> build, TaskListener listener) throws InterruptedException {
+        final StandardUsernameCredentials credentials = credentialsId == null ? null
+            : CredentialsProvider.findCredentialById(credentialsId, StandardUsernameCredentials.class, build,
+                URIRequirementBuilder.fromUri(repositoryUrl).build());
+        try (DAGsHubApi api = DAGsHubApi.create(repositoryUrl, credentials).withListener(listener)) {
+            final String baseHash = getBaseHash();
+            final Integer ahead = api.getCommitsAhead(baseHash, headHash);
+            final Integer behind = ahead == null ? null : api.getCommitsAhead(headHash, baseHash);
+            final Branch target = behind == null ? null : api.getBranch(getBaseName());
+            if (target == null) {
+                listener.getLogger().format("Could not compare %s and %s on DAGsHub%n", baseHash, headHash);
+                return null;
+            }
+            final String tip = target.getCommit().getId();
+            final Integer moved =
+                tip.equals(baseHash) ? Integer.valueOf(0) : api.getCommitsAhead(baseHash, tip);
+            if (moved == null) {
+                listener.getLogger().format("Could not compare %s and %s on DAGsHub%n", baseHash, tip);
+                return null;
+            }
+            // A depth of n fetches a tip and n - 1 generations of its ancestors, and no path from a tip
+            // to a commit is longer than the commits between them. The target branch is fetched from its
+            // current tip, which must reach back to the target commit, and from there to the merge base.
+            return Math.max(ahead, moved + behind) + 1;
+        } catch (InterruptedIOException e) {
+            Thread.interrupted();
+            final InterruptedException interrupted = new InterruptedException(e.getMessage());
+            interrupted.initCause(e);
+            throw interrupted;
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            listener.getLogger().format("Could not find the merge base on DAGsHub: %s%n", e);
+            return null;
+        }
+    }
+
+    @Override
+    public void decorateCloneCommand(GitSCM scm, Run<?, ?> build, GitClient git, TaskListener listener,
+        CloneCommand cmd) throws IOException, InterruptedException, GitException {
+        final Integer depth = this.depth;
+        if (depth == null) {
+            super.decorateCloneCommand(scm, build, git, listener, cmd);
+            return;
+        }
+        cmd.refspecs(remoteOf(scm).getFetchRefSpecs())
+            .shallow(true)
+            .depth(depth)
+            .tags(false);
+    }
+
+    @Override
+    public void decorateFetchCommand(GitSCM scm, GitClient git, TaskListener listener, FetchCommand cmd)
+        throws IOException, InterruptedException, GitException {
+        final Integer depth = this.depth;
+        if (depth == null) {
+            super.decorateFetchCommand(scm, git, listener, cmd);
+            return;
+        }
+        cmd.shallow(true)
+            .depth(depth)
+            .tags(false);
+    }
+
+    @Override
+    public Revision decorateRevisionToBuild(GitSCM scm, Run<?, ?> build, GitClient git, TaskListener listener,
+        Revision marked, Revision rev) throws IOException, InterruptedException, GitException {
+        try {
+            return super.decorateRevisionToBuild(scm, build, git, listener, marked, rev);
+        } catch (GitException e) {
+            if (!git.getWorkTree().child(".git/shallow").exists()) {
+                throw e;
+            }
+            listener.getLogger().format("Merging failed in a shallow clone, fetching the whole history: %s%n",
+                e.getMessage());
+            final RemoteConfig remote = remoteOf(scm);
+            git.fetch_()
+                .from(remote.getURIs().get(0), remote.getFetchRefSpecs())
+                .shallow(true)
+                .depth(UNSHALLOW_DEPTH)
+                .tags(false)
+                .execute();
+            return super.decorateRevisionToBuild(scm, build, git, listener, marked, rev);
+        }
+    }
+
+    private static RemoteConfig remoteOf(GitSCM scm) {
+        return scm.getRepositories().get(0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!super.equals(o) || getClass() != o.getClass()) {
+            return false;
+        }
+        final ShallowMergeSCMExtension that = (ShallowMergeSCMExtension) o;
+        return headHash.equals(that.headHash) && repositoryUrl.equals(that.repositoryUrl);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + headHash.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ShallowMergeSCMExtension{baseName='" + getBaseName() + "', baseHash='" + getBaseHash()
+            + "', headHash='" + headHash + "'}";
+    }
+}
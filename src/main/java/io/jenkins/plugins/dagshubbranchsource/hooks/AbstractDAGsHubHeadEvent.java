@@ -0,0 +1,115 @@
+package io.jenkins.plugins.dagshubbranchsource.hooks;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.scm.SCM;
+import io.jenkins.plugins.dagshubbranchsource.DAGsHubSCMNavigator;
+import io.jenkins.plugins.dagshubbranchsource.DAGsHubSCMSource;
+import io.jenkins.plugins.dagshubbranchsource.DAGsHubSCMSourceContext;
+import io.jenkins.plugins.dagshubbranchsource.api.Repository;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.scm.api.SCMNavigator;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+
+/**
+ * Base class for the {@link SCMHeadEvent}s fired when DAGsHub delivers a webhook.
+ * <p>
+ * An event only matches {@link DAGsHubSCMSource}s for the repository it was delivered for, and
+ * only names the heads those sources are configured to discover. It also matches the
+ * {@link DAGsHubSCMNavigator}s for the owner of that repository, so that e.g. an organization folder
+ * creates a project for a repository when it is first pushed to, rather than on its next scan.
+ *
+ * @param <P> the type of the delivered payload
+ */
+public abstract class AbstractDAGsHubHeadEvent<P extends WebhookPayload> extends SCMHeadEvent<P> {
+
+    protected AbstractDAGsHubHeadEvent(@NonNull Type type, @NonNull P payload, String origin) {
+        super(type, payload, origin);
+    }
+
+    @Override
+    public boolean isMatch(@NonNull SCMNavigator navigator) {
+        return navigator instanceof DAGsHubSCMNavigator && isSameOwner((DAGsHubSCMNavigator) navigator);
+    }
+
+    @NonNull
+    @Override
+    public String getSourceName() {
+        final Repository repository = getPayload().getRepository();
+        return repository == null || repository.getName() == null ? "" : repository.getName();
+    }
+
+    @NonNull
+    @Override
+    public Map<SCMHead, SCMRevision> heads(@NonNull SCMSource source) {
+        if (!(source instanceof DAGsHubSCMSource) || !isSameRepository((DAGsHubSCMSource) source)) {
+            return Collections.emptyMap();
+        }
+        return affectedHeads(((DAGsHubSCMSource) source).createContext());
+    }
+
+    /**
+     * @param context the context of the matching source, with its traits applied.
+     * @return the heads affected by this event, and their new revisions, or {@code null} revisions
+     * for removed heads.
+     */
+    @NonNull
+    protected abstract Map<SCMHead, SCMRevision> affectedHeads(@NonNull DAGsHubSCMSourceContext context);
+
+    @Override
+    public boolean isMatch(@NonNull SCM scm) {
+        return false;
+    }
+
+    /**
+     * Whether this event was delivered for the repository of the given source.
+     */
+    public boolean isSameRepository(@NonNull DAGsHubSCMSource source) {
+        final Repository repository = getPayload().getRepository();
+        final String url = normalize(source.getRepositoryUrl());
+        return repository != null && url != null
+            && (url.equals(normalize(repository.getHtmlUrl()))
+            || url.equals(normalize(repository.getCloneUrl())));
+    }
+
+    /**
+     * Whether this event was delivered for a repository of the owner the given navigator discovers, on
+     * the same server.
+     */
+    public boolean isSameOwner(@NonNull DAGsHubSCMNavigator navigator) {
+        final Repository repository = getPayload().getRepository();
+        if (repository == null || repository.getName() == null || navigator.getRepoOwner() == null) {
+            return false;
+        }
+        final String url = normalize(normalize(navigator.getServerUrl()) + "/"
+            + navigator.getRepoOwner().trim() + "/" + repository.getName());
+        return url.equals(normalize(repository.getHtmlUrl()))
+            || url.equals(normalize(repository.getCloneUrl()));
+    }
+
+    /**
+     * Reduces a repository URL to {@code host/path/owner/repo}, so that the web URL and the various
+     * clone URLs of the same repository compare equal.
+     */
+    static String normalize(String url) {
+        if (url == null) {
+            return null;
+        }
+        String result = url.trim().toLowerCase(Locale.ENGLISH);
+        final int schemeEnd = result.indexOf("://");
+        if (schemeEnd >= 0) {
+            result = result.substring(schemeEnd + 3);
+        }
+        while (result.endsWith("/")) {
+            result = result.substring(0, result.length() - 1);
+        }
+        if (result.endsWith(".git")) {
+            result = result.substring(0, result.length() - 4);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,51 @@
+package io.jenkins.plugins.dagshubbranchsource.hooks;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.jenkins.plugins.dagshubbranchsource.DAGsHubSCMSourceContext;
+import java.util.Collections;
+import java.util.Map;
+import jenkins.plugins.git.GitBranchSCMHead;
+import jenkins.plugins.git.GitBranchSCMRevision;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMRevision;
+
+/**
+ * Fired when a branch is created, pushed to or deleted.
+ */
+public class DAGsHubBranchEvent extends AbstractDAGsHubHeadEvent<WebhookPayload> {
+
+    private final String branch;
+    private final String hash;
+
+    /**
+     * @param branch the name of the branch.
+     * @param hash the commit the branch now points to, or {@code null} if it was deleted.
+     */
+    public DAGsHubBranchEvent(@NonNull Type type, @NonNull WebhookPayload payload, String origin,
+        @NonNull String branch, @CheckForNull String hash) {
+        super(type, payload, origin);
+        this.branch = branch;
+        this.hash = hash;
+    }
+
+    @NonNull
+    public String getBranch() {
+        return branch;
+    }
+
+    @CheckForNull
+    public String getHash() {
+        return hash;
+    }
+
+    @NonNull
+    @Override
+    protected Map<SCMHead, SCMRevision> affectedHeads(@NonNull DAGsHubSCMSourceContext context) {
+        if (!context.isWantBranches()) {
+            return Collections.emptyMap();
+        }
+        final GitBranchSCMHead head = new GitBranchSCMHead(branch);
+        return Collections.singletonMap(head, hash == null ? null : new GitBranchSCMRevision(head, hash));
+    }
+}
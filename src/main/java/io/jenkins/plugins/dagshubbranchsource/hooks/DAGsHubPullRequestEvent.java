@@ -0,0 +1,40 @@
+package io.jenkins.plugins.dagshubbranchsource.hooks;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.jenkins.plugins.dagshubbranchsource.DAGsHubSCMSourceContext;
+import io.jenkins.plugins.dagshubbranchsource.api.PullRequest;
+import io.jenkins.plugins.dagshubbranchsource.git.PullRequestSCMRevision;
+import java.util.Collections;
+import java.util.Map;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.mixin.ChangeRequestCheckoutStrategy;
+
+/**
+ * Fired when a pull request is opened, reopened, synchronized with new commits, edited or closed.
+ */
+public class DAGsHubPullRequestEvent extends AbstractDAGsHubHeadEvent<PullRequestPayload> {
+
+    public DAGsHubPullRequestEvent(@NonNull Type type, @NonNull PullRequestPayload payload, String origin) {
+        super(type, payload, origin);
+    }
+
+    @NonNull
+    @Override
+    protected Map<SCMHead, SCMRevision> affectedHeads(@NonNull DAGsHubSCMSourceContext context) {
+        final PullRequest pull = getPayload().getPullRequest();
+        if (pull == null) {
+            return Collections.emptyMap();
+        }
+        final ChangeRequestCheckoutStrategy strategy;
+        if (pull.isSameOrigin() && context.isWantOriginPullRequests()) {
+            strategy = context.getOriginPullStrategy();
+        } else if (!pull.isSameOrigin() && context.isWantForkPullRequests()) {
+            strategy = context.getForkPullStrategy();
+        } else {
+            return Collections.emptyMap();
+        }
+        final PullRequestSCMRevision rev = pull.toRev(strategy);
+        return Collections.singletonMap(rev.getHead(), getType() == Type.REMOVED ? null : rev);
+    }
+}
@@ -0,0 +1,61 @@
+package io.jenkins.plugins.dagshubbranchsource.hooks;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.jenkins.plugins.dagshubbranchsource.DAGsHubSCMSourceContext;
+import java.util.Collections;
+import java.util.Map;
+import jenkins.plugins.git.GitTagSCMHead;
+import jenkins.plugins.git.GitTagSCMRevision;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMRevision;
+
+/**
+ * Fired when a tag is created or deleted.
+ */
+public class DAGsHubTagEvent extends AbstractDAGsHubHeadEvent<WebhookPayload> {
+
+    private final String tag;
+    private final String hash;
+    private final long commitTime;
+
+    /**
+     * @param tag the name of the tag.
+     * @param hash the commit the tag points to, or {@code null} if it was deleted.
+     * @param commitTime the time of that commit in milliseconds since the epoch, or 0 if unknown.
+     */
+    public DAGsHubTagEvent(@NonNull Type type, @NonNull WebhookPayload payload, String origin,
+        @NonNull String tag, @CheckForNull String hash, long commitTime) {
+        super(type, payload, origin);
+        this.tag = tag;
+        this.hash = hash;
+        this.commitTime = commitTime;
+    }
+
+    @NonNull
+    public String getTag() {
+        return tag;
+    }
+
+    @CheckForNull
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * The time of the tagged commit, or failing that, of this event.
+     */
+    public long getCommitTime() {
+        return commitTime > 0 ? commitTime : getTimestamp();
+    }
+
+    @NonNull
+    @Override
+    protected Map<SCMHead, SCMRevision> affectedHeads(@NonNull DAGsHubSCMSourceContext context) {
+        if (!context.isWantTags()) {
+            return Collections.emptyMap();
+        }
+        final GitTagSCMHead head = new GitTagSCMHead(tag, getCommitTime());
+        return Collections.singletonMap(head, hash == null ? null : new GitTagSCMRevision(head, hash));
+    }
+}
@@ -0,0 +1,229 @@
+package io.jenkins.plugins.dagshubbranchsource.hooks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hudson.Extension;
+import hudson.model.UnprotectedRootAction;
+import hudson.util.Secret;
+import io.jenkins.plugins.dagshubbranchsource.api.Commit;
+import io.jenkins.plugins.dagshubbranchsource.api.DAGsHubClientRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import jenkins.model.Jenkins;
+import jenkins.scm.api.SCMEvent;
+import jenkins.scm.api.SCMHeadEvent;
+import org.apache.commons.io.IOUtils;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+/**
+ * Receives webhook deliveries from DAGsHub, and fires the matching {@link SCMHeadEvent}s.
+ * <p>
+ * The endpoint is reachable without authentication, so every delivery must be signed with the secret
+ * from {@link DAGsHubWebhookConfiguration}. Until a secret is configured, every delivery is rejected.
+ */
+@Extension
+public class DAGsHubWebhookAction implements UnprotectedRootAction {
+
+    public static final String URL_NAME = "dagshub-webhook";
+
+    /**
+     * The events {@link #doIndex(StaplerRequest)} knows how to handle.
+     */
+    public static final List<String> EVENTS =
+        Collections.unmodifiableList(Arrays.asList("push", "delete", "pull_request"));
+
+    private static final Logger LOGGER = Logger.getLogger(DAGsHubWebhookAction.class.getName());
+    private static final String[] EVENT_HEADERS = {"X-Gitea-Event", "X-Gogs-Event"};
+    private static final String[] SIGNATURE_HEADERS = {"X-Gitea-Signature", "X-Gogs-Signature"};
+    private static final String ZERO_HASH = "0000000000000000000000000000000000000000";
+    private static final String BRANCH_PREFIX = "refs/heads/";
+    private static final String TAG_PREFIX = "refs/tags/";
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return URL_NAME;
+    }
+
+    /**
+     * The URL DAGsHub should deliver webhooks to, or {@code null} if the Jenkins root URL is not
+     * configured.
+     */
+    public static String getHookUrl() {
+        final String rootUrl = Jenkins.get().getRootUrl();
+        return rootUrl == null ? null : rootUrl + URL_NAME + "/";
+    }
+
+    @RequirePOST
+    public HttpResponse doIndex(StaplerRequest req) throws IOException {
+        final String eventName = firstHeader(req, EVENT_HEADERS);
+        if (eventName == null) {
+            return HttpResponses.error(400, "Missing event header");
+        }
+
+        final byte[] body;
+        try (InputStream in = req.getInputStream()) {
+            body = IOUtils.toByteArray(in);
+        }
+        // Never generate a secret here: anyone can post, and that would save the configuration
+        final Secret secret = DAGsHubWebhookConfiguration.get().getSecret();
+        if (secret == null || secret.getPlainText().isEmpty()) {
+            LOGGER.log(Level.WARNING, "Rejected a DAGsHub {0} delivery from {1}, since no webhook secret is "
+                + "configured", new Object[]{eventName, req.getRemoteAddr()});
+            return HttpResponses.error(403, "No webhook secret is configured");
+        }
+        if (!isValidSignature(body, firstHeader(req, SIGNATURE_HEADERS), secret.getPlainText())) {
+            LOGGER.log(Level.WARNING, "Rejected a DAGsHub {0} delivery with an invalid signature from {1}",
+                new Object[]{eventName, req.getRemoteAddr()});
+            return HttpResponses.error(403, "Invalid signature");
+        }
+
+        final String origin = SCMEvent.originOf(req);
+        final SCMHeadEvent<?> event = toEvent(eventName, body, origin);
+        if (event == null) {
+            LOGGER.log(Level.FINE, "Ignoring DAGsHub {0} delivery from {1}",
+                new Object[]{eventName, origin});
+            return HttpResponses.ok();
+        }
+        LOGGER.log(Level.FINE, "Firing {0} for DAGsHub {1} delivery from {2}",
+            new Object[]{event.getClass().getSimpleName(), eventName, origin});
+        SCMHeadEvent.fireNow(event);
+        return HttpResponses.ok();
+    }
+
+    /**
+     * Translates a delivery into an event, or {@code null} if it does not affect any head.
+     */
+    static SCMHeadEvent<?> toEvent(String eventName, byte[] body, String origin) throws IOException {
+        final ObjectMapper mapper = DAGsHubClientRegistry.get().getMapper();
+        switch (eventName) {
+            case "push": {
+                final PushPayload payload = mapper.readValue(body, PushPayload.class);
+                // New refs come with a push too, which unlike the create event has the time of the commit
+                if (payload.getRef() != null && payload.getRef().startsWith(TAG_PREFIX)) {
+                    // Deleted tags are handled by the delete event
+                    if (isZero(payload.getAfter())) {
+                        return null;
+                    }
+                    final SCMEvent.Type type =
+                        isZero(payload.getBefore()) ? SCMEvent.Type.CREATED : SCMEvent.Type.UPDATED;
+                    final String tag = payload.getRef().substring(TAG_PREFIX.length());
+                    final Commit commit = payload.getHeadCommit();
+                    return new DAGsHubTagEvent(type, payload, origin, tag, payload.getAfter(),
+                        commit == null ? 0L : commit.getTimeMillis());
+                }
+                if (payload.getRef() == null || !payload.getRef().startsWith(BRANCH_PREFIX)) {
+                    return null;
+                }
+                final String branch = payload.getRef().substring(BRANCH_PREFIX.length());
+                if (isZero(payload.getAfter())) {
+                    return new DAGsHubBranchEvent(SCMEvent.Type.REMOVED, payload, origin, branch, null);
+                }
+                final SCMEvent.Type type =
+                    isZero(payload.getBefore()) ? SCMEvent.Type.CREATED : SCMEvent.Type.UPDATED;
+                return new DAGsHubBranchEvent(type, payload, origin, branch, payload.getAfter());
+            }
+            case "delete": {
+                final RefPayload payload = mapper.readValue(body, RefPayload.class);
+                if (payload.getRef() == null) {
+                    return null;
+                }
+                if ("tag".equals(payload.getRefType())) {
+                    return new DAGsHubTagEvent(SCMEvent.Type.REMOVED, payload, origin,
+                        shortRefName(payload.getRef()), null, 0L);
+                }
+                if ("branch".equals(payload.getRefType())) {
+                    return new DAGsHubBranchEvent(SCMEvent.Type.REMOVED, payload, origin,
+                        shortRefName(payload.getRef()), null);
+                }
+                return null;
+            }
+            case "pull_request": {
+                final PullRequestPayload payload = mapper.readValue(body, PullRequestPayload.class);
+                if (payload.getPullRequest() == null || payload.getAction() == null) {
+                    return null;
+                }
+                switch (payload.getAction()) {
+                    case "opened":
+                    case "reopened":
+                        return new DAGsHubPullRequestEvent(SCMEvent.Type.CREATED, payload, origin);
+                    case "synchronized":
+                    case "edited":
+                        return new DAGsHubPullRequestEvent(SCMEvent.Type.UPDATED, payload, origin);
+                    case "closed":
+                        return new DAGsHubPullRequestEvent(SCMEvent.Type.REMOVED, payload, origin);
+                    default:
+                        return null;
+                }
+            }
+            default:
+                return null;
+        }
+    }
+
+    static boolean isValidSignature(byte[] body, String signature, String secret) {
+        if (signature == null || secret == null || secret.isEmpty()) {
+            return false;
+        }
+        try {
+            final Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            final StringBuilder expected = new StringBuilder();
+            for (byte b : mac.doFinal(body)) {
+                expected.append(String.format("%02x", b));
+            }
+            return MessageDigest.isEqual(expected.toString().getBytes(StandardCharsets.UTF_8),
+                signature.trim().toLowerCase(Locale.ENGLISH).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            LOGGER.log(Level.WARNING, "Could not verify a DAGsHub webhook signature", e);
+            return false;
+        }
+    }
+
+    private static String firstHeader(StaplerRequest req, String[] names) {
+        for (String name : names) {
+            final String value = req.getHeader(name);
+            if (value != null && !value.isEmpty()) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isZero(String hash) {
+        return hash == null || hash.isEmpty() || ZERO_HASH.equals(hash);
+    }
+
+    private static String shortRefName(String ref) {
+        if (ref.startsWith(BRANCH_PREFIX)) {
+            return ref.substring(BRANCH_PREFIX.length());
+        }
+        if (ref.startsWith(TAG_PREFIX)) {
+            return ref.substring(TAG_PREFIX.length());
+        }
+        return ref;
+    }
+}
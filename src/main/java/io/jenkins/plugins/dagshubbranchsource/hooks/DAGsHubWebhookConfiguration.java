@@ -0,0 +1,82 @@
+package io.jenkins.plugins.dagshubbranchsource.hooks;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.util.Secret;
+import java.security.SecureRandom;
+import jenkins.model.GlobalConfiguration;
+import net.sf.json.JSONObject;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.StaplerRequest;
+
+/**
+ * Global settings for DAGsHub webhooks.
+ */
+@Symbol("dagshubWebhooks")
+@Extension
+public class DAGsHubWebhookConfiguration extends GlobalConfiguration {
+
+    /**
+     * Whether saving a DAGsHub source should register a webhook on its repository.
+     */
+    private boolean manageHooks = true;
+
+    /**
+     * The secret DAGsHub signs deliveries with. Generated when the configuration is saved without one.
+     */
+    private Secret secret;
+
+    public DAGsHubWebhookConfiguration() {
+        load();
+    }
+
+    public static DAGsHubWebhookConfiguration get() {
+        return GlobalConfiguration.all().get(DAGsHubWebhookConfiguration.class);
+    }
+
+    public boolean isManageHooks() {
+        return manageHooks;
+    }
+
+    @DataBoundSetter
+    public void setManageHooks(boolean manageHooks) {
+        this.manageHooks = manageHooks;
+        save();
+    }
+
+    public Secret getSecret() {
+        return secret;
+    }
+
+    @DataBoundSetter
+    public void setSecret(Secret secret) {
+        this.secret = secret;
+        save();
+    }
+
+    /**
+     * Generates a random secret if none is configured. This persists the configuration, so it is only
+     * done when an administrator saves it, never on behalf of a webhook delivery.
+     */
+    @Override
+    public synchronized boolean configure(StaplerRequest req, JSONObject json) throws FormException {
+        req.bindJSON(this, json);
+        if (secret == null || secret.getPlainText().isEmpty()) {
+            final byte[] bytes = new byte[32];
+            new SecureRandom().nextBytes(bytes);
+            final StringBuilder generated = new StringBuilder();
+            for (byte b : bytes) {
+                generated.append(String.format("%02x", b));
+            }
+            setSecret(Secret.fromString(generated.toString()));
+        }
+        return true;
+    }
+
+    @NonNull
+    @Override
+    public String getDisplayName() {
+        return Messages.DAGsHubWebhookConfiguration_displayName();
+    }
+}
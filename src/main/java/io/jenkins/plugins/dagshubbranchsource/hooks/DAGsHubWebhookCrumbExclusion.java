@@ -0,0 +1,28 @@
+package io.jenkins.plugins.dagshubbranchsource.hooks;
+
+import hudson.Extension;
+import hudson.security.csrf.CrumbExclusion;
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * DAGsHub can't send a crumb with its deliveries, which are authenticated by their signature instead.
+ */
+@Extension
+public class DAGsHubWebhookCrumbExclusion extends CrumbExclusion {
+
+    @Override
+    public boolean process(HttpServletRequest req, HttpServletResponse resp, FilterChain chain)
+        throws IOException, ServletException {
+        final String pathInfo = req.getPathInfo();
+        if (pathInfo != null && (pathInfo.equals("/" + DAGsHubWebhookAction.URL_NAME)
+            || pathInfo.startsWith("/" + DAGsHubWebhookAction.URL_NAME + "/"))) {
+            chain.doFilter(req, resp);
+            return true;
+        }
+        return false;
+    }
+}
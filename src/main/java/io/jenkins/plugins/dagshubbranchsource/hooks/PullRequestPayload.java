@@ -0,0 +1,45 @@
+package io.jenkins.plugins.dagshubbranchsource.hooks;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import io.jenkins.plugins.dagshubbranchsource.api.PullRequest;
+
+/**
+ * Delivered for {@code pull_request} events.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategy.SnakeCaseStrategy.class)
+public class PullRequestPayload extends WebhookPayload {
+
+    private String action;
+    private long number;
+    private PullRequest pullRequest;
+
+    /**
+     * e.g. {@code opened}, {@code reopened}, {@code synchronized}, {@code edited} or {@code closed}.
+     */
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    public long getNumber() {
+        return number;
+    }
+
+    public void setNumber(long number) {
+        this.number = number;
+    }
+
+    public PullRequest getPullRequest() {
+        return pullRequest;
+    }
+
+    public void setPullRequest(PullRequest pullRequest) {
+        this.pullRequest = pullRequest;
+    }
+}
@@ -0,0 +1,57 @@
+package io.jenkins.plugins.dagshubbranchsource.hooks;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import io.jenkins.plugins.dagshubbranchsource.api.Commit;
+
+/**
+ * Delivered for {@code push} events.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategy.SnakeCaseStrategy.class)
+public class PushPayload extends WebhookPayload {
+
+    private String ref;
+    private String before;
+    private String after;
+    private Commit headCommit;
+
+    /**
+     * The full name of the pushed ref, e.g. {@code refs/heads/master}.
+     */
+    public String getRef() {
+        return ref;
+    }
+
+    public void setRef(String ref) {
+        this.ref = ref;
+    }
+
+    public String getBefore() {
+        return before;
+    }
+
+    public void setBefore(String before) {
+        this.before = before;
+    }
+
+    public String getAfter() {
+        return after;
+    }
+
+    public void setAfter(String after) {
+        this.after = after;
+    }
+
+    /**
+     * The commit the ref now points to, or {@code null} if it was deleted.
+     */
+    public Commit getHeadCommit() {
+        return headCommit;
+    }
+
+    public void setHeadCommit(Commit headCommit) {
+        this.headCommit = headCommit;
+    }
+}
@@ -0,0 +1,51 @@
+package io.jenkins.plugins.dagshubbranchsource.hooks;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * Delivered for {@code create} and {@code delete} events.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategy.SnakeCaseStrategy.class)
+public class RefPayload extends WebhookPayload {
+
+    private String ref;
+    private String refType;
+    private String sha;
+
+    /**
+     * The name of the created or deleted ref, without the {@code refs/heads/} or {@code refs/tags/}
+     * prefix.
+     */
+    public String getRef() {
+        return ref;
+    }
+
+    public void setRef(String ref) {
+        this.ref = ref;
+    }
+
+    /**
+     * Either {@code branch} or {@code tag}.
+     */
+    public String getRefType() {
+        return refType;
+    }
+
+    public void setRefType(String refType) {
+        this.refType = refType;
+    }
+
+    /**
+     * The commit the ref points to. Only sent for {@code create} events.
+     */
+    public String getSha() {
+        return sha;
+    }
+
+    public void setSha(String sha) {
+        this.sha = sha;
+    }
+}
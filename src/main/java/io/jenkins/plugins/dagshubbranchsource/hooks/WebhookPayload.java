@@ -0,0 +1,24 @@
+package io.jenkins.plugins.dagshubbranchsource.hooks;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import io.jenkins.plugins.dagshubbranchsource.api.Repository;
+
+/**
+ * The fields shared by all webhook deliveries.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategy.SnakeCaseStrategy.class)
+public class WebhookPayload {
+
+    private Repository repository;
+
+    public Repository getRepository() {
+        return repository;
+    }
+
+    public void setRepository(Repository repository) {
+        this.repository = repository;
+    }
+}
@@ -0,0 +1,53 @@
+package io.jenkins.plugins.dagshubbranchsource.traits;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import io.jenkins.plugins.dagshubbranchsource.DAGsHubSCMSource;
+import io.jenkins.plugins.dagshubbranchsource.DAGsHubSCMSourceContext;
+import io.jenkins.plugins.dagshubbranchsource.git.ShallowMergeSCMExtension;
+import jenkins.plugins.git.GitSCMBuilder;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.trait.SCMBuilder;
+import jenkins.scm.api.trait.SCMSourceContext;
+import jenkins.scm.api.trait.SCMSourceTrait;
+import jenkins.scm.api.trait.SCMSourceTraitDescriptor;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * Fetches pull requests which are built merged with their target branch only as deep as their merge
+ * base, rather than their whole history, see {@link ShallowMergeSCMExtension}. {@link DAGsHubSCMSource}
+ * adds that extension in place of the usual merge when this trait is present.
+ */
+public class MergeBaseShallowFetchTrait extends SCMSourceTrait {
+
+    @DataBoundConstructor
+    public MergeBaseShallowFetchTrait() {
+    }
+
+    @Symbol("dagshubMergeBaseShallowFetch")
+    @Extension
+    public static class DescriptorImpl extends SCMSourceTraitDescriptor {
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return Messages.MergeBaseShallowFetchTrait_displayName();
+        }
+
+        @Override
+        public Class<? extends SCMBuilder> getBuilderClass() {
+            return GitSCMBuilder.class;
+        }
+
+        @Override
+        public Class<? extends SCMSourceContext> getContextClass() {
+            return DAGsHubSCMSourceContext.class;
+        }
+
+        @Override
+        public Class<? extends SCMSource> getSourceClass() {
+            return DAGsHubSCMSource.class;
+        }
+    }
+}
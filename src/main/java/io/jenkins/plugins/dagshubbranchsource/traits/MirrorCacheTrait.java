@@ -0,0 +1,57 @@
+package io.jenkins.plugins.dagshubbranchsource.traits;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import io.jenkins.plugins.dagshubbranchsource.DAGsHubSCMSource;
+import io.jenkins.plugins.dagshubbranchsource.DAGsHubSCMSourceContext;
+import io.jenkins.plugins.dagshubbranchsource.git.MirrorCacheSCMExtension;
+import jenkins.plugins.git.GitSCMBuilder;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.trait.SCMBuilder;
+import jenkins.scm.api.trait.SCMSourceContext;
+import jenkins.scm.api.trait.SCMSourceTrait;
+import jenkins.scm.api.trait.SCMSourceTraitDescriptor;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * Clones workspaces with a bare mirror of the DAGsHub repository, kept on each agent, as their reference
+ * repository. See {@link MirrorCacheSCMExtension}.
+ */
+public class MirrorCacheTrait extends SCMSourceTrait {
+
+    @DataBoundConstructor
+    public MirrorCacheTrait() {
+    }
+
+    @Override
+    protected void decorateBuilder(SCMBuilder<?, ?> builder) {
+        ((GitSCMBuilder<?>) builder).withExtension(new MirrorCacheSCMExtension());
+    }
+
+    @Symbol("dagshubMirrorCache")
+    @Extension
+    public static class DescriptorImpl extends SCMSourceTraitDescriptor {
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return Messages.MirrorCacheTrait_displayName();
+        }
+
+        @Override
+        public Class<? extends SCMBuilder> getBuilderClass() {
+            return GitSCMBuilder.class;
+        }
+
+        @Override
+        public Class<? extends SCMSourceContext> getContextClass() {
+            return DAGsHubSCMSourceContext.class;
+        }
+
+        @Override
+        public Class<? extends SCMSource> getSourceClass() {
+            return DAGsHubSCMSource.class;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package io.jenkins.plugins.dagshubbranchsource.traits;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.util.FormValidation;
+import io.jenkins.plugins.dagshubbranchsource.DAGsHubSCMSource;
+import io.jenkins.plugins.dagshubbranchsource.DAGsHubSCMSourceContext;
+import java.util.concurrent.TimeUnit;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.trait.SCMSourceContext;
+import jenkins.scm.api.trait.SCMSourceTrait;
+import jenkins.scm.api.trait.SCMSourceTraitDescriptor;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+/**
+ * Limits how long a scan of a DAGsHub repository may take. A scan which runs out of time stops
+ * cleanly: the heads it has processed so far are kept, and so are all others, as they were.
+ */
+public class ScanTimeBudgetTrait extends SCMSourceTrait {
+
+    private final int minutes;
+
+    @DataBoundConstructor
+    public ScanTimeBudgetTrait(int minutes) {
+        this.minutes = minutes;
+    }
+
+    public int getMinutes() {
+        return minutes;
+    }
+
+    @Override
+    protected void decorateContext(SCMSourceContext<?, ?> context) {
+        DAGsHubSCMSourceContext ctx = (DAGsHubSCMSourceContext) context;
+        if (minutes > 0) {
+            ctx.setScanTimeBudgetMillis(TimeUnit.MINUTES.toMillis(minutes));
+        }
+    }
+
+    @Symbol("dagshubScanTimeBudget")
+    @Extension
+    public static class DescriptorImpl extends SCMSourceTraitDescriptor {
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return Messages.ScanTimeBudgetTrait_displayName();
+        }
+
+        @Override
+        public Class<? extends SCMSourceContext> getContextClass() {
+            return DAGsHubSCMSourceContext.class;
+        }
+
+        @Override
+        public Class<? extends SCMSource> getSourceClass() {
+            return DAGsHubSCMSource.class;
+        }
+
+        @SuppressWarnings("unused") // Used by jelly UI
+        public FormValidation doCheckMinutes(@QueryParameter int minutes) {
+            return minutes > 0 ? FormValidation.ok()
+                : FormValidation.error(Messages.ScanTimeBudgetTrait_positive());
+        }
+    }
+}
@@ -1,9 +1,26 @@
 package io.jenkins.plugins.dagshubbranchsource;
 
+import io.jenkins.plugins.dagshubbranchsource.api.Branch;
 import io.jenkins.plugins.dagshubbranchsource.api.DAGsHubApi;
+import io.jenkins.plugins.dagshubbranchsource.api.PullRequest;
+import io.jenkins.plugins.dagshubbranchsource.api.PullRequestQuery;
+import io.jenkins.plugins.dagshubbranchsource.git.PullRequestSCMRevision;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import jenkins.plugins.git.GitBranchSCMRevision;
+import jenkins.scm.api.mixin.ChangeRequestCheckoutStrategy;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class DAGsHubApiTest {
@@ -66,4 +83,196 @@ public class DAGsHubApiTest {
             // Pass
         }
     }
+
+    @Test
+    public void streamsRevisions() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(120, 0, 5);
+            DAGsHubApi api = DAGsHubApi.create(server.getRepositoryUrl())) {
+            final List<GitBranchSCMRevision> branches = new ArrayList<>();
+            api.iterateBranchRevisions().forEach(branches::add);
+            assertEquals(120, branches.size());
+            assertEquals("master", branches.get(0).getHead().getName());
+            assertEquals(api.getBranch("master").getCommit().getId(), branches.get(0).getHash());
+
+            // Every other pull request is from a fork
+            final List<PullRequestSCMRevision> pulls = new ArrayList<>();
+            api.iteratePullRevisions(PullRequestQuery.open(), ChangeRequestCheckoutStrategy.HEAD, null)
+                .forEach(pulls::add);
+            assertEquals(3, pulls.size());
+            assertEquals("PR-1-HEAD", pulls.get(0).getHead().getName());
+        }
+    }
+
+    /**
+     * Looks up branches all at once, while another lookup is under way.
+     */
+    private static List<Branch> lookUpBranches(DAGsHubApi api, List<String> names) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(names.size());
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<Branch>> lookups = new ArrayList<>();
+            for (String name : names) {
+                lookups.add(executor.submit(() -> {
+                    start.await();
+                    return api.getBranch(name);
+                }));
+            }
+            start.countDown();
+            final List<Branch> branches = new ArrayList<>();
+            for (Future<Branch> lookup : lookups) {
+                branches.add(lookup.get());
+            }
+            return branches;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void answersLookupBurstFromListing() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(20, 0, 0);
+            DAGsHubApi api = DAGsHubApi.create(server.getRepositoryUrl())) {
+            server.setLatencyMillis(200);
+            final List<String> names = new ArrayList<>();
+            for (int i = 1; i <= 11; i++) {
+                names.add("feature/branch-" + i);
+            }
+            final List<Branch> branches = lookUpBranches(api, names);
+            for (int i = 0; i < names.size(); i++) {
+                assertEquals(names.get(i), branches.get(i).getName());
+            }
+            // The first is looked up on its own, and the rest from the single page
+            assertTrue("Made " + server.getRequestCount() + " requests", server.getRequestCount() <= 3);
+        }
+    }
+
+    @Test
+    public void looksUpOneByOneWhenListingCostsMore() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(10_000, 0, 0);
+            DAGsHubApi api = DAGsHubApi.create(server.getRepositoryUrl())) {
+            server.setLatencyMillis(200);
+            final List<String> names = new ArrayList<>();
+            for (int i = 5_000; i < 5_011; i++) {
+                names.add("feature/branch-" + i);
+            }
+            final List<Branch> branches = lookUpBranches(api, names);
+            for (int i = 0; i < names.size(); i++) {
+                assertEquals(names.get(i), branches.get(i).getName());
+            }
+            // Rather than 200 pages, at most the first page of each batch, which tells there are 200
+            assertTrue("Made " + server.getRequestCount() + " requests", server.getRequestCount() <= 13);
+        }
+    }
+
+    @Test
+    public void loneLookupIsNotDelayed() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(20, 0, 0);
+            DAGsHubApi api = DAGsHubApi.create(server.getRepositoryUrl())) {
+            // Warms up the client, so that only the lookups themselves are timed
+            assertEquals("master", api.getBranch("master").getName());
+            final long started = System.nanoTime();
+            for (int i = 1; i <= 10; i++) {
+                assertEquals("feature/branch-" + i, api.getBranch("feature/branch-" + i).getName());
+            }
+            assertEquals(11, server.getRequestCount());
+            // Waiting for others to join would take at least 10 batching windows
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 10 * 50);
+        }
+    }
+
+    @Test
+    public void listsOpenPullsInCreationOrder() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(1, 0, 3);
+            DAGsHubApi api = DAGsHubApi.create(server.getRepositoryUrl())) {
+            assertEquals(3, api.getPullSummaries(PullRequestQuery.open()).size());
+            // Any other order changes as pull requests are updated, and paging through it skips some
+            assertEquals("oldest", server.getLastQuery("pulls").get("sort"));
+            assertEquals("open", server.getLastQuery("pulls").get("state"));
+        }
+    }
+
+    @Test
+    public void countsCommitsAhead() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(1, 0, 3);
+            DAGsHubApi api = DAGsHubApi.create(server.getRepositoryUrl())) {
+            final PullRequestSCMRevision pull = api.getPull(3).toRev(ChangeRequestCheckoutStrategy.MERGE);
+            assertEquals(Integer.valueOf(3), api.getCommitsAhead(pull.getBaseHash(), pull.getHeadHash()));
+            assertEquals(Integer.valueOf(1), api.getCommitsAhead(pull.getHeadHash(), pull.getBaseHash()));
+            assertEquals(Integer.valueOf(0), api.getCommitsAhead(pull.getBaseHash(), pull.getBaseHash()));
+            assertNull(api.getCommitsAhead("master", pull.getHeadHash()));
+        }
+    }
+
+    @Test
+    public void keepsNoFileContentsWithValidators() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(1, 0, 0);
+            DAGsHubApi api = DAGsHubApi.create(server.getRepositoryUrl())) {
+            server.setETags(true);
+            // Read at a branch, so not kept by the ContentCache either
+            for (int i = 0; i < 2; i++) {
+                assertEquals(FakeDAGsHubServer.fileContent("Jenkinsfile", "master").length,
+                    api.getBlob(api.getContents("master", "Jenkinsfile").getSha()).length);
+            }
+            assertEquals(0, server.getNotModifiedCount());
+            assertEquals(2, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void revalidatesStreamedPages() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(120, 0, 0);
+            DAGsHubApi api = DAGsHubApi.create(server.getRepositoryUrl())) {
+            server.setETags(true);
+            // Unchanged pages are answered with the revisions converted the first time
+            final List<GitBranchSCMRevision> first = new ArrayList<>();
+            api.iterateBranchRevisions().forEach(first::add);
+            final List<GitBranchSCMRevision> second = new ArrayList<>();
+            api.iterateBranchRevisions().forEach(second::add);
+            assertEquals(120, second.size());
+            assertEquals(first, second);
+            assertSame(first.get(0), second.get(0));
+            assertEquals(3, server.getNotModifiedCount());
+            assertEquals(6, server.getRequestCount());
+
+            // Apart from the bound pages of the same listing
+            assertEquals(120, api.getBranches().size());
+            assertEquals(3, server.getNotModifiedCount());
+            assertEquals(9, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void answersNotModifiedFromCache() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(120, 0, 3);
+            DAGsHubApi api = DAGsHubApi.create(server.getRepositoryUrl())) {
+            server.setETags(true);
+            final Branch branch = api.getBranch("feature/branch-7");
+            final List<Branch> branches = api.getBranches();
+            final PullRequest pull = api.getPull(2);
+
+            // Still asked every time, but what was parsed back then is returned as it was
+            assertSame(branch, api.getBranch("feature/branch-7"));
+            final List<Branch> again = api.getBranches();
+            assertEquals(120, again.size());
+            for (int i = 0; i < branches.size(); i++) {
+                assertSame(branches.get(i), again.get(i));
+            }
+            assertSame(pull, api.getPull(2));
+            assertEquals(1 + 3 + 1, server.getNotModifiedCount());
+            assertEquals(2 * (1 + 3 + 1), server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void parsesResponsesWithoutValidators() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(20, 0, 0);
+            DAGsHubApi api = DAGsHubApi.create(server.getRepositoryUrl())) {
+            final Branch branch = api.getBranch("feature/branch-7");
+            final Branch again = api.getBranch("feature/branch-7");
+            assertNotSame(branch, again);
+            assertEquals(branch.getCommit().getId(), again.getCommit().getId());
+            assertEquals(0, server.getNotModifiedCount());
+            assertEquals(2, server.getRequestCount());
+        }
+    }
 }
@@ -0,0 +1,122 @@
+package io.jenkins.plugins.dagshubbranchsource;
+
+import hudson.model.TaskListener;
+import io.jenkins.plugins.dagshubbranchsource.git.PullRequestSCMRevision;
+import io.jenkins.plugins.dagshubbranchsource.traits.BranchDiscoveryTrait;
+import io.jenkins.plugins.dagshubbranchsource.traits.OriginPullRequestDiscoveryTrait;
+import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import jenkins.plugins.git.GitBranchSCMHead;
+import jenkins.scm.api.SCMFile;
+import jenkins.scm.api.SCMFileSystem;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.trait.SCMSourceTrait;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DAGsHubSCMFileSystemTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private static DAGsHubSCMSource sourceFor(FakeDAGsHubServer server, SCMSourceTrait... traits) {
+        return new DAGsHubSCMSource(server.getRepositoryUrl(), null, Arrays.asList(traits));
+    }
+
+    private static String contentOf(FakeDAGsHubServer server, String path, String commit) {
+        return new String(FakeDAGsHubServer.fileContent(path, commit), StandardCharsets.UTF_8);
+    }
+
+    private static int requests(FakeDAGsHubServer server, String endpoint) {
+        final Integer count = server.getRequests().get(endpoint);
+        return count == null ? 0 : count;
+    }
+
+    @Test
+    public void readsFilesAtCommitOfBranch() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(5, 0, 0)) {
+            final String commit = FakeDAGsHubServer.sha(1, 3);
+            try (SCMFileSystem fs = SCMFileSystem.of(sourceFor(server, new BranchDiscoveryTrait()),
+                new GitBranchSCMHead("feature/branch-3"))) {
+                assertNotNull(fs);
+                assertEquals(commit, DAGsHubSCMFileSystem.commitOf(fs.getRevision()));
+
+                final SCMFile jenkinsfile = fs.child("Jenkinsfile");
+                assertEquals(SCMFile.Type.REGULAR_FILE, jenkinsfile.getType());
+                assertEquals(contentOf(server, "Jenkinsfile", commit), jenkinsfile.contentAsString());
+
+                final SCMFile ci = fs.child("ci");
+                assertEquals(SCMFile.Type.DIRECTORY, ci.getType());
+                final List<String> names = new ArrayList<>();
+                for (SCMFile child : fs.getRoot().children()) {
+                    names.add(child.getName() + ":" + child.getType());
+                }
+                assertEquals("[Jenkinsfile:REGULAR_FILE, ci:DIRECTORY]", names.toString());
+                assertEquals(contentOf(server, "ci/build.sh", commit), ci.child("build.sh").contentAsString());
+
+                assertFalse(fs.child("missing").exists());
+                try {
+                    ci.content();
+                    fail("Should have thrown FileNotFoundException");
+                } catch (FileNotFoundException e) {
+                    // Pass
+                }
+            }
+        }
+    }
+
+    @Test
+    public void readsFilesAtCommitOnce() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(5, 0, 0)) {
+            final DAGsHubSCMSource source = sourceFor(server, new BranchDiscoveryTrait());
+            final GitBranchSCMHead head = new GitBranchSCMHead("master");
+            for (int i = 0; i < 3; i++) {
+                try (SCMFileSystem fs = SCMFileSystem.of(source, head)) {
+                    assertEquals(contentOf(server, "Jenkinsfile", FakeDAGsHubServer.sha(1, 0)),
+                        fs.child("Jenkinsfile").contentAsString());
+                }
+            }
+            // The commit never changes, so neither do its files
+            assertEquals(1, requests(server, "contents"));
+            assertEquals(0, requests(server, "git/blobs"));
+        }
+    }
+
+    @Test
+    public void readsPullRequestHeadAtHeadCommit() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(1, 0, 3)) {
+            final DAGsHubSCMSource source = sourceFor(server, new OriginPullRequestDiscoveryTrait(true));
+            final SCMRevision rev = source.fetch("PR-1-HEAD", TaskListener.NULL, null);
+            assertTrue(rev instanceof PullRequestSCMRevision);
+            try (SCMFileSystem fs = SCMFileSystem.of(source, rev.getHead(), rev)) {
+                assertNotNull(fs);
+                assertEquals(contentOf(server, "Jenkinsfile", FakeDAGsHubServer.sha(3, 0)),
+                    fs.child("Jenkinsfile").contentAsString());
+            }
+        }
+    }
+
+    @Test
+    public void hasNoFileSystemForMergeRevision() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(1, 0, 3)) {
+            final DAGsHubSCMSource source = sourceFor(server, new OriginPullRequestDiscoveryTrait(false));
+            final SCMRevision rev = source.fetch("PR-1-MERGE", TaskListener.NULL, null);
+            assertTrue(((PullRequestSCMRevision) rev).isMerge());
+            assertNull(DAGsHubSCMFileSystem.commitOf(rev));
+            // So that the caller falls back to a checkout
+            assertNull(SCMFileSystem.of(source, rev.getHead(), rev));
+            assertEquals(0, requests(server, "contents"));
+        }
+    }
+}
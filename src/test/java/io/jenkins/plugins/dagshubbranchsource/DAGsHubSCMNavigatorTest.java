@@ -0,0 +1,167 @@
+package io.jenkins.plugins.dagshubbranchsource;
+
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import com.cloudbees.plugins.credentials.impl.UsernamePasswordCredentialsImpl;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.TaskListener;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.SCMSourceObserver;
+import jenkins.scm.api.SCMSourceOwner;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DAGsHubSCMNavigatorTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private DAGsHubSCMNavigator navigator(FakeDAGsHubServer server, String credentialsId) {
+        return new DAGsHubSCMNavigator(server.getServerUrl(), FakeDAGsHubServer.OWNER, credentialsId, null);
+    }
+
+    private String addCredentials(String username) throws Exception {
+        SystemCredentialsProvider.getInstance().getCredentials().add(new UsernamePasswordCredentialsImpl(
+            CredentialsScope.GLOBAL, username, null, username, "token"));
+        SystemCredentialsProvider.getInstance().save();
+        return username;
+    }
+
+    @Test
+    public void proposesPublicRepositoriesAnonymously() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(1, 0, 0)) {
+            server.setOwnerRepositories(5, 2, false);
+            final Observer observer = new Observer(new MockSCMOwner(j.jenkins, "anonymous"));
+            navigator(server, null).visitSources(observer);
+            assertEquals("[repo, repo-1, repo-2]", observer.proposed.keySet().toString());
+            assertEquals(server.getServerUrl() + "/owner/repo-1",
+                ((DAGsHubSCMSource) observer.proposed.get("repo-1")).getRepositoryUrl());
+        }
+    }
+
+    @Test
+    public void proposesPrivateRepositoriesOfAuthenticatedOwner() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(1, 0, 0)) {
+            server.setOwnerRepositories(5, 2, false);
+            final Observer observer = new Observer(new MockSCMOwner(j.jenkins, "owner"));
+            navigator(server, addCredentials(FakeDAGsHubServer.OWNER)).visitSources(observer);
+            // The repositories of others which the owner sees are left out
+            assertEquals("[repo, repo-1, repo-2, repo-3, repo-4]", observer.proposed.keySet().toString());
+            for (SCMSource source : observer.proposed.values()) {
+                assertTrue(((DAGsHubSCMSource) source).getRepositoryUrl().contains("/owner/"));
+            }
+            assertEquals(Integer.valueOf(1), server.getRequests().get("user/repos"));
+            assertEquals(null, server.getRequests().get("users"));
+        }
+    }
+
+    @Test
+    public void proposesPublicRepositoriesOfOtherUsers() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(1, 0, 0)) {
+            server.setOwnerRepositories(5, 2, false);
+            final Observer observer = new Observer(new MockSCMOwner(j.jenkins, "someone"));
+            navigator(server, addCredentials("someone")).visitSources(observer);
+            assertEquals("[repo, repo-1, repo-2]", observer.proposed.keySet().toString());
+            assertEquals(null, server.getRequests().get("user/repos"));
+        }
+    }
+
+    @Test
+    public void proposesPrivateRepositoriesOfOrganization() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(1, 0, 0)) {
+            server.setOwnerRepositories(5, 2, true);
+            final Observer observer = new Observer(new MockSCMOwner(j.jenkins, "member"));
+            navigator(server, addCredentials("member")).visitSources(observer);
+            assertEquals("[repo, repo-1, repo-2, repo-3, repo-4]", observer.proposed.keySet().toString());
+        }
+    }
+
+    @Test
+    public void proposesOneRepositoryAtATime() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(1, 0, 0)) {
+            server.setOwnerRepositories(20, 0, false);
+            final Observer observer = new Observer(new MockSCMOwner(j.jenkins, "concurrent"));
+            navigator(server, null).visitSources(observer);
+            assertEquals(20, observer.proposed.size());
+            assertEquals(1, observer.maxConcurrent.get());
+        }
+    }
+
+    @Test
+    public void visitsSingleRepository() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(1, 0, 0)) {
+            server.setOwnerRepositories(5, 0, false);
+            final Observer observer = new Observer(new MockSCMOwner(j.jenkins, "single"));
+            navigator(server, null).visitSource("repo-3", observer);
+            navigator(server, null).visitSource("repo-7", observer);
+            assertEquals("[repo-3]", observer.proposed.keySet().toString());
+            assertEquals(null, server.getRequests().get("users"));
+        }
+    }
+
+    /**
+     * Records the proposed sources, and how many projects were ever completed at the same time.
+     */
+    private static class Observer extends SCMSourceObserver {
+
+        private final MockSCMOwner owner;
+        private final Map<String, SCMSource> proposed = Collections.synchronizedMap(new TreeMap<>());
+        private final AtomicInteger concurrent = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+        Observer(MockSCMOwner owner) {
+            this.owner = owner;
+        }
+
+        @NonNull
+        @Override
+        public SCMSourceOwner getContext() {
+            return owner;
+        }
+
+        @NonNull
+        @Override
+        public TaskListener getListener() {
+            return TaskListener.NULL;
+        }
+
+        @NonNull
+        @Override
+        public ProjectObserver observe(@NonNull String projectName) {
+            return new ProjectObserver() {
+                private SCMSource source;
+
+                @Override
+                public void addSource(@NonNull SCMSource source) {
+                    this.source = source;
+                }
+
+                @Override
+                public void addAttribute(@NonNull String key, Object value) {
+                }
+
+                @Override
+                public void complete() throws InterruptedException {
+                    maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                    // Long enough for other proposals to overlap, if they could
+                    TimeUnit.MILLISECONDS.sleep(10);
+                    proposed.put(projectName, source);
+                    concurrent.decrementAndGet();
+                }
+            };
+        }
+
+        @Override
+        public void addAttribute(@NonNull String key, Object value) {
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package io.jenkins.plugins.dagshubbranchsource;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.TaskListener;
+import java.util.concurrent.TimeUnit;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMHeadObserver;
+import jenkins.scm.api.SCMRevision;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static io.jenkins.plugins.dagshubbranchsource.DAGsHubSCMSourceScaleTest.BRANCHES;
+import static io.jenkins.plugins.dagshubbranchsource.DAGsHubSCMSourceScaleTest.PULLS;
+import static io.jenkins.plugins.dagshubbranchsource.DAGsHubSCMSourceScaleTest.TAGS;
+import static io.jenkins.plugins.dagshubbranchsource.DAGsHubSCMSourceScaleTest.pages;
+import static io.jenkins.plugins.dagshubbranchsource.DAGsHubSCMSourceScaleTest.sourceFor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Scans the repository of {@link DAGsHubSCMSourceScaleTest#listsEveryHead()} from a server with a rate
+ * limit, which it announces in {@code X-RateLimit-*} headers.
+ * <p>
+ * The 1,300 pages of 10,000 branches, 50,000 tags and 5,000 pull requests take four windows of 400
+ * requests, so the scan cannot take less than three window lengths. It should not take much longer
+ * either, and should hardly ever be rejected by the server: only requests already on their way when
+ * the first response of a window arrives can go over it.
+ */
+public class DAGsHubSCMSourceRateLimitScaleTest {
+
+    private static final int REQUESTS_PER_WINDOW = 400;
+    private static final int WINDOW_SECONDS = 5;
+
+    /**
+     * How much longer than the rate limit alone allows a scan may take.
+     */
+    private static final long MAX_OVERHEAD_SECONDS = 60;
+
+    /**
+     * How many requests per window may be rejected, at most one per listing running at once.
+     */
+    private static final long MAX_REJECTED_PER_WINDOW = 3;
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void listsEveryHeadWithinServerRateLimit() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(BRANCHES, TAGS, PULLS)) {
+            server.setRateLimit(REQUESTS_PER_WINDOW, WINDOW_SECONDS);
+            final CountingObserver observer = new CountingObserver();
+            final long started = System.nanoTime();
+            sourceFor(server).fetch(null, observer, TaskListener.NULL);
+            final long seconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started);
+
+            final long requests = pages(BRANCHES) + pages(TAGS) + pages(PULLS);
+            final long windows = (requests + REQUESTS_PER_WINDOW - 1) / REQUESTS_PER_WINDOW;
+            final long limited = (windows - 1) * WINDOW_SECONDS;
+            assertEquals(BRANCHES + TAGS + PULLS, observer.count);
+            assertTrue("Rejected " + server.getRateLimitedCount() + " requests",
+                server.getRateLimitedCount() <= windows * MAX_REJECTED_PER_WINDOW);
+            assertEquals(requests + server.getRateLimitedCount(), server.getRequestCount());
+            // Rounded down to whole seconds, on both sides
+            assertTrue("Took " + seconds + " s, the limit allows " + limited + " s",
+                seconds >= limited - 1);
+            assertTrue("Took " + seconds + " s, the limit allows " + limited + " s",
+                seconds <= limited + MAX_OVERHEAD_SECONDS);
+        }
+    }
+
+    /**
+     * Counts heads without keeping them.
+     */
+    private static final class CountingObserver extends SCMHeadObserver {
+        private int count;
+
+        @Override
+        public void observe(@NonNull SCMHead head, @NonNull SCMRevision revision) {
+            count++;
+        }
+    }
+}
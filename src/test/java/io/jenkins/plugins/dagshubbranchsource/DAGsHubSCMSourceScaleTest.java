@@ -0,0 +1,154 @@
+package io.jenkins.plugins.dagshubbranchsource;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.TaskListener;
+import io.jenkins.plugins.dagshubbranchsource.traits.BranchDiscoveryTrait;
+import io.jenkins.plugins.dagshubbranchsource.traits.ForkPullRequestDiscoveryTrait;
+import io.jenkins.plugins.dagshubbranchsource.traits.OriginPullRequestDiscoveryTrait;
+import io.jenkins.plugins.dagshubbranchsource.traits.TagDiscoveryTrait;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMHeadObserver;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSourceCriteria;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Scans repositories with many heads served by a {@link FakeDAGsHubServer}, checking how long they
+ * take, how many requests they make and how much memory they hold on to.
+ * <p>
+ * These are not run by a plain {@code mvn test}, but with {@code mvn test -P scale-tests}. The server
+ * has no rate limit here, so they measure the scan rather than the limit; how the same scan keeps to
+ * a server's limit is checked by {@link DAGsHubSCMSourceRateLimitScaleTest}. The number of heads can
+ * be changed with {@code -Dscale.branches}, {@code -Dscale.tags} and {@code -Dscale.pulls}.
+ */
+public class DAGsHubSCMSourceScaleTest {
+
+    static final int BRANCHES = Integer.getInteger("scale.branches", 10_000);
+    static final int TAGS = Integer.getInteger("scale.tags", 50_000);
+    static final int PULLS = Integer.getInteger("scale.pulls", 5_000);
+
+    private static final int PAGE_SIZE = 50;
+    private static final long MAX_SCAN_SECONDS = 180;
+
+    /**
+     * How much more live heap a scan may use than before it started, however many heads it lists.
+     */
+    private static final long MAX_HEAP_GROWTH_BYTES = 64L << 20;
+
+    private static final SCMSourceCriteria HAS_JENKINSFILE = (probe, listener) ->
+        probe.stat("Jenkinsfile").exists();
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    static DAGsHubSCMSource sourceFor(FakeDAGsHubServer server) {
+        return new DAGsHubSCMSource(server.getRepositoryUrl(), null, Arrays.asList(
+            new BranchDiscoveryTrait(), new TagDiscoveryTrait(), new OriginPullRequestDiscoveryTrait(),
+            new ForkPullRequestDiscoveryTrait()));
+    }
+
+    static long pages(int items) {
+        return Math.max(1, (items + PAGE_SIZE - 1) / PAGE_SIZE);
+    }
+
+    @Test
+    public void listsEveryHead() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(BRANCHES, TAGS, PULLS)) {
+            final CountingObserver observer = new CountingObserver(5_000);
+            final long started = System.nanoTime();
+            sourceFor(server).fetch(null, observer, TaskListener.NULL);
+            final long seconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started);
+
+            assertEquals(BRANCHES + TAGS + PULLS, observer.count);
+            assertTrue("Took " + seconds + " s", seconds <= MAX_SCAN_SECONDS);
+            assertEquals(Integer.valueOf((int) pages(BRANCHES)), server.getRequests().get("branches"));
+            assertEquals(Integer.valueOf((int) pages(TAGS)), server.getRequests().get("tags"));
+            assertEquals(Integer.valueOf((int) pages(PULLS)), server.getRequests().get("pulls"));
+            assertEquals(pages(BRANCHES) + pages(TAGS) + pages(PULLS), server.getRequestCount());
+            assertTrue("Heap grew by " + (observer.peakHeapGrowth >> 20) + " MB",
+                observer.peakHeapGrowth <= MAX_HEAP_GROWTH_BYTES);
+        }
+    }
+
+    @Test
+    public void checksCriteriaOncePerCommit() throws Exception {
+        final int branches = BRANCHES / 10;
+        final int pulls = PULLS / 10;
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(branches, 0, pulls)) {
+            final CountingObserver observer = new CountingObserver(0);
+            sourceFor(server).fetch(HAS_JENKINSFILE, observer, TaskListener.NULL);
+
+            assertEquals(branches + pulls, observer.count);
+            assertEquals(Integer.valueOf(branches + pulls), server.getRequests().get("git/trees"));
+            assertEquals(pages(branches) + pages(0) + pages(pulls) + branches + pulls,
+                server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void retriesServerErrors() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(200, 0, 0)) {
+            server.failNext(2, 503);
+            final CountingObserver observer = new CountingObserver(0);
+            sourceFor(server).fetch(null, observer, TaskListener.NULL);
+
+            assertEquals(200, observer.count);
+            assertEquals(pages(200) + pages(0) + pages(0) + 2, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void listsCategoriesConcurrently() throws Exception {
+        final long latencyMillis = 100;
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(500, 500, 500)) {
+            server.setLatencyMillis(latencyMillis);
+            final CountingObserver observer = new CountingObserver(0);
+            final long started = System.nanoTime();
+            sourceFor(server).fetch(null, observer, TaskListener.NULL);
+            final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+            assertEquals(1_500, observer.count);
+            // Listed one after the other, the 30 pages would take at least 3 s
+            assertTrue("Took " + millis + " ms", millis < 3 * pages(500) * latencyMillis);
+        }
+    }
+
+    /**
+     * Counts heads without keeping them, and every so often measures the live heap.
+     */
+    private static final class CountingObserver extends SCMHeadObserver {
+        private final int sampleInterval;
+        private final long baseline;
+        private int count;
+        private long peakHeapGrowth;
+
+        /**
+         * @param sampleInterval the number of heads between heap samples, or 0 for none.
+         */
+        private CountingObserver(int sampleInterval) {
+            this.sampleInterval = sampleInterval;
+            this.baseline = sampleInterval > 0 ? liveHeap() : 0;
+        }
+
+        @Override
+        public void observe(@NonNull SCMHead head, @NonNull SCMRevision revision) {
+            count++;
+            if (sampleInterval > 0 && count % sampleInterval == 0) {
+                peakHeapGrowth = Math.max(peakHeapGrowth, liveHeap() - baseline);
+            }
+        }
+
+        private static long liveHeap() {
+            final Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package io.jenkins.plugins.dagshubbranchsource;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.TaskListener;
+import io.jenkins.plugins.dagshubbranchsource.api.DAGsHubApiException;
+import io.jenkins.plugins.dagshubbranchsource.api.Repository;
+import io.jenkins.plugins.dagshubbranchsource.git.PullRequestSCMHead;
+import io.jenkins.plugins.dagshubbranchsource.git.PullRequestSCMRevision;
+import io.jenkins.plugins.dagshubbranchsource.hooks.DAGsHubBranchEvent;
+import io.jenkins.plugins.dagshubbranchsource.hooks.WebhookPayload;
+import io.jenkins.plugins.dagshubbranchsource.traits.BranchDiscoveryTrait;
+import io.jenkins.plugins.dagshubbranchsource.traits.ForkPullRequestDiscoveryTrait;
+import io.jenkins.plugins.dagshubbranchsource.traits.OriginPullRequestDiscoveryTrait;
+import io.jenkins.plugins.dagshubbranchsource.traits.TagDiscoveryTrait;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import jenkins.plugins.git.AbstractGitSCMSource;
+import jenkins.plugins.git.GitBranchSCMHead;
+import jenkins.plugins.git.GitBranchSCMRevision;
+import jenkins.plugins.git.GitTagSCMHead;
+import jenkins.plugins.git.GitTagSCMRevision;
+import jenkins.scm.api.SCMEvent;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.scm.api.SCMHeadObserver;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSourceCriteria;
+import jenkins.scm.api.SCMSourceOwner;
+import jenkins.scm.api.trait.SCMSourceTrait;
+import jenkins.scm.impl.trait.WildcardSCMHeadFilterTrait;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DAGsHubSCMSourceTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private static DAGsHubSCMSource sourceFor(FakeDAGsHubServer server, SCMSourceOwner owner) {
+        return sourceFor(server, owner, new BranchDiscoveryTrait());
+    }
+
+    private static DAGsHubSCMSource sourceFor(FakeDAGsHubServer server, SCMSourceOwner owner,
+        SCMSourceTrait... traits) {
+        final DAGsHubSCMSource source = new DAGsHubSCMSource(server.getRepositoryUrl(), null,
+            Arrays.asList(traits));
+        source.setOwner(owner);
+        return source;
+    }
+
+    private DAGsHubSCMSource discoveringAll(FakeDAGsHubServer server, String ownerName) {
+        return sourceFor(server, new MockSCMOwner(j.jenkins, ownerName), new BranchDiscoveryTrait(),
+            new TagDiscoveryTrait(), new OriginPullRequestDiscoveryTrait(),
+            new ForkPullRequestDiscoveryTrait());
+    }
+
+    private static DAGsHubBranchEvent branchEvent(String repositoryUrl, String branch, String hash) {
+        final Repository repository = new Repository();
+        repository.setName(FakeDAGsHubServer.REPO);
+        repository.setHtmlUrl(repositoryUrl);
+        final WebhookPayload payload = new WebhookPayload();
+        payload.setRepository(repository);
+        return new DAGsHubBranchEvent(hash == null ? SCMEvent.Type.REMOVED : SCMEvent.Type.UPDATED, payload,
+            "test", branch, hash);
+    }
+
+    private static Map<SCMHead, SCMRevision> fetch(DAGsHubSCMSource source, SCMHeadEvent<?> event)
+        throws Exception {
+        return source.fetch(null, SCMHeadObserver.collect(), event, TaskListener.NULL).result();
+    }
+
+    private static String names(Map<SCMHead, SCMRevision> heads) {
+        final Set<String> names = new TreeSet<>();
+        for (SCMHead head : heads.keySet()) {
+            names.add(head.getName());
+        }
+        return names.toString();
+    }
+
+    private static void write(File file, String content) throws Exception {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int fetch(DAGsHubSCMSource source, SCMSourceCriteria criteria) throws Exception {
+        return source.fetch(criteria, SCMHeadObserver.collect(), TaskListener.NULL).result().size();
+    }
+
+    @Test
+    public void reusesCriteriaOutcomesUntilOwnerIsReconfigured() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(5, 0, 0)) {
+            final MockSCMOwner owner = new MockSCMOwner(j.jenkins, "owner");
+            final File config = new File(owner.getRootDir(), "config.xml");
+            write(config, "<scriptPath>Jenkinsfile</scriptPath>");
+            final DAGsHubSCMSource source = sourceFor(server, owner);
+            final AtomicInteger probed = new AtomicInteger();
+            final SCMSourceCriteria criteria = (probe, listener) -> {
+                probed.incrementAndGet();
+                return probe.stat("Jenkinsfile").exists();
+            };
+
+            assertEquals(5, fetch(source, criteria));
+            assertEquals(5, probed.get());
+            // Nothing moved, so the outcomes are reused
+            assertEquals(5, fetch(source, criteria));
+            assertEquals(5, probed.get());
+
+            // The criteria come from the owner, which may now check something else
+            write(config, "<scriptPath>ci/Jenkinsfile</scriptPath>");
+            assertEquals(5, fetch(source, criteria));
+            assertEquals(10, probed.get());
+            assertEquals(5, fetch(source, criteria));
+            assertEquals(10, probed.get());
+
+            // So may criteria of another kind
+            final SCMSourceCriteria other = (probe, listener) -> {
+                probed.incrementAndGet();
+                return true;
+            };
+            assertEquals(5, fetch(source, other));
+            assertEquals(15, probed.get());
+        }
+    }
+
+    @Test
+    public void retrievesOnlyHeadsOfEvent() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(120, 60, 5)) {
+            final Map<SCMHead, SCMRevision> heads = fetch(discoveringAll(server, "event"),
+                branchEvent(server.getRepositoryUrl(), "feature/branch-7", FakeDAGsHubServer.sha(1, 7)));
+            assertEquals("[feature/branch-7]", names(heads));
+            assertEquals(FakeDAGsHubServer.sha(1, 7),
+                ((GitBranchSCMRevision) heads.values().iterator().next()).getHash());
+            // Looked up on its own, rather than found among 6 pages of branches, tags and pull requests
+            assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void retrievesNothingForRemovedHead() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(120, 60, 5)) {
+            assertEquals("[]", names(fetch(discoveringAll(server, "removed"),
+                branchEvent(server.getRepositoryUrl(), "feature/gone", null))));
+            assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void retrievesNothingForEventOfOtherRepository() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(120, 60, 5)) {
+            assertEquals("[]", names(fetch(discoveringAll(server, "other"),
+                branchEvent(server.getServerUrl() + "/someone/else", "master", FakeDAGsHubServer.sha(1, 0)))));
+            assertEquals(0, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void retrievesOnlyIncludedHeadsOfDiscoveredKinds() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(120, 60, 5)) {
+            final GitTagSCMHead tag = new GitTagSCMHead("v1.3", 0L);
+            // Tags are not discovered, so there is nothing to look up
+            final DAGsHubSCMSource branchesOnly = sourceFor(server, new MockSCMOwner(j.jenkins, "branches"));
+            assertNull(branchesOnly.fetch(SCMHeadObserver.select(tag), TaskListener.NULL).result());
+            assertEquals(0, server.getRequestCount());
+
+            final SCMRevision rev = discoveringAll(server, "tags")
+                .fetch(SCMHeadObserver.select(tag), TaskListener.NULL).result();
+            assertEquals(FakeDAGsHubServer.sha(2, 3), ((GitTagSCMRevision) rev).getHash());
+            assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void observesBranchesThenTagsThenPullRequests() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(120, 60, 5)) {
+            // Slow enough for the listings to overlap
+            server.setLatencyMillis(20);
+            final Recorder recorder = new Recorder(Integer.MAX_VALUE);
+            discoveringAll(server, "ordered").fetch(recorder, TaskListener.NULL);
+            assertEquals(120 + 60 + 5, recorder.heads.size());
+            for (int i = 0; i < recorder.heads.size(); i++) {
+                final Class<?> kind = i < 120 ? GitBranchSCMHead.class
+                    : i < 180 ? GitTagSCMHead.class : PullRequestSCMHead.class;
+                assertTrue(recorder.heads.get(i).toString(), kind.isInstance(recorder.heads.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void stopsListingOnceObserverIsSatisfied() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(10_000, 10_000, 10_000)) {
+            final Recorder recorder = new Recorder(10);
+            discoveringAll(server, "satisfied").fetch(recorder, TaskListener.NULL);
+            assertEquals(10, recorder.heads.size());
+            // Each listing runs at most a buffer of 100 heads ahead, rather than through 200 pages
+            assertTrue("Made " + server.getRequestCount() + " requests", server.getRequestCount() <= 3 * 4);
+        }
+    }
+
+    @Test
+    public void failsWhenAnyListingFails() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(120, 60, 5)) {
+            server.setFailureRate(1.0, 404);
+            final Recorder recorder = new Recorder(Integer.MAX_VALUE);
+            try {
+                discoveringAll(server, "failing").fetch(recorder, TaskListener.NULL);
+                fail("Should have thrown DAGsHubApiException");
+            } catch (DAGsHubApiException e) {
+                assertEquals(404, e.getStatus());
+            }
+            assertEquals(0, recorder.heads.size());
+        }
+    }
+
+    private static SCMRevision resolve(DAGsHubSCMSource source, String revision) throws Exception {
+        return source.fetch(revision, TaskListener.NULL, null);
+    }
+
+    private static String hashOf(SCMRevision rev) {
+        return ((AbstractGitSCMSource.SCMRevisionImpl) rev).getHash();
+    }
+
+    @Test
+    public void resolvesRevisionByLookingUpEachKindInTurn() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(50, 50, 3)) {
+            final DAGsHubSCMSource source = discoveringAll(server, "resolving");
+
+            final SCMRevision branch = resolve(source, "feature/branch-2");
+            assertTrue(branch instanceof GitBranchSCMRevision);
+            assertEquals(FakeDAGsHubServer.sha(1, 2), hashOf(branch));
+            assertEquals(1, server.getRequestCount());
+
+            // Only once there is no such branch
+            final SCMRevision tag = resolve(source, "v1.2");
+            assertTrue(tag instanceof GitTagSCMRevision);
+            assertEquals(FakeDAGsHubServer.sha(2, 2), hashOf(tag));
+            assertEquals(1 + 2, server.getRequestCount());
+
+            // Then pull requests, with the configured strategy unless one is named
+            final SCMRevision pull = resolve(source, "PR-1");
+            assertTrue(((PullRequestSCMRevision) pull).isMerge());
+            assertEquals(FakeDAGsHubServer.sha(3, 0), ((PullRequestSCMRevision) pull).getHeadHash());
+            assertEquals(pull, resolve(source, "PR-1-MERGE"));
+            assertNull(resolve(source, "PR-1-HEAD"));
+            assertEquals(Integer.valueOf(3), server.getRequests().get("pulls"));
+
+            // And commits last, in full or abbreviated
+            final String commit = FakeDAGsHubServer.sha(2, 0);
+            assertEquals(commit, hashOf(resolve(source, commit)));
+            assertEquals(commit, hashOf(resolve(source, commit.substring(0, 12))));
+            assertNull(resolve(source, "0badc0ffee"));
+            assertEquals(Integer.valueOf(3), server.getRequests().get("git/commits"));
+
+            // One lookup for each kind tried, and nothing was ever listed
+            assertEquals(1 + 2 + 3 * 3 + 3 * 3, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void resolvesOnlyDiscoveredKinds() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(50, 50, 3)) {
+            final DAGsHubSCMSource source = sourceFor(server, new MockSCMOwner(j.jenkins, "tags"),
+                new TagDiscoveryTrait());
+            assertNull(resolve(source, "feature/branch-2"));
+            assertNull(resolve(source, "PR-1"));
+            assertEquals(null, server.getRequests().get("branches"));
+            assertEquals(null, server.getRequests().get("pulls"));
+            assertEquals(FakeDAGsHubServer.sha(2, 2), hashOf(resolve(source, "v1.2")));
+        }
+    }
+
+    @Test
+    public void listsOnlyNamesOfRevisions() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(120, 60, 5)) {
+            final DAGsHubSCMSource source = sourceFor(server, new MockSCMOwner(j.jenkins, "names"),
+                new BranchDiscoveryTrait(), new TagDiscoveryTrait(), new OriginPullRequestDiscoveryTrait(),
+                new ForkPullRequestDiscoveryTrait(true),
+                new WildcardSCMHeadFilterTrait("*", "feature/branch-1*"));
+            final Set<String> revisions = source.fetchRevisions(TaskListener.NULL, null);
+            // Less branch 1, 10 to 19 and 100 to 119
+            assertEquals(120 - 31 + 60 + 5, revisions.size());
+            assertTrue(revisions.contains("feature/branch-2"));
+            assertFalse(revisions.contains("feature/branch-12"));
+            assertTrue(revisions.contains("v1.59"));
+            // Named with the strategy configured for their origin
+            assertTrue(revisions.contains("PR-1-MERGE"));
+            assertTrue(revisions.contains("PR-2-HEAD"));
+
+            // One listing of each kind, without probing or looking up anything
+            assertEquals(3 + 2 + 1, server.getRequestCount());
+            assertEquals(Integer.valueOf(1), server.getRequests().get("pulls"));
+            assertNull(server.getRequests().get("git/trees"));
+
+            // Listings are kept for a while, for the next dropdown
+            assertEquals(revisions, source.fetchRevisions(TaskListener.NULL, null));
+            assertEquals(3 + 2 + 1, server.getRequestCount());
+        }
+    }
+
+    /**
+     * Records heads in the order they are observed, until it has seen enough of them.
+     */
+    private static final class Recorder extends SCMHeadObserver {
+        private final int wanted;
+        private final List<SCMHead> heads = new ArrayList<>();
+
+        private Recorder(int wanted) {
+            this.wanted = wanted;
+        }
+
+        @Override
+        public void observe(@NonNull SCMHead head, @NonNull SCMRevision revision) {
+            heads.add(head);
+        }
+
+        @Override
+        public boolean isObserving() {
+            return heads.size() < wanted;
+        }
+    }
+}
@@ -0,0 +1,755 @@
+package io.jenkins.plugins.dagshubbranchsource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An in-process stand-in for the parts of the DAGsHub API a scan uses, serving a single repository
+ * with generated branches, tags and open pull requests. Every commit has a {@code Jenkinsfile} at its
+ * root and a {@code ci/build.sh}, both of which name the commit, see {@link #fileContent(String, String)}.
+ * <p>
+ * The owner of the repository can also be given more repositories, some of them private, with
+ * {@link #setOwnerRepositories(int, int, boolean)}, for scans of the owner. Requests with basic
+ * authentication are taken to come from the user named in them, whatever the password.
+ * <p>
+ * Items are generated as they are served, so large repositories cost no memory up front. Responses can
+ * be slowed down with {@link #setLatencyMillis(long)}, made to fail with {@link #failNext(int, int)}
+ * or {@link #setFailureRate(double, int)}, validated with {@link #setETags(boolean)}, and rate limited
+ * with {@link #setRateLimit(int, int)}.
+ */
+public class FakeDAGsHubServer implements AutoCloseable {
+
+    public static final String OWNER = "owner";
+    public static final String REPO = "repo";
+
+    private static final Pattern REPO_PATH =
+        Pattern.compile("/api/v1/repos/" + OWNER + "/" + REPO + "/([^?]+)");
+    private static final Pattern BRANCH_NAME = Pattern.compile("feature/branch-(\\d+)");
+    private static final Pattern TAG_NAME = Pattern.compile("v1\\.(\\d+)");
+    private static final Pattern REPO_NAME = Pattern.compile(REPO + "-(\\d+)");
+    private static final Pattern PULL_NUMBER = Pattern.compile("(\\d+)");
+    private static final Pattern OWNER_PATH = Pattern.compile(
+        "/api/v1/(?:(orgs|users)/" + OWNER + "/repos|(user)/repos|(user)|repos/" + OWNER + "/([^/]+))");
+    private static final Pattern COMPARISON = Pattern.compile("(\\p{XDigit}{40})\\.\\.\\.(\\p{XDigit}{40})");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final List<String> FILES = Arrays.asList("Jenkinsfile", "ci/build.sh");
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    private final int branchCount;
+    private final int tagCount;
+    private final int pullCount;
+    private final Map<String, Integer> requests = new HashMap<>();
+    private final Map<String, Map<String, String>> lastQueries = new HashMap<>();
+    private final Map<String, byte[]> blobs = new ConcurrentHashMap<>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private final Random random = new Random(0);
+    private volatile int failureStatus;
+    private volatile double failureRate;
+    private volatile int rateFailureStatus;
+    private volatile long latencyMillis;
+    private volatile int ownerRepositoryCount = 1;
+    private volatile int privateRepositoryCount;
+    private volatile boolean organization;
+    private volatile boolean etags;
+    private final AtomicLong notModifiedCount = new AtomicLong();
+    private int rateLimit;
+    private long rateLimitWindowMillis;
+    private long windowStart;
+    private int windowRequests;
+    private long rateLimitedCount;
+
+    public FakeDAGsHubServer(int branchCount, int tagCount, int pullCount) throws IOException {
+        this.branchCount = branchCount;
+        this.tagCount = tagCount;
+        this.pullCount = pullCount;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    /**
+     * The URL to configure a {@link DAGsHubSCMSource} with.
+     */
+    public String getRepositoryUrl() {
+        return getServerUrl() + "/" + OWNER + "/" + REPO;
+    }
+
+    /**
+     * The URL to configure a {@link DAGsHubSCMNavigator} with.
+     */
+    public String getServerUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * The number of requests served so far.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * The number of requests served so far by endpoint, e.g. {@code branches} or {@code git/trees}.
+     */
+    public synchronized Map<String, Integer> getRequests() {
+        return new HashMap<>(requests);
+    }
+
+    /**
+     * The query parameters of the last request to an endpoint, or {@code null} if there was none.
+     */
+    public synchronized Map<String, String> getLastQuery(String endpoint) {
+        return lastQueries.get(endpoint);
+    }
+
+    /**
+     * Gives the owner more repositories than the one with the generated refs, named {@code repo-1},
+     * {@code repo-2} and so on. Private repositories are only listed to the owner, or to members of
+     * the organization, which every authenticated user is.
+     *
+     * @param count the number of repositories, including the one with the generated refs.
+     * @param privateCount how many of the last repositories are private.
+     * @param organization whether the owner is an organization rather than a user.
+     */
+    public void setOwnerRepositories(int count, int privateCount, boolean organization) {
+        this.ownerRepositoryCount = count;
+        this.privateRepositoryCount = privateCount;
+        this.organization = organization;
+    }
+
+    /**
+     * Sends an {@code ETag} with every successful response, and answers requests which already have the
+     * current one with {@code 304 Not Modified}.
+     */
+    public void setETags(boolean etags) {
+        this.etags = etags;
+    }
+
+    /**
+     * The number of requests answered with {@code 304 Not Modified} so far.
+     */
+    public long getNotModifiedCount() {
+        return notModifiedCount.get();
+    }
+
+    /**
+     * Allows only so many requests per window, like DAGsHub does. Every response says how many are left
+     * and when the window resets, in {@code X-RateLimit-*} headers, and requests beyond the limit are
+     * answered with {@code 429 Too Many Requests}.
+     *
+     * @param requests the number of requests allowed per window, or 0 for no limit.
+     */
+    public synchronized void setRateLimit(int requests, int windowSeconds) {
+        rateLimit = requests;
+        rateLimitWindowMillis = TimeUnit.SECONDS.toMillis(windowSeconds);
+        windowStart = 0;
+    }
+
+    /**
+     * The number of requests answered with {@code 429 Too Many Requests} so far.
+     */
+    public synchronized long getRateLimitedCount() {
+        return rateLimitedCount;
+    }
+
+    /**
+     * Delays every response by the given time.
+     */
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * Answers the next requests with an error.
+     *
+     * @param count the number of requests to fail.
+     * @param status the status to answer them with, e.g. 503.
+     */
+    public void failNext(int count, int status) {
+        failureStatus = status;
+        failuresLeft.set(count);
+    }
+
+    /**
+     * Answers a random share of requests with an error. The sequence of failures is the same for every
+     * instance.
+     *
+     * @param rate the share of requests to fail, from 0 to 1.
+     * @param status the status to answer them with, e.g. 503.
+     */
+    public void setFailureRate(double rate, int status) {
+        rateFailureStatus = status;
+        failureRate = rate;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        try {
+            if (latencyMillis > 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(latencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (!takeRateLimit(exchange)) {
+                respond(exchange, 429, null, null);
+                return;
+            }
+            final int failure = nextFailure();
+            if (failure != 0) {
+                respond(exchange, failure, null, null);
+                return;
+            }
+            final URI uri = exchange.getRequestURI();
+            final Matcher ownerMatcher = OWNER_PATH.matcher(uri.getPath());
+            if (ownerMatcher.matches()) {
+                handleOwner(exchange, ownerMatcher, query(uri));
+                return;
+            }
+            final Matcher matcher = REPO_PATH.matcher(uri.getPath());
+            if (!matcher.matches()) {
+                respond(exchange, 404, null, null);
+                return;
+            }
+            final String[] path = matcher.group(1).split("/", 2);
+            final Map<String, String> query = query(uri);
+            synchronized (this) {
+                final String endpoint = path.length > 1 && path[0].equals("git")
+                    ? "git/" + path[1].split("/")[0] : path[0];
+                requests.merge(endpoint, 1, Integer::sum);
+                lastQueries.put(endpoint, query);
+            }
+            if (path.length == 1) {
+                switch (path[0]) {
+                    case "branches":
+                        respondPage(exchange, branchCount, FakeDAGsHubServer::branch, query);
+                        return;
+                    case "tags":
+                        respondPage(exchange, tagCount, FakeDAGsHubServer::tag, query);
+                        return;
+                    case "pulls":
+                        respondPage(exchange, pullCount, FakeDAGsHubServer::pull, query);
+                        return;
+                    case "contents":
+                        respondContents(exchange, "", query.get("ref"));
+                        return;
+                    default:
+                        break;
+                }
+            } else {
+                switch (path[0]) {
+                    case "branches":
+                        respondItem(exchange, branchIndex(path[1]), branchCount,
+                            FakeDAGsHubServer::branch);
+                        return;
+                    case "tags":
+                        respondItem(exchange, indexOf(path[1], TAG_NAME), tagCount, FakeDAGsHubServer::tag);
+                        return;
+                    case "pulls":
+                        // Pull requests are numbered from 1
+                        respondItem(exchange, indexOf(path[1], PULL_NUMBER) - 1, pullCount,
+                            FakeDAGsHubServer::pull);
+                        return;
+                    case "compare":
+                        respondComparison(exchange, path[1]);
+                        return;
+                    case "contents":
+                        respondContents(exchange, path[1], query.get("ref"));
+                        return;
+                    case "git":
+                        if (path[1].startsWith("trees/")) {
+                            respond(exchange, 200, tree(path[1].substring("trees/".length())), null);
+                            return;
+                        }
+                        if (path[1].startsWith("commits/")) {
+                            final String commit = resolveCommit(path[1].substring("commits/".length()));
+                            respond(exchange, commit == null ? 404 : 200,
+                                commit == null ? null : Collections.singletonMap("sha", commit), null);
+                            return;
+                        }
+                        if (path[1].startsWith("blobs/")) {
+                            final byte[] blob = blobs.get(path[1].substring("blobs/".length()));
+                            respond(exchange, blob == null ? 404 : 200, blob == null ? null : file(null, blob),
+                                null);
+                            return;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            respond(exchange, 404, null, null);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleOwner(HttpExchange exchange, Matcher matcher, Map<String, String> query)
+        throws IOException {
+        final String endpoint = matcher.group(1) != null ? matcher.group(1)
+            : matcher.group(2) != null ? "user/repos" : matcher.group(3) != null ? "user" : "repos";
+        synchronized (this) {
+            requests.merge(endpoint, 1, Integer::sum);
+            lastQueries.put(endpoint, query);
+        }
+        final String user = authenticatedUser(exchange);
+        final int count = ownerRepositoryCount;
+        final int visible = user == null ? count - privateRepositoryCount : count;
+        switch (endpoint) {
+            case "orgs":
+                if (organization) {
+                    respondPage(exchange, visible, this::ownerRepository, query);
+                } else {
+                    respond(exchange, 404, null, null);
+                }
+                return;
+            case "users":
+                // The public listing of a user, whoever asks
+                respondPage(exchange, organization ? visible : count - privateRepositoryCount,
+                    this::ownerRepository, query);
+                return;
+            case "user/repos":
+                if (user == null) {
+                    respond(exchange, 401, null, null);
+                } else if (user.equals(OWNER)) {
+                    // Everything the user can see, including a repository of someone else
+                    respondPage(exchange, count + 1,
+                        i -> i == count ? repository("someone-else") : ownerRepository(i), query);
+                } else {
+                    respondPage(exchange, 1, i -> repository("someone-else"), query);
+                }
+                return;
+            case "user":
+                if (user == null) {
+                    respond(exchange, 401, null, null);
+                } else {
+                    respond(exchange, 200, user(user), null);
+                }
+                return;
+            default:
+                final int index = matcher.group(4).equals(REPO) ? 0 : indexOf(matcher.group(4), REPO_NAME);
+                respondItem(exchange, index, visible, this::ownerRepository);
+        }
+    }
+
+    /**
+     * @return the user named in the basic authentication of the request, or {@code null} if there is none.
+     */
+    private static String authenticatedUser(HttpExchange exchange) {
+        final String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith("Basic ")) {
+            return null;
+        }
+        final String credentials = new String(Base64.getDecoder().decode(authorization.substring(6).trim()),
+            StandardCharsets.UTF_8);
+        final int colon = credentials.indexOf(':');
+        return colon < 0 ? credentials : credentials.substring(0, colon);
+    }
+
+    /**
+     * @return the status to fail the current request with, or 0 to serve it.
+     */
+    private int nextFailure() {
+        if (failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+            return failureStatus;
+        }
+        final double rate = failureRate;
+        if (rate > 0) {
+            synchronized (random) {
+                if (random.nextDouble() < rate) {
+                    return rateFailureStatus;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private void respondPage(HttpExchange exchange, int count, IntFunction<Map<String, Object>> item,
+        Map<String, String> query) throws IOException {
+        final int page = Integer.parseInt(query.getOrDefault("page", "1"));
+        final int limit = Integer.parseInt(query.getOrDefault("limit", "50"));
+        final int from = (int) Math.min(count, (long) (page - 1) * limit);
+        final int to = Math.min(count, from + limit);
+        final List<Map<String, Object>> items = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            items.add(item.apply(i));
+        }
+        respond(exchange, 200, items, String.valueOf(count));
+    }
+
+    private void respondItem(HttpExchange exchange, int index, int count,
+        IntFunction<Map<String, Object>> item) throws IOException {
+        if (index >= 0 && index < count) {
+            respond(exchange, 200, item.apply(index), null);
+        } else {
+            respond(exchange, 404, null, null);
+        }
+    }
+
+    /**
+     * Compares two generated commits, given as {@code base...head}. A commit is one more commit ahead of
+     * its merge base with any other commit than the last digit of its index.
+     */
+    private void respondComparison(HttpExchange exchange, String baseHead) throws IOException {
+        final Matcher matcher = COMPARISON.matcher(baseHead);
+        if (!matcher.matches()) {
+            respond(exchange, 404, null, null);
+            return;
+        }
+        final Map<String, Object> comparison = new LinkedHashMap<>();
+        comparison.put("total_commits", matcher.group(1).equals(matcher.group(2)) ? 0
+            : Integer.parseInt(matcher.group(2).substring(8), 16) % 10 + 1);
+        comparison.put("commits", Collections.emptyList());
+        respond(exchange, 200, comparison, null);
+    }
+
+    /**
+     * Resolves a full or abbreviated SHA to the first generated commit it names.
+     *
+     * @return the full SHA, or {@code null} if no commit has it.
+     */
+    private String resolveCommit(String sha) {
+        final int[] counts = {branchCount, tagCount, pullCount};
+        for (int kind = 1; kind <= counts.length; kind++) {
+            for (int i = 0; i < counts[kind - 1]; i++) {
+                if (sha(kind, i).startsWith(sha.toLowerCase())) {
+                    return sha(kind, i);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Answers like the contents API: a file with its content, or the entries of a directory.
+     */
+    private void respondContents(HttpExchange exchange, String path, String ref) throws IOException {
+        if (FILES.contains(path)) {
+            respond(exchange, 200, file(path, fileContent(path, ref)), null);
+            return;
+        }
+        final String prefix = path.isEmpty() ? "" : path + "/";
+        final Map<String, Map<String, Object>> entries = new TreeMap<>();
+        for (String file : FILES) {
+            if (file.startsWith(prefix)) {
+                final String rest = file.substring(prefix.length());
+                final int slash = rest.indexOf('/');
+                if (slash < 0) {
+                    final Map<String, Object> entry = file(file, fileContent(file, ref));
+                    // Listed without their content
+                    entry.remove("encoding");
+                    entry.remove("content");
+                    entries.put(rest, entry);
+                } else {
+                    final Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("name", rest.substring(0, slash));
+                    entry.put("path", prefix + rest.substring(0, slash));
+                    entry.put("sha", sha(8, entry.get("path").hashCode() & 0xffff));
+                    entry.put("type", "dir");
+                    entries.put(rest.substring(0, slash), entry);
+                }
+            }
+        }
+        if (entries.isEmpty()) {
+            respond(exchange, 404, null, null);
+        } else {
+            respond(exchange, 200, new ArrayList<>(entries.values()), null);
+        }
+    }
+
+    /**
+     * A file of the contents API, or a blob if the path is {@code null}. Its content can then also be
+     * read as a blob.
+     */
+    private Map<String, Object> file(String path, byte[] content) {
+        final String sha = sha(9, Arrays.hashCode(content) & 0x7fffffff);
+        blobs.put(sha, content);
+        final Map<String, Object> file = new LinkedHashMap<>();
+        if (path != null) {
+            file.put("name", path.substring(path.lastIndexOf('/') + 1));
+            file.put("path", path);
+            file.put("type", "file");
+        }
+        file.put("sha", sha);
+        file.put("size", content.length);
+        file.put("encoding", "base64");
+        file.put("content", Base64.getMimeEncoder().encodeToString(content));
+        return file;
+    }
+
+    /**
+     * The content of a file at a commit, or other ref.
+     */
+    public static byte[] fileContent(String path, String ref) {
+        return ("echo '" + path + " at " + ref + "'\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the index of the named item, or -1 if no item has that name.
+     */
+    private static int indexOf(String name, Pattern pattern) {
+        final Matcher matcher = pattern.matcher(name);
+        return matcher.matches() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    private static int branchIndex(String name) {
+        // Branch 0 is master rather than feature/branch-0
+        final int index = name.equals("master") ? 0 : indexOf(name, BRANCH_NAME);
+        return index == 0 && !name.equals("master") ? -1 : index;
+    }
+
+    /**
+     * Counts a request against the rate limit, if any, and tells the client how many are left.
+     *
+     * @return whether the request is within the limit.
+     */
+    private synchronized boolean takeRateLimit(HttpExchange exchange) {
+        if (rateLimit <= 0) {
+            return true;
+        }
+        final long now = System.currentTimeMillis();
+        if (now - windowStart >= rateLimitWindowMillis) {
+            windowStart = now;
+            windowRequests = 0;
+        }
+        final boolean allowed = windowRequests < rateLimit;
+        if (allowed) {
+            windowRequests++;
+        } else {
+            rateLimitedCount++;
+        }
+        final long resetMillis = windowStart + rateLimitWindowMillis - now;
+        exchange.getResponseHeaders().set("X-RateLimit-Remaining", String.valueOf(rateLimit - windowRequests));
+        exchange.getResponseHeaders().set("X-RateLimit-Reset",
+            String.valueOf(TimeUnit.MILLISECONDS.toSeconds(resetMillis + 999)));
+        return allowed;
+    }
+
+    private void respond(HttpExchange exchange, int status, Object body, String totalCount)
+        throws IOException {
+        final byte[] bytes = body == null ? new byte[0] : MAPPER.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (totalCount != null) {
+            exchange.getResponseHeaders().set("X-Total-Count", totalCount);
+        }
+        if (etags && status == 200) {
+            final String etag = "\"" + Integer.toHexString(Arrays.hashCode(bytes)) + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedCount.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+        }
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static Map<String, String> query(URI uri) {
+        final Map<String, String> query = new HashMap<>();
+        if (uri.getRawQuery() != null) {
+            for (String param : uri.getRawQuery().split("&")) {
+                final int eq = param.indexOf('=');
+                if (eq > 0) {
+                    query.put(param.substring(0, eq), param.substring(eq + 1));
+                }
+            }
+        }
+        return query;
+    }
+
+    /**
+     * The SHA of a generated commit: kind 1 for branches, 2 for tags and 3 for pull request heads.
+     */
+    public static String sha(int kind, int index) {
+        return String.format("%08x%032x", kind, (long) index);
+    }
+
+    private static Map<String, Object> tree(String sha) {
+        final Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("path", "Jenkinsfile");
+        entry.put("mode", "100644");
+        entry.put("type", "blob");
+        entry.put("sha", sha(9, sha.hashCode() & 0xffff));
+        final Map<String, Object> tree = new LinkedHashMap<>();
+        tree.put("sha", sha);
+        tree.put("tree", Collections.singletonList(entry));
+        tree.put("truncated", false);
+        return tree;
+    }
+
+    private static Map<String, Object> commit(String sha) {
+        final Map<String, Object> person = new LinkedHashMap<>();
+        person.put("name", "Jane Doe");
+        person.put("email", "jane@example.com");
+        person.put("username", "jane");
+        final Map<String, Object> commit = new LinkedHashMap<>();
+        commit.put("id", sha);
+        commit.put("message", "Commit " + sha + "\n\nWith a body that is a bit longer than a summary line.");
+        commit.put("url", "https://dagshub.com/" + OWNER + "/" + REPO + "/commit/" + sha);
+        commit.put("author", person);
+        commit.put("committer", person);
+        return commit;
+    }
+
+    private static Map<String, Object> user(String name) {
+        final Map<String, Object> user = new LinkedHashMap<>();
+        user.put("id", name.hashCode() & 0xffff);
+        user.put("user_name", name);
+        user.put("full_name", name.toUpperCase());
+        user.put("email", name + "@example.com");
+        user.put("avatar_url", "https://dagshub.com/avatars/" + name);
+        return user;
+    }
+
+    private static Map<String, Object> repository(String owner) {
+        final Map<String, Object> repository = new LinkedHashMap<>();
+        repository.put("id", owner.hashCode() & 0xffff);
+        repository.put("owner", user(owner));
+        repository.put("name", REPO);
+        repository.put("full_name", owner + "/" + REPO);
+        repository.put("description", "A repository with a description");
+        repository.put("private", false);
+        repository.put("fork", !owner.equals(OWNER));
+        if (!owner.equals(OWNER)) {
+            repository.put("parent", repository(OWNER));
+        }
+        repository.put("empty", false);
+        repository.put("mirror", false);
+        repository.put("size", 1024);
+        repository.put("html_url", "https://dagshub.com/" + owner + "/" + REPO);
+        repository.put("ssh_url", "git@dagshub.com:" + owner + "/" + REPO + ".git");
+        repository.put("clone_url", "https://dagshub.com/" + owner + "/" + REPO + ".git");
+        repository.put("default_branch", "master");
+        repository.put("created_at", "2021-01-01T00:00:00Z");
+        repository.put("updated_at", "2021-06-01T12:00:00+02:00");
+        return repository;
+    }
+
+    /**
+     * Repository {@code index} of the owner, served by this server.
+     */
+    private Map<String, Object> ownerRepository(int index) {
+        final String name = index == 0 ? REPO : REPO + "-" + index;
+        final String url = getServerUrl() + "/" + OWNER + "/" + name;
+        final Map<String, Object> repository = repository(OWNER);
+        repository.put("id", index + 1);
+        repository.put("name", name);
+        repository.put("full_name", OWNER + "/" + name);
+        repository.put("private", index >= ownerRepositoryCount - privateRepositoryCount);
+        repository.put("html_url", url);
+        repository.put("clone_url", url + ".git");
+        return repository;
+    }
+
+    /**
+     * Branch payloads, like those listed by the server.
+     */
+    public static List<Map<String, Object>> branches(int count) {
+        final List<Map<String, Object>> branches = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            branches.add(branch(i));
+        }
+        return branches;
+    }
+
+    private static Map<String, Object> branch(int i) {
+        final Map<String, Object> branch = new LinkedHashMap<>();
+        branch.put("name", i == 0 ? "master" : "feature/branch-" + i);
+        branch.put("commit", commit(sha(1, i)));
+        return branch;
+    }
+
+    /**
+     * Tag payloads, like those listed by the server.
+     */
+    public static List<Map<String, Object>> tags(int count) {
+        final List<Map<String, Object>> tags = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tags.add(tag(i));
+        }
+        return tags;
+    }
+
+    private static Map<String, Object> tag(int i) {
+        final Map<String, Object> tag = new LinkedHashMap<>();
+        tag.put("name", "v1." + i);
+        tag.put("commit", commit(sha(2, i)));
+        return tag;
+    }
+
+    /**
+     * Open pull request payloads, like those listed by the server. Every other one is from a fork.
+     */
+    public static List<Map<String, Object>> pulls(int count) {
+        final List<Map<String, Object>> pulls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            pulls.add(pull(i));
+        }
+        return pulls;
+    }
+
+    private static Map<String, Object> pull(int i) {
+        final boolean fork = i % 2 == 1;
+        final Map<String, Object> pull = new LinkedHashMap<>();
+        pull.put("id", 1000 + i);
+        pull.put("number", i + 1);
+        pull.put("user", user("contributor" + i));
+        pull.put("title", "Pull request " + (i + 1));
+        pull.put("body", "Changes things.\n\nAnd explains why, at some length.");
+        pull.put("state", "open");
+        pull.put("comments", i % 7);
+        pull.put("head_branch", "change-" + i);
+        pull.put("head_commit", commit(sha(3, i)));
+        pull.put("head_repo", repository(fork ? "contributor" + i : OWNER));
+        pull.put("base_branch", "master");
+        pull.put("base_commit", commit(sha(1, 0)));
+        pull.put("base_repo", repository(OWNER));
+        pull.put("same_origin", !fork);
+        pull.put("html_url", "https://dagshub.com/" + OWNER + "/" + REPO + "/pulls/" + (i + 1));
+        pull.put("mergeable", true);
+        pull.put("has_merged", false);
+        return pull;
+    }
+}
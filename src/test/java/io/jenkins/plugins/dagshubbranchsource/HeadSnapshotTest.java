@@ -0,0 +1,93 @@
+package io.jenkins.plugins.dagshubbranchsource;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import jenkins.plugins.git.GitBranchSCMHead;
+import jenkins.plugins.git.GitBranchSCMRevision;
+import jenkins.plugins.git.GitTagSCMHead;
+import jenkins.plugins.git.GitTagSCMRevision;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class HeadSnapshotTest {
+
+    private static final GitBranchSCMHead BRANCH = new GitBranchSCMHead("release");
+    private static final GitTagSCMHead TAG = new GitTagSCMHead("release", 0L);
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static GitBranchSCMRevision branchAt(int index) {
+        return new GitBranchSCMRevision(BRANCH, FakeDAGsHubServer.sha(1, index));
+    }
+
+    private static GitTagSCMRevision tagAt(int index) {
+        return new GitTagSCMRevision(TAG, FakeDAGsHubServer.sha(2, index));
+    }
+
+    private File saved() throws Exception {
+        final HeadSnapshot snapshot = new HeadSnapshot("criteria");
+        snapshot.record(BRANCH, branchAt(1), false);
+        snapshot.record(TAG, tagAt(1), true);
+        final File file = new File(tmp.getRoot(), "heads.json");
+        snapshot.save(file);
+        return file;
+    }
+
+    @Test
+    public void reusesOutcomesOfUnchangedHeads() throws Exception {
+        final HeadSnapshot loaded = HeadSnapshot.load(saved(), "criteria");
+        assertEquals(Boolean.FALSE, loaded.matched(BRANCH, branchAt(1)));
+        // A tag and a branch of the same name are told apart
+        assertEquals(Boolean.TRUE, loaded.matched(TAG, tagAt(1)));
+        assertNull(loaded.matched(BRANCH, branchAt(2)));
+        assertNull(loaded.matched(new GitBranchSCMHead("other"), branchAt(1)));
+    }
+
+    @Test
+    public void ignoresSnapshotOfOtherCriteria() throws Exception {
+        final File file = saved();
+        final HeadSnapshot loaded = HeadSnapshot.load(file, "changed");
+        assertNull(loaded.matched(BRANCH, branchAt(1)));
+
+        // Saving it again starts over for the new criteria
+        loaded.record(BRANCH, branchAt(1), true);
+        loaded.save(file);
+        assertEquals(Boolean.TRUE, HeadSnapshot.load(file, "changed").matched(BRANCH, branchAt(1)));
+        assertNull(HeadSnapshot.load(file, "criteria").matched(TAG, tagAt(1)));
+    }
+
+    @Test
+    public void ignoresCorruptSnapshot() throws Exception {
+        final File file = saved();
+        Files.write(file.toPath(), "{\"criteria\": \"criteria\", \"heads\": {\"branch:rel".getBytes(
+            StandardCharsets.UTF_8));
+        final HeadSnapshot loaded = HeadSnapshot.load(file, "criteria");
+        assertNull(loaded.matched(BRANCH, branchAt(1)));
+
+        loaded.record(BRANCH, branchAt(1), true);
+        loaded.save(file);
+        assertEquals(Boolean.TRUE, HeadSnapshot.load(file, "criteria").matched(BRANCH, branchAt(1)));
+    }
+
+    @Test
+    public void ignoresSnapshotWithoutCriteria() throws Exception {
+        // As saved before snapshots had a criteria key
+        final File file = new File(tmp.getRoot(), "heads.json");
+        Files.write(file.toPath(), ("{\"branch:release\": {\"hash\": \"" + FakeDAGsHubServer.sha(1, 1)
+            + "\", \"matched\": false}}").getBytes(StandardCharsets.UTF_8));
+        assertNull(HeadSnapshot.load(file, "criteria").matched(BRANCH, branchAt(1)));
+    }
+
+    @Test
+    public void ignoresMissingSnapshot() {
+        assertNull(HeadSnapshot.load(new File(tmp.getRoot(), "missing.json"), "criteria")
+            .matched(BRANCH, branchAt(1)));
+        assertNull(HeadSnapshot.load(null, "criteria").matched(BRANCH, branchAt(1)));
+    }
+}
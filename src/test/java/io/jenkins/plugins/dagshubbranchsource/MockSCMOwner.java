@@ -0,0 +1,70 @@
+package io.jenkins.plugins.dagshubbranchsource;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.AbstractItem;
+import hudson.model.ItemGroup;
+import hudson.model.Job;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import jenkins.scm.api.SCMNavigator;
+import jenkins.scm.api.SCMNavigatorOwner;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.SCMSourceCriteria;
+
+/**
+ * A bare owner for sources and navigators, outside of any folder. Its configuration file is only
+ * written by the tests.
+ */
+public class MockSCMOwner extends AbstractItem implements SCMNavigatorOwner {
+
+    private final File rootDir;
+
+    public MockSCMOwner(ItemGroup<?> parent, String name) {
+        super(parent, name);
+        this.rootDir = new File(parent.getRootDir(), "owners/" + name);
+        rootDir.mkdirs();
+    }
+
+    @Override
+    public File getRootDir() {
+        return rootDir;
+    }
+
+    @Override
+    public Collection<? extends Job> getAllJobs() {
+        return Collections.emptyList();
+    }
+
+    @NonNull
+    @Override
+    public List<SCMNavigator> getSCMNavigators() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public void onSCMNavigatorSaved(@NonNull SCMNavigator navigator) {
+    }
+
+    @NonNull
+    @Override
+    public List<SCMSource> getSCMSources() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public SCMSource getSCMSource(String sourceId) {
+        return null;
+    }
+
+    @Override
+    public void onSCMSourceUpdated(@NonNull SCMSource source) {
+    }
+
+    @Override
+    public SCMSourceCriteria getSCMSourceCriteria(@NonNull SCMSource source) {
+        return null;
+    }
+}
@@ -0,0 +1,36 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class CircuitBreakerTest {
+
+    @Test
+    public void opensAfterConsecutiveFailures() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("test");
+        for (int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD - 1; i++) {
+            breaker.acquire();
+            breaker.recordFailure();
+        }
+        breaker.acquire();
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        for (int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD; i++) {
+            breaker.acquire();
+            breaker.recordFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(1, breaker.getOpenedCount());
+        try {
+            breaker.acquire();
+            fail("Should have thrown CircuitBreakerOpenException");
+        } catch (CircuitBreakerOpenException e) {
+            assertEquals(1, breaker.getRejectedCount());
+        }
+        assertEquals(2 * CircuitBreaker.FAILURE_THRESHOLD - 1, breaker.getFailureCount());
+        assertEquals(1, breaker.getSuccessCount());
+    }
+}
@@ -0,0 +1,148 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import io.jenkins.plugins.dagshubbranchsource.FakeDAGsHubServer;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DAGsHubClientRegistryTest {
+
+    private final DAGsHubClientRegistry registry = DAGsHubClientRegistry.get();
+
+    /**
+     * A time at which every client released until now has been idle for long enough to be evicted.
+     */
+    private static long afterIdleTimeout() {
+        return System.nanoTime() + TimeUnit.SECONDS.toNanos(DAGsHubClientRegistry.IDLE_TIMEOUT_SECONDS + 1);
+    }
+
+    /**
+     * The API root of a server of its own, so that tests don't share clients.
+     */
+    private static URI apiRootOf(String server) {
+        return URI.create("http://" + server + ".dagshub.example/api/v1/");
+    }
+
+    /**
+     * The anonymous client of the API root, leased and released.
+     */
+    private DAGsHubClientRegistry.Entry peek(URI root) {
+        final DAGsHubClientRegistry.Entry entry = registry.acquire(root, null, null);
+        registry.release(entry);
+        return entry;
+    }
+
+    @Test
+    public void sharesClientPerServerAndCredential() {
+        final URI root = apiRootOf("shared");
+        final DAGsHubClientRegistry.Entry anonymous = registry.acquire(root, null, null);
+        final DAGsHubClientRegistry.Entry user = registry.acquire(root, "user", "token");
+        final DAGsHubClientRegistry.Entry other = registry.acquire(root, "user", "other");
+        try {
+            assertSame(anonymous, registry.acquire(root, null, null));
+            registry.release(anonymous);
+            assertSame(user, registry.acquire(root, "user", "token"));
+            registry.release(user);
+            assertNotSame(anonymous, user);
+            assertNotSame(user, other);
+            assertNotSame(anonymous, peek(apiRootOf("elsewhere")));
+            assertFalse(user.getKey().contains("token"));
+            // Whatever their credentials, clients of a server slow down together
+            assertSame(anonymous.getRateLimiter(), user.getRateLimiter());
+            assertSame(anonymous.getCircuitBreaker(), other.getCircuitBreaker());
+        } finally {
+            registry.release(anonymous);
+            registry.release(user);
+            registry.release(other);
+        }
+    }
+
+    @Test
+    public void keepsLeasedClients() {
+        final URI root = apiRootOf("leased");
+        final DAGsHubClientRegistry.Entry entry = registry.acquire(root, null, null);
+        try {
+            registry.evictIdle(afterIdleTimeout());
+            assertSame(entry, peek(root));
+        } finally {
+            registry.release(entry);
+        }
+    }
+
+    @Test
+    public void evictsIdleClients() {
+        final URI root = apiRootOf("idle");
+        final DAGsHubClientRegistry.Entry entry = peek(root);
+        // Not idle for long enough yet
+        registry.evictIdle(System.nanoTime());
+        assertSame(entry, peek(root));
+
+        assertTrue(registry.evictIdle(afterIdleTimeout()) >= 1);
+        try {
+            entry.getClient().target(root);
+            fail("The evicted client should have been closed");
+        } catch (IllegalStateException e) {
+            // Pass
+        }
+        final DAGsHubClientRegistry.Entry rebuilt = peek(root);
+        assertNotSame(entry, rebuilt);
+        // Contents never change, so their cache outlives the client
+        assertSame(entry.getContentCache(), rebuilt.getContentCache());
+    }
+
+    @Test
+    public void sharesValidatorsBetweenSourcesOfSameCredential() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(120, 0, 0);
+            DAGsHubApi first = DAGsHubApi.create(server.getRepositoryUrl());
+            DAGsHubApi second = DAGsHubApi.create(server.getRepositoryUrl());
+            DAGsHubApi other = DAGsHubApi.create(server.getRepositoryUrl(), "user", "token")) {
+            server.setETags(true);
+            // The pages listed by one are revalidated by the other
+            assertEquals(120, first.getBranches().size());
+            assertEquals(120, second.getBranches().size());
+            assertEquals(3, server.getNotModifiedCount());
+            // But not by a client of another user, who may see something else
+            assertEquals(120, other.getBranches().size());
+            assertEquals(3, server.getNotModifiedCount());
+        }
+    }
+
+    @Test
+    public void dropsValidatorsOfIdleClients() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(120, 0, 0)) {
+            server.setETags(true);
+            try (DAGsHubApi api = DAGsHubApi.create(server.getRepositoryUrl())) {
+                assertEquals(120, api.getBranches().size());
+            }
+            registry.evictIdle(afterIdleTimeout());
+
+            // The validators went with the client, so nothing is revalidated
+            try (DAGsHubApi api = DAGsHubApi.create(server.getRepositoryUrl())) {
+                assertEquals(120, api.getBranches().size());
+            }
+            assertEquals(0, server.getNotModifiedCount());
+        }
+    }
+
+    @Test
+    public void watchesCircuitBreakersOfEveryServer() {
+        final CircuitBreaker existing = registry.getCircuitBreaker(apiRootOf("watched"));
+        final List<CircuitBreaker> watched = new ArrayList<>();
+        registry.watchCircuitBreakers(watched::add);
+        assertTrue(watched.contains(existing));
+
+        final CircuitBreaker created = registry.getCircuitBreaker(apiRootOf("unwatched"));
+        assertSame(created, watched.get(watched.size() - 1));
+        registry.getCircuitBreaker(apiRootOf("unwatched"));
+        assertEquals(1, watched.stream().filter(created::equals).count());
+    }
+}
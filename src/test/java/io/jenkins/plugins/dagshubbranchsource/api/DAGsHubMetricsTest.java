@@ -0,0 +1,113 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DAGsHubMetricsTest {
+
+    private static final URI API_ROOT = URI.create("https://dagshub.com/api/v1/");
+
+    private static DAGsHubMetrics.Endpoint endpointOf(String path) {
+        return DAGsHubMetrics.Endpoint.of(API_ROOT, API_ROOT.resolve(path));
+    }
+
+    @Test
+    public void endpoints() {
+        assertEquals(DAGsHubMetrics.Endpoint.BRANCHES, endpointOf("repos/user/repo/branches?page=2&limit=50"));
+        assertEquals(DAGsHubMetrics.Endpoint.BRANCH, endpointOf("repos/user/repo/branches/feature/x"));
+        assertEquals(DAGsHubMetrics.Endpoint.TAG, endpointOf("repos/user/repo/tags/v1.0"));
+        assertEquals(DAGsHubMetrics.Endpoint.PULLS, endpointOf("repos/user/repo/pulls?state=open"));
+        assertEquals(DAGsHubMetrics.Endpoint.PULL, endpointOf("repos/user/repo/pulls/12"));
+        assertEquals(DAGsHubMetrics.Endpoint.CONTENTS, endpointOf("repos/user/repo/contents?ref=master"));
+        assertEquals(DAGsHubMetrics.Endpoint.REPOSITORY, endpointOf("repos/user/repo"));
+        assertEquals(DAGsHubMetrics.Endpoint.REPOSITORIES, endpointOf("orgs/org/repos"));
+        assertEquals(DAGsHubMetrics.Endpoint.OTHER, endpointOf("version"));
+    }
+
+    @Test
+    public void responses() {
+        final DAGsHubMetrics metrics = new DAGsHubMetrics();
+        for (int i = 1; i <= 100; i++) {
+            metrics.recordResponse(DAGsHubMetrics.Endpoint.BRANCHES, i == 100 ? 503 : 200,
+                TimeUnit.MILLISECONDS.toNanos(i), 2048);
+        }
+        metrics.recordFailure(DAGsHubMetrics.Endpoint.BRANCHES, TimeUnit.SECONDS.toNanos(1));
+
+        final Map<String, Number> snapshot = metrics.snapshot();
+        assertEquals(101L, snapshot.get("dagshub.api.branches.latency.count"));
+        assertEquals(99L, snapshot.get("dagshub.api.branches.status.2xx"));
+        assertEquals(1L, snapshot.get("dagshub.api.branches.status.5xx"));
+        assertEquals(2L, snapshot.get("dagshub.api.branches.errors"));
+        assertEquals(100L, snapshot.get("dagshub.api.branches.latency.p50"));
+        assertEquals(1000L, snapshot.get("dagshub.api.branches.latency.max"));
+        assertEquals(100L * 2048, snapshot.get("dagshub.api.branches.size.sum"));
+        assertEquals(0L, snapshot.get("dagshub.api.tags.latency.count"));
+    }
+
+    @Test
+    public void phases() {
+        final DAGsHubMetrics metrics = new DAGsHubMetrics();
+        metrics.recordPhase(DAGsHubMetrics.Phase.PULL_REQUESTS, TimeUnit.MILLISECONDS.toNanos(300));
+        assertEquals(1L, metrics.snapshot().get("dagshub.retrieve.pull-requests.count"));
+        assertEquals(300L, metrics.snapshot().get("dagshub.retrieve.pull-requests.p99"));
+    }
+
+    @Test
+    public void circuitBreakers() throws Exception {
+        // Opens at once, and lets a probe through right away
+        final CircuitBreaker breaker = new CircuitBreaker("https://dagshub.com/api/v1/", 0);
+        final Map<String, Supplier<Number>> gauges = DAGsHubMetrics.getGauges(breaker);
+        final String prefix = "dagshub.circuit-breaker.dagshub.com_api_v1.";
+        assertEquals(CircuitBreaker.State.CLOSED.ordinal(), gauges.get(prefix + "state").get());
+
+        for (int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD; i++) {
+            breaker.acquire();
+            breaker.recordFailure();
+        }
+        assertEquals((long) CircuitBreaker.FAILURE_THRESHOLD, gauges.get(prefix + "failures").get());
+        assertEquals(1L, gauges.get(prefix + "opened").get());
+        assertEquals(CircuitBreaker.State.HALF_OPEN.ordinal(), gauges.get(prefix + "state").get());
+        assertEquals(0L, gauges.get(prefix + "probes").get());
+
+        breaker.acquire();
+        assertEquals(1L, gauges.get(prefix + "probes").get());
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED.ordinal(), gauges.get(prefix + "state").get());
+        assertEquals(1L, gauges.get(prefix + "opened").get());
+    }
+
+    @Test
+    public void serverNames() {
+        assertEquals("dagshub.com_api_v1", DAGsHubMetrics.serverName("https://dagshub.com/api/v1/"));
+        assertEquals("localhost_8080_api_v1", DAGsHubMetrics.serverName("http://localhost:8080/api/v1"));
+    }
+
+    @Test
+    public void sharedCalls() throws Exception {
+        final SingleFlight flight = new SingleFlight();
+        final DAGsHubMetrics metrics = new DAGsHubMetrics(flight);
+        final FutureTask<Object> follower = new FutureTask<>(() -> flight.execute("key", Object::new));
+        flight.execute("key", () -> {
+            assertEquals(1, metrics.snapshot().get("dagshub.api.single-flight.in-flight"));
+            final Thread thread = new Thread(follower);
+            thread.start();
+            try {
+                while (thread.getState() != Thread.State.WAITING) {
+                    Thread.sleep(1);
+                }
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return new Object();
+        });
+        follower.get();
+        assertEquals(1L, metrics.snapshot().get("dagshub.api.single-flight.saved"));
+        assertEquals(0, metrics.snapshot().get("dagshub.api.single-flight.in-flight"));
+    }
+}
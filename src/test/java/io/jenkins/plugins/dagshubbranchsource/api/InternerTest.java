@@ -0,0 +1,48 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jenkins.plugins.dagshubbranchsource.FakeDAGsHubServer;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class InternerTest {
+
+    private static List<PullRequestHead> pulls(int count) throws Exception {
+        final ObjectMapper mapper = DAGsHubClientRegistry.get().getMapper();
+        return mapper.readValue(mapper.writeValueAsBytes(FakeDAGsHubServer.pulls(count)),
+            new TypeReference<List<PullRequestHead>>() {});
+    }
+
+    @Test
+    public void sharesRepositoriesAndStrings() throws Exception {
+        final List<PullRequestHead> pulls = pulls(6);
+        assertNotSame(pulls.get(0).getBaseRepo(), pulls.get(2).getBaseRepo());
+
+        final Interner interner = new Interner();
+        for (PullRequestHead pull : pulls) {
+            pull.intern(interner);
+        }
+        // Pull requests from the repository itself have it as both head and base
+        assertSame(pulls.get(0).getBaseRepo(), pulls.get(2).getBaseRepo());
+        assertSame(pulls.get(0).getBaseRepo(), pulls.get(2).getHeadRepo());
+        assertSame(pulls.get(0).getBaseCommit(), pulls.get(5).getBaseCommit());
+        assertSame(pulls.get(0).getBaseBranch(), pulls.get(5).getBaseBranch());
+        // Every fork is a different repository
+        assertNotSame(pulls.get(1).getHeadRepo(), pulls.get(3).getHeadRepo());
+        assertEquals(4, interner.getRepositoryCount());
+    }
+
+    @Test
+    public void keepsNulls() {
+        final Interner interner = new Interner();
+        assertNull(interner.repository(null));
+        assertNull(interner.user(null));
+        assertNull(interner.string(null));
+    }
+}
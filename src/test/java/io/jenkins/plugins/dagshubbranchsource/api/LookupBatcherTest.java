@@ -0,0 +1,124 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LookupBatcherTest {
+
+    private static Map<String, String> list() {
+        final Map<String, String> items = new HashMap<>();
+        for (int i = 0; i < 4; i++) {
+            items.put("b" + i, "listed-" + i);
+        }
+        return items;
+    }
+
+    private static String await(CountDownLatch latch, String value) throws IOException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+        return value;
+    }
+
+    @Test
+    public void burstIsAnsweredFromOneListing() throws Exception {
+        final LookupBatcher batcher = new LookupBatcher(1000, 3);
+        final ExecutorService executor = Executors.newFixedThreadPool(5);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger keyCount = new AtomicInteger();
+        try {
+            // Nothing else is under way, so this one is looked up right away, and the others batch up
+            final Future<String> first = executor.submit(() -> batcher.lookup("repo/branches", "b0",
+                count -> list(), key -> await(release, "fetched-" + key)));
+            while (batcher.getFetchCount() == 0) {
+                Thread.sleep(1);
+            }
+            final List<Future<String>> lookups = new ArrayList<>();
+            for (int i = 1; i < 5; i++) {
+                final String name = "b" + i;
+                lookups.add(executor.submit(() -> batcher.lookup("repo/branches", name, count -> {
+                    keyCount.set(count);
+                    return list();
+                }, key -> "fetched-" + key)));
+            }
+            for (int i = 1; i < 4; i++) {
+                assertEquals("listed-" + i, lookups.get(i - 1).get());
+            }
+            // Not in the listing, so looked up on its own
+            assertEquals("fetched-b4", lookups.get(3).get());
+            release.countDown();
+            assertEquals("fetched-b0", first.get());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        assertEquals(4, keyCount.get());
+        assertEquals(1, batcher.getListingCount());
+        assertEquals(2, batcher.getFetchCount());
+    }
+
+    @Test
+    public void loneLookupDoesNotWait() throws Exception {
+        final LookupBatcher batcher = new LookupBatcher(60_000, 1);
+        final long started = System.nanoTime();
+        assertEquals("fetched-b0",
+            batcher.lookup("repo/branches", "b0", count -> list(), key -> "fetched-" + key));
+        assertEquals("fetched-b1",
+            batcher.lookup("repo/branches", "b1", count -> list(), key -> "fetched-" + key));
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started) < 10);
+        assertEquals(0, batcher.getListingCount());
+        assertEquals(2, batcher.getFetchCount());
+    }
+
+    @Test
+    public void fewLookupsAreMadeOneByOne() throws Exception {
+        final LookupBatcher batcher = new LookupBatcher(10, 3);
+        assertEquals("fetched-b0",
+            batcher.lookup("repo/branches", "b0", count -> list(), key -> "fetched-" + key));
+        assertNull(batcher.lookup("repo/branches", "gone", count -> list(), key -> null));
+        assertEquals(0, batcher.getListingCount());
+        assertEquals(2, batcher.getFetchCount());
+    }
+
+    @Test
+    public void failedListingFallsBackToLookups() throws Exception {
+        final LookupBatcher batcher = new LookupBatcher(100, 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // Keeps another lookup under way, so that the next one is batched
+            final Future<String> other = executor.submit(() -> batcher.lookup("repo/branches", "b1",
+                count -> list(), key -> await(release, "fetched-" + key)));
+            while (batcher.getFetchCount() == 0) {
+                Thread.sleep(1);
+            }
+            assertEquals("fetched-b0", batcher.lookup("repo/branches", "b0", count -> {
+                throw new IOException("listing failed");
+            }, key -> "fetched-" + key));
+            release.countDown();
+            assertEquals("fetched-b1", other.get());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        assertEquals(1, batcher.getListingCount());
+        assertEquals(2, batcher.getFetchCount());
+    }
+}
@@ -0,0 +1,131 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class PagedIteratorTest {
+
+    private static PagedIterator.PageFetcher<Integer> pagesOf(int total, Long totalCount) {
+        return (page, limit) -> {
+            List<Integer> items = new ArrayList<>();
+            for (int i = (page - 1) * limit; i < Math.min(total, page * limit); i++) {
+                items.add(i);
+            }
+            return new PagedIterator.Page<>(items, totalCount);
+        };
+    }
+
+    @Test
+    public void fetchesPagesLazily() {
+        PagedIterator<Integer> it = new PagedIterator<>(10, pagesOf(25, null));
+        assertEquals(0, it.getPagesFetched());
+        assertEquals(Integer.valueOf(0), it.next());
+        assertEquals(1, it.getPagesFetched());
+        for (int i = 1; i < 10; i++) {
+            it.next();
+        }
+        assertEquals(1, it.getPagesFetched());
+        assertEquals(Integer.valueOf(10), it.next());
+        assertEquals(2, it.getPagesFetched());
+    }
+
+    @Test
+    public void stopsOnShortPage() {
+        PagedIterator<Integer> it = new PagedIterator<>(10, pagesOf(25, null));
+        int count = 0;
+        while (it.hasNext()) {
+            assertEquals(Integer.valueOf(count++), it.next());
+        }
+        assertEquals(25, count);
+        assertEquals(3, it.getPagesFetched());
+    }
+
+    @Test
+    public void stopsOnTotalCount() {
+        PagedIterator<Integer> it = new PagedIterator<>(10, pagesOf(20, 20L));
+        int count = 0;
+        while (it.hasNext()) {
+            it.next();
+            count++;
+        }
+        assertEquals(20, count);
+        // Without the total count we would need an extra, empty page to know we're done
+        assertEquals(2, it.getPagesFetched());
+    }
+
+    @Test
+    public void startsFromFirstPage() {
+        PagedIterator<Integer> it = new PagedIterator<>(2, 10, pagesOf(30, 30L));
+        assertEquals(Integer.valueOf(10), it.next());
+        int count = 1;
+        while (it.hasNext()) {
+            it.next();
+            count++;
+        }
+        assertEquals(20, count);
+        // The total count covers the skipped page too
+        assertEquals(2, it.getPagesFetched());
+    }
+
+    @Test
+    public void stopsWhenServerIgnoresPaging() {
+        PagedIterator<Integer> it =
+            new PagedIterator<>(10, (page, limit) -> pagesOf(35, null).fetch(1, 35));
+        int count = 0;
+        while (it.hasNext()) {
+            it.next();
+            count++;
+        }
+        assertEquals(35, count);
+        assertEquals(1, it.getPagesFetched());
+    }
+
+    @Test
+    public void pagesCountItemsLeftOut() {
+        // Only even items are kept, but a page of 10 listed items is still a full page
+        PagedIterator<Integer> it = new PagedIterator<>(10, (page, limit) -> {
+            final List<Integer> listed = pagesOf(25, null).fetch(page, limit).getItems();
+            final List<Integer> kept = new ArrayList<>();
+            for (Integer item : listed) {
+                if (item % 2 == 0) {
+                    kept.add(item);
+                }
+            }
+            return new PagedIterator.Page<>(kept, listed.size(), null);
+        });
+        int count = 0;
+        while (it.hasNext()) {
+            assertEquals(Integer.valueOf(2 * count++), it.next());
+        }
+        assertEquals(13, count);
+        assertEquals(3, it.getPagesFetched());
+    }
+
+    @Test
+    public void rethrowsFailures() {
+        PagedIterator<Integer> it = new PagedIterator<>(10, (page, limit) -> {
+            throw new IOException("boom");
+        });
+        try {
+            it.hasNext();
+            fail("Should have thrown UncheckedIOException");
+        } catch (UncheckedIOException e) {
+            assertEquals("boom", e.getCause().getMessage());
+        }
+        assertEquals(0, it.getPagesFetched());
+    }
+
+    @Test
+    public void emptyList() {
+        PagedIterator<Integer> it = new PagedIterator<>(10, pagesOf(0, null));
+        assertFalse(it.hasNext());
+        assertEquals(1, it.getPagesFetched());
+    }
+}
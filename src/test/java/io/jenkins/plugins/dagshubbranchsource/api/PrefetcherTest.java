@@ -0,0 +1,223 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PrefetcherTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Counts up from 0, for ever or up to a limit, and remembers which threads it was iterated on.
+     */
+    private static final class Counting implements Iterator<Integer> {
+        private final int limit;
+        private final AtomicInteger next = new AtomicInteger();
+        private final List<Thread> threads = new ArrayList<>();
+
+        private Counting(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next.get() < limit;
+        }
+
+        @Override
+        public synchronized Integer next() {
+            if (!threads.contains(Thread.currentThread())) {
+                threads.add(Thread.currentThread());
+            }
+            return next.getAndIncrement();
+        }
+    }
+
+    private static List<Integer> drain(Prefetcher<Integer> prefetcher) throws Exception {
+        final List<Integer> items = new ArrayList<>();
+        while (prefetcher.hasNext()) {
+            items.add(prefetcher.next());
+        }
+        return items;
+    }
+
+    private static void waitFor(AtomicInteger counter, int value) throws InterruptedException {
+        while (counter.get() < value) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void yieldsItemsInOrder() throws Exception {
+        final Counting source = new Counting(1_000);
+        try (Prefetcher<Integer> prefetcher = new Prefetcher<>(source, 10, executor)) {
+            final List<Integer> items = drain(prefetcher);
+            assertEquals(1_000, items.size());
+            for (int i = 0; i < items.size(); i++) {
+                assertEquals(Integer.valueOf(i), items.get(i));
+            }
+            assertFalse(prefetcher.hasNext());
+            try {
+                prefetcher.next();
+                fail("Should have thrown NoSuchElementException");
+            } catch (NoSuchElementException e) {
+                // Pass
+            }
+        }
+    }
+
+    @Test
+    public void fetchesNoFurtherAheadThanBuffer() throws Exception {
+        final Counting source = new Counting(Integer.MAX_VALUE);
+        try (Prefetcher<Integer> prefetcher = new Prefetcher<>(source, 10, executor)) {
+            // Listing in the background, rather than by the first call to next()
+            waitFor(source.next, 1);
+            assertEquals(Integer.valueOf(0), prefetcher.next());
+            // The buffer, and the item waiting to be put into it
+            waitFor(source.next, 1 + 10 + 1);
+            Thread.sleep(100);
+            assertTrue("Fetched " + source.next.get(), source.next.get() <= 1 + 10 + 2);
+        }
+    }
+
+    @Test
+    public void listsInlineWhenExecutorIsBusy() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() -> {
+            release.await();
+            return null;
+        });
+        final Counting source = new Counting(100);
+        try (Prefetcher<Integer> prefetcher = new Prefetcher<>(source, 10, executor)) {
+            assertEquals(100, drain(prefetcher).size());
+            assertEquals(1, source.threads.size());
+            assertEquals(Thread.currentThread(), source.threads.get(0));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void listsInlineWhenExecutorIsShutDown() throws Exception {
+        executor.shutdown();
+        final Counting source = new Counting(100);
+        try (Prefetcher<Integer> prefetcher = new Prefetcher<>(source, 10, executor)) {
+            assertEquals(100, drain(prefetcher).size());
+            assertEquals(Thread.currentThread(), source.threads.get(0));
+        }
+    }
+
+    @Test
+    public void rethrowsListingFailures() throws Exception {
+        final Counting counting = new Counting(3);
+        final Iterator<Integer> source = new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                if (!counting.hasNext()) {
+                    throw new UncheckedIOException(new IOException("page 2 failed"));
+                }
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                return counting.next();
+            }
+        };
+        try (Prefetcher<Integer> prefetcher = new Prefetcher<>(source, 10, executor)) {
+            // Items listed before the failure are seen first
+            for (int i = 0; i < 3; i++) {
+                assertEquals(Integer.valueOf(i), prefetcher.next());
+            }
+            try {
+                prefetcher.hasNext();
+                fail("Should have thrown IOException");
+            } catch (IOException e) {
+                assertEquals("page 2 failed", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void rethrowsUncheckedFailures() throws Exception {
+        final Iterator<Integer> source = new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                throw new IllegalStateException("broken");
+            }
+        };
+        try (Prefetcher<Integer> prefetcher = new Prefetcher<>(source, 10, executor)) {
+            prefetcher.hasNext();
+            fail("Should have thrown IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("broken", e.getMessage());
+        }
+    }
+
+    @Test
+    public void rethrowsErrorsOfBackgroundListing() throws Exception {
+        final CountDownLatch listing = new CountDownLatch(1);
+        final Iterator<Integer> source = new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                listing.countDown();
+                throw new LinkageError("broken");
+            }
+        };
+        try (Prefetcher<Integer> prefetcher = new Prefetcher<>(source, 10, executor)) {
+            // Thrown on the executor thread, which must still end the listing for the consumer
+            assertTrue(listing.await(10, TimeUnit.SECONDS));
+            prefetcher.hasNext();
+            fail("Should have thrown LinkageError");
+        } catch (LinkageError e) {
+            assertEquals("broken", e.getMessage());
+        }
+    }
+
+    @Test
+    public void closeStopsBackgroundListing() throws Exception {
+        final Counting source = new Counting(Integer.MAX_VALUE);
+        final Prefetcher<Integer> prefetcher = new Prefetcher<>(source, 10, executor);
+        waitFor(source.next, 1);
+        assertEquals(Integer.valueOf(0), prefetcher.next());
+        waitFor(source.next, 1 + 10 + 1);
+        prefetcher.close();
+        // Blocked on the full buffer until interrupted, after which nothing more is listed
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        final int listed = source.next.get();
+        Thread.sleep(100);
+        assertEquals(listed, source.next.get());
+    }
+}
@@ -0,0 +1,104 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RateLimiterTest {
+
+    /**
+     * Acquires a token, and returns how long we would have waited for it without actually waiting.
+     */
+    private static long waitFor(RateLimiter limiter) {
+        final AtomicLong waited = new AtomicLong();
+        try {
+            limiter.acquire(wait -> {
+                waited.set(wait);
+                Thread.currentThread().interrupt();
+            });
+        } catch (InterruptedException e) {
+            return waited.get();
+        }
+        return 0L;
+    }
+
+    @Test
+    public void unlimitedUntilTheServerLimits() {
+        RateLimiter limiter = new RateLimiter();
+        for (int i = 0; i < 10 * RateLimiter.BURST; i++) {
+            assertEquals(0L, waitFor(limiter));
+        }
+        limiter.update(200, null, null, null);
+        assertEquals(0L, waitFor(limiter));
+        assertEquals(0, limiter.getThrottledCount());
+    }
+
+    @Test
+    public void limitsAfterTooManyRequests() {
+        RateLimiter limiter = new RateLimiter();
+        limiter.update(429, null, null, "0");
+        long waited = waitFor(limiter);
+        assertTrue(waited > 0);
+        assertTrue(waited <= TimeUnit.SECONDS.toNanos(1) / RateLimiter.REQUESTS_PER_SECOND);
+        assertEquals(1, limiter.getThrottledCount());
+    }
+
+    @Test
+    public void waitsForExhaustedWindow() {
+        RateLimiter limiter = new RateLimiter();
+        limiter.update(200, "0", "60", null);
+        long waited = waitFor(limiter);
+        assertTrue(waited > TimeUnit.SECONDS.toNanos(55));
+        assertTrue(waited <= TimeUnit.SECONDS.toNanos(60));
+    }
+
+    @Test
+    public void waitsForRetryAfter() {
+        RateLimiter limiter = new RateLimiter();
+        limiter.update(429, null, null, "30");
+        long waited = waitFor(limiter);
+        assertTrue(waited > TimeUnit.SECONDS.toNanos(25));
+        assertTrue(waited <= TimeUnit.SECONDS.toNanos(30));
+    }
+
+    @Test
+    public void keepsToRemainingRequests() {
+        RateLimiter limiter = new RateLimiter();
+        // 10 requests left until the window resets in 100 seconds
+        limiter.update(200, "10", String.valueOf(System.currentTimeMillis() / 1000 + 100), null);
+        for (int i = 0; i < 10; i++) {
+            if (waitFor(limiter) > 0) {
+                fail("Should not wait for the remaining requests");
+            }
+        }
+        assertTrue(waitFor(limiter) > TimeUnit.SECONDS.toNanos(95));
+    }
+
+    @Test
+    public void countsRequestsInFlightAgainstWindow() {
+        RateLimiter limiter = new RateLimiter();
+        limiter.update(200, "10", "100", null);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0L, waitFor(limiter));
+        }
+        // The answer to the first of them, which the server counted before the others
+        limiter.update(200, "9", "100", null);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0L, waitFor(limiter));
+        }
+        assertTrue(waitFor(limiter) > 0);
+    }
+
+    @Test
+    public void unlimitedAgainAfterReset() {
+        RateLimiter limiter = new RateLimiter();
+        limiter.update(200, "0", "0", null);
+        for (int i = 0; i < 10 * RateLimiter.BURST; i++) {
+            assertEquals(0L, waitFor(limiter));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class SingleFlightTest {
+
+    /**
+     * Starts a call which blocks until released, and a second identical one which waits for it.
+     */
+    private static void runConcurrently(SingleFlight flight, CountDownLatch release,
+        FutureTask<Object> first, FutureTask<Object> second) throws Exception {
+        final Thread leader = new Thread(first);
+        leader.start();
+        while (flight.size() == 0) {
+            Thread.sleep(1);
+        }
+        final Thread follower = new Thread(second);
+        follower.start();
+        while (follower.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        leader.join();
+        follower.join();
+    }
+
+    @Test
+    public void concurrentCallsShareOneResult() throws Exception {
+        final SingleFlight flight = new SingleFlight();
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        final SingleFlight.Call<Object> call = () -> {
+            calls.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return new Object();
+        };
+        final FutureTask<Object> first = new FutureTask<>(() -> flight.execute("key", call));
+        final FutureTask<Object> second = new FutureTask<>(() -> flight.execute("key", call));
+        runConcurrently(flight, release, first, second);
+
+        assertSame(first.get(), second.get());
+        assertEquals(1, calls.get());
+        assertEquals(1, flight.getSavedCount());
+        assertEquals(0, flight.size());
+    }
+
+    @Test
+    public void failuresAreShared() throws Exception {
+        final SingleFlight flight = new SingleFlight();
+        final CountDownLatch release = new CountDownLatch(1);
+        final SingleFlight.Call<Object> call = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            throw new IOException("failed");
+        };
+        final FutureTask<Object> first = new FutureTask<>(() -> flight.execute("key", call));
+        final FutureTask<Object> second = new FutureTask<>(() -> flight.execute("key", call));
+        runConcurrently(flight, release, first, second);
+
+        try {
+            second.get();
+            fail("Should have thrown");
+        } catch (ExecutionException e) {
+            assertEquals("failed", e.getCause().getMessage());
+        }
+        assertEquals(1, flight.getSavedCount());
+    }
+}
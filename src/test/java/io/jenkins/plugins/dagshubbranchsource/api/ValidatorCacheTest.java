@@ -0,0 +1,48 @@
+package io.jenkins.plugins.dagshubbranchsource.api;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class ValidatorCacheTest {
+
+    private static PagedIterator.Page<String> page(String... items) {
+        return new PagedIterator.Page<>(Arrays.asList(items), null);
+    }
+
+    @Test
+    public void boundsPagesByTheirItems() {
+        final ValidatorCache cache =
+            new ValidatorCache(6, value -> ((PagedIterator.Page<?>) value).getItems().size());
+        cache.put("a", "\"a\"", null, page("1", "2"));
+        cache.put("b", "\"b\"", null, page("3", "4"));
+        cache.put("c", "\"c\"", null, page("5", "6"));
+        assertEquals(3, cache.size());
+
+        // The least recently used pages make room
+        assertNotNull(cache.get("a"));
+        cache.put("d", "\"d\"", null, page("7", "8", "9"));
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNull(cache.get("c"));
+        assertNotNull(cache.get("d"));
+
+        // A page which could never fit is not kept, and does not push out the others
+        cache.put("e", "\"e\"", null, page("1", "2", "3", "4", "5", "6", "7"));
+        assertNull(cache.get("e"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void forgetsResponsesWithoutValidators() {
+        final ValidatorCache cache = new ValidatorCache();
+        cache.put("a", "\"a\"", null, Collections.emptyList());
+        cache.put("a", null, null, Collections.emptyList());
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,26 @@
+package io.jenkins.plugins.dagshubbranchsource.benchmark;
+
+import io.jenkins.plugins.dagshubbranchsource.api.DAGsHubApi;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Creating an API for a repository URL, which happens for every source on every scan and lookup.
+ */
+@State(Scope.Benchmark)
+public class ApiBenchmark {
+
+    @Param({"https://dagshub.com/user/repo", "https://dagshub.example.com/sub/path/user/repo.git/"})
+    public String repositoryUrl;
+
+    @Benchmark
+    public String create() throws URISyntaxException, IOException {
+        try (DAGsHubApi api = DAGsHubApi.create(repositoryUrl)) {
+            return api.getOwner();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package io.jenkins.plugins.dagshubbranchsource.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks in this package and writes the results to {@code target/jmh-report.json}, see
+ * the {@code benchmark} profile. Options may be overridden with system properties, e.g.
+ * {@code -Dbenchmark.include=ModelBenchmark -Dbenchmark.forks=0}.
+ * <p>
+ * The name does not match the default test patterns, so it is not run by a plain {@code mvn test}.
+ */
+public class BenchmarkRunner {
+
+    @Test
+    public void runBenchmarks() throws Exception {
+        final ChainedOptionsBuilder options = new OptionsBuilder()
+            .include(getClass().getPackage().getName() + "."
+                + System.getProperty("benchmark.include", ".*Benchmark") + ".*")
+            .mode(Mode.AverageTime)
+            .timeUnit(TimeUnit.MICROSECONDS)
+            .warmupIterations(Integer.getInteger("benchmark.warmupIterations", 3))
+            .measurementIterations(Integer.getInteger("benchmark.measurementIterations", 5))
+            .forks(Integer.getInteger("benchmark.forks", 1))
+            .shouldFailOnError(true)
+            .shouldDoGC(true)
+            .addProfiler("gc")
+            .resultFormat(ResultFormatType.JSON)
+            .result(System.getProperty("benchmark.result", "target/jmh-report.json"));
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,99 @@
+package io.jenkins.plugins.dagshubbranchsource.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jenkins.plugins.dagshubbranchsource.FakeDAGsHubServer;
+import io.jenkins.plugins.dagshubbranchsource.api.Branch;
+import io.jenkins.plugins.dagshubbranchsource.api.DAGsHubClientRegistry;
+import io.jenkins.plugins.dagshubbranchsource.api.PullRequest;
+import io.jenkins.plugins.dagshubbranchsource.api.PullRequestHead;
+import io.jenkins.plugins.dagshubbranchsource.api.RefHead;
+import io.jenkins.plugins.dagshubbranchsource.api.Tag;
+import java.io.IOException;
+import java.util.List;
+import jenkins.scm.api.mixin.ChangeRequestCheckoutStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Binding list responses to the API model, and converting the model to revisions. Run with the
+ * {@code gc} profiler to compare what binding the full model and its projections allocates.
+ */
+@State(Scope.Benchmark)
+public class ModelBenchmark {
+
+    private static final TypeReference<List<Branch>> BRANCHES = new TypeReference<List<Branch>>() {};
+    private static final TypeReference<List<Tag>> TAGS = new TypeReference<List<Tag>>() {};
+    private static final TypeReference<List<PullRequest>> PULLS = new TypeReference<List<PullRequest>>() {};
+    private static final TypeReference<List<RefHead>> REF_HEADS = new TypeReference<List<RefHead>>() {};
+    private static final TypeReference<List<PullRequestHead>> PULL_HEADS =
+        new TypeReference<List<PullRequestHead>>() {};
+
+    /**
+     * The number of items in each response.
+     */
+    @Param({"50", "1000"})
+    public int size;
+
+    private ObjectMapper mapper;
+    private byte[] branchesJson;
+    private byte[] tagsJson;
+    private byte[] pullsJson;
+    private List<Branch> branches;
+    private List<PullRequest> pulls;
+
+    @Setup
+    public void setup() throws IOException {
+        mapper = DAGsHubClientRegistry.get().getMapper();
+        final ObjectMapper writer = new ObjectMapper();
+        branchesJson = writer.writeValueAsBytes(FakeDAGsHubServer.branches(size));
+        tagsJson = writer.writeValueAsBytes(FakeDAGsHubServer.tags(size));
+        pullsJson = writer.writeValueAsBytes(FakeDAGsHubServer.pulls(size));
+        branches = mapper.readValue(branchesJson, BRANCHES);
+        pulls = mapper.readValue(pullsJson, PULLS);
+    }
+
+    @Benchmark
+    public List<Branch> readBranches() throws IOException {
+        return mapper.readValue(branchesJson, BRANCHES);
+    }
+
+    @Benchmark
+    public List<Tag> readTags() throws IOException {
+        return mapper.readValue(tagsJson, TAGS);
+    }
+
+    @Benchmark
+    public List<PullRequest> readPulls() throws IOException {
+        return mapper.readValue(pullsJson, PULLS);
+    }
+
+    @Benchmark
+    public List<RefHead> readBranchHeads() throws IOException {
+        return mapper.readValue(branchesJson, REF_HEADS);
+    }
+
+    @Benchmark
+    public List<PullRequestHead> readPullHeads() throws IOException {
+        return mapper.readValue(pullsJson, PULL_HEADS);
+    }
+
+    @Benchmark
+    public void branchToRev(Blackhole blackhole) {
+        for (Branch branch : branches) {
+            blackhole.consume(branch.toRev());
+        }
+    }
+
+    @Benchmark
+    public void pullToRev(Blackhole blackhole) {
+        for (PullRequest pull : pulls) {
+            blackhole.consume(pull.toRev(ChangeRequestCheckoutStrategy.HEAD));
+            blackhole.consume(pull.toRev(ChangeRequestCheckoutStrategy.MERGE));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package io.jenkins.plugins.dagshubbranchsource.benchmark;
+
+import hudson.model.TaskListener;
+import io.jenkins.plugins.dagshubbranchsource.DAGsHubSCMSource;
+import io.jenkins.plugins.dagshubbranchsource.FakeDAGsHubServer;
+import io.jenkins.plugins.dagshubbranchsource.traits.BranchDiscoveryTrait;
+import io.jenkins.plugins.dagshubbranchsource.traits.OriginPullRequestDiscoveryTrait;
+import io.jenkins.plugins.dagshubbranchsource.traits.TagDiscoveryTrait;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMHeadObserver;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSourceCriteria;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A full scan of a repository served by a {@link FakeDAGsHubServer}, from listing to checking that
+ * every head has a {@code Jenkinsfile}.
+ */
+public class RetrieveBenchmark {
+
+    private static final SCMSourceCriteria HAS_JENKINSFILE = (probe, listener) ->
+        probe.stat("Jenkinsfile").exists();
+
+    @State(Scope.Benchmark)
+    public static class FakeRepository extends JmhBenchmarkState {
+
+        @Param({"100"})
+        public int branches;
+
+        @Param({"100"})
+        public int tags;
+
+        @Param({"50"})
+        public int pulls;
+
+        private FakeDAGsHubServer server;
+        private DAGsHubSCMSource source;
+
+        @Override
+        public void setup() throws Exception {
+            server = new FakeDAGsHubServer(branches, tags, pulls);
+            source = new DAGsHubSCMSource(server.getRepositoryUrl(), null, Arrays.asList(
+                new BranchDiscoveryTrait(), new TagDiscoveryTrait(), new OriginPullRequestDiscoveryTrait()));
+        }
+
+        @Override
+        public void tearDown() {
+            server.close();
+        }
+    }
+
+    @Benchmark
+    public Map<SCMHead, SCMRevision> retrieve(FakeRepository repository)
+        throws IOException, InterruptedException {
+        return repository.source.fetch(HAS_JENKINSFILE, SCMHeadObserver.collect(), TaskListener.NULL).result();
+    }
+}
@@ -0,0 +1,127 @@
+package io.jenkins.plugins.dagshubbranchsource.git;
+
+import hudson.FilePath;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.plugins.git.GitSCM;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import jenkins.plugins.git.GitBranchSCMHead;
+import jenkins.plugins.git.GitSCMBuilder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MirrorCacheSCMExtensionTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File remote;
+
+    @Before
+    public void createRemote() throws Exception {
+        remote = tmp.newFolder("remote");
+        git(remote, "init", "-q");
+        git(remote, "symbolic-ref", "HEAD", "refs/heads/master");
+        git(remote, "config", "user.name", "Jane Doe");
+        git(remote, "config", "user.email", "jane@example.com");
+        commit("first");
+    }
+
+    private String commit(String message) throws Exception {
+        Files.write(new File(remote, "file").toPath(), message.getBytes(StandardCharsets.UTF_8));
+        git(remote, "add", "file");
+        git(remote, "commit", "-q", "-m", message);
+        return git(remote, "rev-parse", "HEAD");
+    }
+
+    private static String git(File dir, String... args) throws IOException, InterruptedException {
+        final String[] command = new String[args.length + 1];
+        command[0] = "git";
+        System.arraycopy(args, 0, command, 1, args.length);
+        final Process process = new ProcessBuilder(command).directory(dir).redirectErrorStream(true).start();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = process.getInputStream()) {
+            final byte[] buffer = new byte[4096];
+            for (int read; (read = in.read(buffer)) >= 0; ) {
+                out.write(buffer, 0, read);
+            }
+        }
+        final String output = out.toString("UTF-8").trim();
+        assertEquals("git " + String.join(" ", args) + ": " + output, 0, process.waitFor());
+        return output;
+    }
+
+    private GitSCM scm() {
+        return new GitSCMBuilder<>(new GitBranchSCMHead("master"), null, remote.getAbsolutePath(), null)
+            .withExtension(new MirrorCacheSCMExtension())
+            .build();
+    }
+
+    private FreeStyleBuild build(GitSCM scm) throws Exception {
+        final FreeStyleProject project = j.createFreeStyleProject();
+        project.setScm(scm);
+        return j.buildAndAssertSuccess(project);
+    }
+
+    @Test
+    public void clonesWithMirrorAsReference() throws Exception {
+        final GitSCM scm = scm();
+        final FilePath mirror = MirrorCacheSCMExtension.mirrorFor(j.jenkins, scm.getRepositories().get(0));
+        final String first = git(remote, "rev-parse", "HEAD");
+        build(scm);
+        assertTrue(mirror.child("HEAD").exists());
+        git(new File(mirror.getRemote()), "cat-file", "-e", first + "^{commit}");
+
+        // Commits are fetched into the mirror first, and the new workspace borrows them from there
+        final String second = commit("second");
+        final FreeStyleBuild build = build(scm);
+        git(new File(mirror.getRemote()), "cat-file", "-e", second + "^{commit}");
+        final FilePath alternates = build.getWorkspace().child(".git/objects/info/alternates");
+        assertTrue(alternates.exists());
+        assertEquals(new File(mirror.getRemote(), "objects").getCanonicalPath(),
+            new File(alternates.readToString().trim()).getCanonicalPath());
+    }
+
+    @Test
+    public void neverPrunesMirror() throws Exception {
+        final GitSCM scm = scm();
+        final FilePath mirror = MirrorCacheSCMExtension.mirrorFor(j.jenkins, scm.getRepositories().get(0));
+        build(scm);
+        final File dir = new File(mirror.getRemote());
+        assertEquals("0", git(dir, "config", "--get", "gc.auto"));
+        assertEquals("never", git(dir, "config", "--get", "gc.pruneExpire"));
+        assertEquals("false", git(dir, "config", "--get", "maintenance.auto"));
+    }
+
+    @Test
+    public void turnsOffGcInExistingMirrors() throws Exception {
+        final GitSCM scm = scm();
+        final FilePath mirror = MirrorCacheSCMExtension.mirrorFor(j.jenkins, scm.getRepositories().get(0));
+        mirror.mkdirs();
+        final File dir = new File(mirror.getRemote());
+        git(dir, "init", "-q", "--bare");
+        assertFalse(mirror.child("config").readToString().contains("pruneExpire"));
+
+        build(scm);
+        assertEquals("never", git(dir, "config", "--get", "gc.pruneExpire"));
+        // Only once, however many builds update the mirror
+        build(scm);
+        final String config = mirror.child("config").readToString();
+        assertEquals(config.indexOf("pruneExpire"), config.lastIndexOf("pruneExpire"));
+    }
+}
@@ -0,0 +1,45 @@
+package io.jenkins.plugins.dagshubbranchsource.git;
+
+import hudson.model.TaskListener;
+import io.jenkins.plugins.dagshubbranchsource.FakeDAGsHubServer;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ShallowMergeSCMExtensionTest {
+
+    private static final String MASTER = FakeDAGsHubServer.sha(1, 0);
+
+    private static ShallowMergeSCMExtension extension(FakeDAGsHubServer server, String base, String head) {
+        return new ShallowMergeSCMExtension("master", base, head, server.getRepositoryUrl(), null);
+    }
+
+    @Test
+    public void reachesMergeBaseFromBothHeads() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(1, 0, 3)) {
+            // The head of pull request 3 is 3 commits ahead of the merge base, and master 1
+            assertEquals(Integer.valueOf(4), extension(server, MASTER, FakeDAGsHubServer.sha(3, 2))
+                .mergeBaseDepth(null, TaskListener.NULL));
+        }
+    }
+
+    @Test
+    public void reachesTargetCommitFromCurrentTip() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(1, 0, 3)) {
+            // master has moved 1 commit past the target commit, which is 6 commits ahead of the merge base
+            assertEquals(Integer.valueOf(8), extension(server, FakeDAGsHubServer.sha(1, 5),
+                FakeDAGsHubServer.sha(3, 2)).mergeBaseDepth(null, TaskListener.NULL));
+        }
+    }
+
+    @Test
+    public void fetchesWholeHistoryWhenServerCannotCompare() throws Exception {
+        try (FakeDAGsHubServer server = new FakeDAGsHubServer(1, 0, 3)) {
+            assertNull(extension(server, MASTER, "unknown").mergeBaseDepth(null, TaskListener.NULL));
+            server.failNext(1, 403);
+            assertNull(extension(server, MASTER, FakeDAGsHubServer.sha(3, 2))
+                .mergeBaseDepth(null, TaskListener.NULL));
+        }
+    }
+}
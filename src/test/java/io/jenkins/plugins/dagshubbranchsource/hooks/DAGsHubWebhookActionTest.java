@@ -0,0 +1,198 @@
+package io.jenkins.plugins.dagshubbranchsource.hooks;
+
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import hudson.util.Secret;
+import io.jenkins.plugins.dagshubbranchsource.DAGsHubSCMNavigator;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Locale;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import jenkins.scm.api.SCMEvent;
+import jenkins.scm.api.SCMHeadEvent;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DAGsHubWebhookActionTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private static final String REPO = "\"repository\": {\"name\": \"repo\", "
+        + "\"html_url\": \"https://dagshub.com/user/repo\", "
+        + "\"clone_url\": \"https://dagshub.com/user/repo.git\"}";
+
+    private static final String PUSH = "{\"ref\": \"refs/heads/master\", \"before\": \"abc\", "
+        + "\"after\": \"def\", " + REPO + "}";
+
+    private static String sign(String body, String secret) throws Exception {
+        final Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        final StringBuilder signature = new StringBuilder();
+        for (byte b : mac.doFinal(body.getBytes(StandardCharsets.UTF_8))) {
+            signature.append(String.format("%02x", b));
+        }
+        return signature.toString();
+    }
+
+    /**
+     * Posts a push delivery to the webhook endpoint, the way DAGsHub does.
+     *
+     * @return the status of the response.
+     */
+    private int deliver(String signature) throws Exception {
+        final JenkinsRule.WebClient wc = j.createWebClient();
+        wc.getOptions().setThrowExceptionOnFailingStatusCode(false);
+        final WebRequest request =
+            new WebRequest(new URL(j.getURL(), DAGsHubWebhookAction.URL_NAME + "/"), HttpMethod.POST);
+        request.setAdditionalHeader("Content-Type", "application/json");
+        request.setAdditionalHeader("X-Gitea-Event", "push");
+        if (signature != null) {
+            request.setAdditionalHeader("X-Gitea-Signature", signature);
+        }
+        request.setRequestBody(PUSH);
+        return wc.getPage(request).getWebResponse().getStatusCode();
+    }
+
+    @Test
+    public void rejectsDeliveriesWithoutSecret() throws Exception {
+        assertEquals(403, deliver(sign(PUSH, "secret")));
+        assertEquals(403, deliver(null));
+        // A delivery must never make up a secret, which would also save the configuration
+        assertNull(DAGsHubWebhookConfiguration.get().getSecret());
+    }
+
+    @Test
+    public void acceptsOnlySignedDeliveries() throws Exception {
+        DAGsHubWebhookConfiguration.get().setSecret(Secret.fromString("secret"));
+        assertEquals(200, deliver(sign(PUSH, "secret")));
+        assertEquals(403, deliver(null));
+        assertEquals(403, deliver(sign(PUSH, "other")));
+        assertEquals(403, deliver(sign(PUSH + " ", "secret")));
+    }
+
+    @Test
+    public void generatesSecretWhenConfigurationIsSaved() throws Exception {
+        j.configRoundtrip();
+        final Secret secret = DAGsHubWebhookConfiguration.get().getSecret();
+        assertEquals(64, secret.getPlainText().length());
+        // Saving again keeps it
+        j.configRoundtrip();
+        assertEquals(secret.getPlainText(), DAGsHubWebhookConfiguration.get().getSecret().getPlainText());
+    }
+
+    private static SCMHeadEvent<?> toEvent(String eventName, String json) throws Exception {
+        return DAGsHubWebhookAction.toEvent(eventName, json.getBytes(StandardCharsets.UTF_8), "test");
+    }
+
+    @Test
+    public void signatureTest() {
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+        // echo -n '{}' | openssl dgst -sha256 -hmac secret
+        String signature = "77325902caca812dc259733aacd046b73817372c777b8d95b402647474516e13";
+        assertTrue(DAGsHubWebhookAction.isValidSignature(body, signature, "secret"));
+        assertTrue(DAGsHubWebhookAction.isValidSignature(body,
+            signature.toUpperCase(Locale.ENGLISH), "secret"));
+        assertFalse(DAGsHubWebhookAction.isValidSignature(body, signature, "other"));
+        assertFalse(DAGsHubWebhookAction.isValidSignature(body, null, "secret"));
+        assertFalse(DAGsHubWebhookAction.isValidSignature(body, signature, ""));
+        assertFalse(DAGsHubWebhookAction.isValidSignature(body, "0" + signature.substring(1), "secret"));
+    }
+
+    @Test
+    public void pushTest() throws Exception {
+        DAGsHubBranchEvent event = (DAGsHubBranchEvent) toEvent("push",
+            "{\"ref\": \"refs/heads/feature/x\", "
+            + "\"before\": \"0000000000000000000000000000000000000000\", \"after\": \"abc\", " + REPO + "}");
+        assertEquals(SCMEvent.Type.CREATED, event.getType());
+        assertEquals("feature/x", event.getBranch());
+        assertEquals("abc", event.getHash());
+        assertEquals("repo", event.getSourceName());
+
+        event = (DAGsHubBranchEvent) toEvent("push", "{\"ref\": \"refs/heads/master\", "
+            + "\"before\": \"abc\", \"after\": \"def\", " + REPO + "}");
+        assertEquals(SCMEvent.Type.UPDATED, event.getType());
+
+        event = (DAGsHubBranchEvent) toEvent("push", "{\"ref\": \"refs/heads/master\", "
+            + "\"before\": \"abc\", \"after\": \"0000000000000000000000000000000000000000\", " + REPO + "}");
+        assertEquals(SCMEvent.Type.REMOVED, event.getType());
+        assertNull(event.getHash());
+
+        DAGsHubTagEvent tag = (DAGsHubTagEvent) toEvent("push", "{\"ref\": \"refs/tags/v1.0\", "
+            + "\"before\": \"0000000000000000000000000000000000000000\", \"after\": \"abc\", "
+            + "\"head_commit\": {\"id\": \"abc\", \"timestamp\": \"2020-01-02T03:04:05+01:00\"}, "
+            + REPO + "}");
+        assertEquals(SCMEvent.Type.CREATED, tag.getType());
+        assertEquals("v1.0", tag.getTag());
+        assertEquals("abc", tag.getHash());
+        assertEquals(Instant.parse("2020-01-02T02:04:05Z").toEpochMilli(), tag.getCommitTime());
+
+        // Moved, and without a commit time, at which point the time of the event is as close as it gets
+        tag = (DAGsHubTagEvent) toEvent("push", "{\"ref\": \"refs/tags/v1.0\", "
+            + "\"before\": \"abc\", \"after\": \"def\", " + REPO + "}");
+        assertEquals(SCMEvent.Type.UPDATED, tag.getType());
+        assertEquals(tag.getTimestamp(), tag.getCommitTime());
+
+        // Deleted tags are handled by the delete event
+        assertNull(toEvent("push", "{\"ref\": \"refs/tags/v1.0\", \"before\": \"def\", "
+            + "\"after\": \"0000000000000000000000000000000000000000\", " + REPO + "}"));
+    }
+
+    @Test
+    public void refTest() throws Exception {
+        DAGsHubTagEvent tag = (DAGsHubTagEvent) toEvent("delete",
+            "{\"ref\": \"v1.0\", \"ref_type\": \"tag\", " + REPO + "}");
+        assertEquals(SCMEvent.Type.REMOVED, tag.getType());
+
+        DAGsHubBranchEvent branch = (DAGsHubBranchEvent) toEvent("delete",
+            "{\"ref\": \"feature\", \"ref_type\": \"branch\", " + REPO + "}");
+        assertEquals(SCMEvent.Type.REMOVED, branch.getType());
+        assertEquals("feature", branch.getBranch());
+
+        // Branch and tag creation come with a push event
+        assertNull(toEvent("create", "{\"ref\": \"feature\", \"ref_type\": \"branch\", " + REPO + "}"));
+        assertNull(toEvent("create",
+            "{\"ref\": \"v1.0\", \"ref_type\": \"tag\", \"sha\": \"abc\", " + REPO + "}"));
+    }
+
+    @Test
+    public void pullRequestTest() throws Exception {
+        String pull = "\"pull_request\": {\"id\": 1, \"number\": 2}, " + REPO;
+        assertEquals(SCMEvent.Type.CREATED,
+            toEvent("pull_request", "{\"action\": \"opened\", " + pull + "}").getType());
+        assertEquals(SCMEvent.Type.UPDATED,
+            toEvent("pull_request", "{\"action\": \"synchronized\", " + pull + "}").getType());
+        assertEquals(SCMEvent.Type.REMOVED,
+            toEvent("pull_request", "{\"action\": \"closed\", " + pull + "}").getType());
+        assertNull(toEvent("pull_request", "{\"action\": \"label_updated\", " + pull + "}"));
+        assertNull(toEvent("issues", "{\"action\": \"opened\", " + REPO + "}"));
+    }
+
+    @Test
+    public void normalizeTest() {
+        assertEquals("dagshub.com/user/repo",
+            AbstractDAGsHubHeadEvent.normalize("https://DAGsHub.com/user/repo.git/"));
+        assertEquals("dagshub.com/user/repo",
+            AbstractDAGsHubHeadEvent.normalize("http://dagshub.com/user/repo"));
+        assertTrue(AbstractDAGsHubHeadEvent.normalize("https://dagshub.com/user/repo2").endsWith("repo2"));
+    }
+
+    @Test
+    public void matchesNavigatorOfOwner() throws Exception {
+        final SCMHeadEvent<?> event = toEvent("push", "{\"ref\": \"refs/heads/master\", "
+            + "\"before\": \"abc\", \"after\": \"def\", " + REPO + "}");
+        assertTrue(event.isMatch(new DAGsHubSCMNavigator("https://dagshub.com", "user", null, null)));
+        assertTrue(event.isMatch(new DAGsHubSCMNavigator("https://DAGsHub.com/", "User", null, null)));
+        assertFalse(event.isMatch(new DAGsHubSCMNavigator("https://dagshub.com", "other", null, null)));
+        assertFalse(event.isMatch(new DAGsHubSCMNavigator("https://dagshub.example.com", "user", null, null)));
+        assertFalse(event.isMatch(new DAGsHubSCMNavigator("https://dagshub.com", null, null, null)));
+    }
+}